@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.benchmark;
+
+/**
+ * 基准测试使用的统一缓存接口<br>
+ * 各缓存的API不完全相同（如{@link me.asu.ConcurrentCache}、{@link me.asu.TimeToLiveCache}没有实现{@link me.asu.Cache}），
+ * 由{@link CacheType}适配成本接口，使所有基准测试用同一份代码驱动。
+ *
+ * @author Suk
+ */
+public interface BenchmarkCache {
+
+	/**
+	 * 读取
+	 * @param key 键
+	 * @return 值，不存在时返回<code>null</code>
+	 */
+	Integer get(Integer key);
+
+	/**
+	 * 写入
+	 * @param key 键
+	 * @param value 值
+	 */
+	void put(Integer key, Integer value);
+
+	/**
+	 * 释放缓存持有的线程等资源
+	 */
+	void close();
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 依次以1、4、16、64个线程运行{@link CacheBenchmark}，同时启用GC分析器报告分配速率
+ * （结果中的<code>gc.alloc.rate.norm</code>为每次操作分配的字节数）。<br>
+ * 每种线程数的结果写入<code>cache-benchmark-t&lt;线程数&gt;.csv</code>。
+ * 其它命令行参数原样传给JMH，例如只测试LRU：
+ * <pre>
+ * java -cp target/benchmarks.jar me.asu.benchmark.BenchmarkRunner -p cacheType=LRU
+ * </pre>
+ *
+ * @author Suk
+ */
+public class BenchmarkRunner {
+
+	/** 线程数，可用系统属性<code>benchmark.threads</code>覆盖，如<code>-Dbenchmark.threads=1,8</code> */
+	static final String DEFAULT_THREADS = "1,4,16,64";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+		for (String threads : System.getProperty("benchmark.threads", DEFAULT_THREADS).split(",")) {
+			final int count = Integer.parseInt(threads.trim());
+			new Runner(new OptionsBuilder()
+					.parent(commandLine)
+					.include(CacheBenchmark.class.getSimpleName())
+					.threads(count)
+					.addProfiler(GCProfiler.class)
+					.resultFormat(ResultFormatType.CSV)
+					.result("cache-benchmark-t" + count + ".csv")
+					.build()).run();
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 缓存吞吐量基准测试<br>
+ * 所有线程共享同一个缓存，每个线程从预先生成的键序列的随机位置开始顺序读取键，负载为：
+ * <ul>
+ * 		<li>readOnly：只读</li>
+ * 		<li>readHeavy：读写比 7:1</li>
+ * 		<li>writeHeavy：读写比 1:3</li>
+ * 		<li>evictionChurn：只写，键空间远大于容量，几乎每次写入都会淘汰对象</li>
+ * </ul>
+ * 线程数由JMH的<code>-t</code>参数指定，{@link BenchmarkRunner}依次使用1、4、16、64个线程运行。
+ *
+ * @author Suk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+	/** 缓存容量 */
+	static final int CAPACITY = 1 << 14;
+	/** 读写负载的键空间，为容量的4倍 */
+	static final int KEY_SPACE = CAPACITY << 2;
+	/** 淘汰负载的键空间，为容量的256倍 */
+	static final int CHURN_KEY_SPACE = CAPACITY << 8;
+	/** 键序列长度 */
+	static final int SAMPLES = 1 << 20;
+	static final int MASK = SAMPLES - 1;
+
+	@Param({"LRU", "LFU", "FIFO", "TIMED", "CONCURRENT", "TIME_TO_LIVE", "CONCURRENT_LRU", "CONCURRENT_LFU", "TINY_LFU", "LONG_KEY", "LONG_KEY_CLOCK"})
+	CacheType cacheType;
+
+	@Param({"ZIPFIAN", "UNIFORM"})
+	Distribution distribution;
+
+	BenchmarkCache cache;
+	Integer[] keys;
+	Integer[] churnKeys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		keys = distribution.keys(SAMPLES, KEY_SPACE, 1L);
+		churnKeys = distribution.keys(SAMPLES, CHURN_KEY_SPACE, 2L);
+		cache = cacheType.create(CAPACITY);
+		// 按负载的分布预热，使缓存中是稳定状态下的热点对象
+		for (Integer key : keys) {
+			if (cache.get(key) == null) {
+				cache.put(key, key);
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cache.close();
+	}
+
+	/**
+	 * 每个线程独立的键序列位置
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+		int index = ThreadLocalRandom.current().nextInt(SAMPLES);
+	}
+
+	@Benchmark
+	public Integer readOnly(ThreadState state) {
+		return cache.get(keys[state.index++ & MASK]);
+	}
+
+	@Benchmark
+	public Integer readHeavy(ThreadState state) {
+		final int index = state.index++;
+		final Integer key = keys[index & MASK];
+		if ((index & 7) == 0) {
+			cache.put(key, key);
+			return key;
+		}
+		return cache.get(key);
+	}
+
+	@Benchmark
+	public Integer writeHeavy(ThreadState state) {
+		final int index = state.index++;
+		final Integer key = keys[index & MASK];
+		if ((index & 3) != 0) {
+			cache.put(key, key);
+			return key;
+		}
+		return cache.get(key);
+	}
+
+	@Benchmark
+	public Integer evictionChurn(ThreadState state) {
+		final Integer key = churnKeys[state.index++ & MASK];
+		cache.put(key, key);
+		return key;
+	}
+}
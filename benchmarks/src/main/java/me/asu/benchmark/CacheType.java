@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.benchmark;
+
+import me.asu.Cache;
+import me.asu.CacheUtil;
+import me.asu.ConcurrentCache;
+import me.asu.TimeToLiveCache;
+import me.asu.impl.LongKeyCache;
+import me.asu.impl.LongKeyCache.Eviction;
+
+/**
+ * 参与基准测试的缓存类型<br>
+ * 有超时的缓存使用远大于测试时长的超时时间，只测量维护过期索引的开销，测试期间不会有对象过期。
+ *
+ * @author Suk
+ */
+public enum CacheType {
+
+	LRU {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newLRUCache(capacity));
+		}
+	},
+	LFU {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newLFUCache(capacity));
+		}
+	},
+	FIFO {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newFIFOCache(capacity));
+		}
+	},
+	/** 没有容量限制，键空间有限，内存不会无限增长 */
+	TIMED {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newTimedCache(TIMEOUT));
+		}
+	},
+	CONCURRENT_LRU {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newConcurrentLRUCache(capacity));
+		}
+	},
+	CONCURRENT_LFU {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newConcurrentLFUCache(capacity));
+		}
+	},
+	TINY_LFU {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer, Integer>newTinyLFUCache(capacity));
+		}
+	},
+	LONG_KEY {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer>newLongKeyCache(capacity, 0));
+		}
+	},
+	LONG_KEY_CLOCK {
+		@Override
+		BenchmarkCache create(int capacity) {
+			return adapt(CacheUtil.<Integer>newLongKeyCache(capacity, 0, Eviction.CLOCK));
+		}
+	},
+	CONCURRENT {
+		@Override
+		BenchmarkCache create(int capacity) {
+			final ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(capacity);
+			return new BenchmarkCache() {
+				@Override
+				public Integer get(Integer key) {
+					return cache.get(key);
+				}
+
+				@Override
+				public void put(Integer key, Integer value) {
+					cache.put(key, value);
+				}
+
+				@Override
+				public void close() {
+					cache.removeAll();
+				}
+			};
+		}
+	},
+	/** 没有容量限制，键空间有限，内存不会无限增长 */
+	TIME_TO_LIVE {
+		@Override
+		BenchmarkCache create(int capacity) {
+			final TimeToLiveCache<Integer, Integer> cache = new TimeToLiveCache<Integer, Integer>(TIMEOUT, 1000);
+			return new BenchmarkCache() {
+				@Override
+				public Integer get(Integer key) {
+					return cache.get(key);
+				}
+
+				@Override
+				public void put(Integer key, Integer value) {
+					cache.put(key, value);
+				}
+
+				@Override
+				public void close() {
+					cache.shutdownGracefully();
+				}
+			};
+		}
+	};
+
+	/** 超时时长，单位毫秒 */
+	static final long TIMEOUT = 60 * 60 * 1000L;
+
+	/**
+	 * 创建缓存
+	 * @param capacity 容量，不限制容量的缓存忽略此参数
+	 * @return 缓存
+	 */
+	abstract BenchmarkCache create(int capacity);
+
+	private static BenchmarkCache adapt(final Cache<Integer, Integer> cache) {
+		return new BenchmarkCache() {
+			@Override
+			public Integer get(Integer key) {
+				return cache.get(key);
+			}
+
+			@Override
+			public void put(Integer key, Integer value) {
+				cache.put(key, value);
+			}
+
+			@Override
+			public void close() {
+				cache.clear();
+			}
+		};
+	}
+
+	private static BenchmarkCache adapt(final LongKeyCache<Integer> cache) {
+		return new BenchmarkCache() {
+			@Override
+			public Integer get(Integer key) {
+				return cache.get(key.longValue());
+			}
+
+			@Override
+			public void put(Integer key, Integer value) {
+				cache.put(key.longValue(), value);
+			}
+
+			@Override
+			public void close() {
+				cache.clear();
+			}
+		};
+	}
+}
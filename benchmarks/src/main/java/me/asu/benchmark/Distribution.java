@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.benchmark;
+
+import java.util.Random;
+import me.asu.simulator.ZipfianGenerator;
+
+/**
+ * 键的分布<br>
+ * 键序列在测试开始前生成并装箱，测试过程中只按下标读取，生成和装箱的开销不计入结果。
+ *
+ * @author Suk
+ */
+public enum Distribution {
+
+	/** 均匀分布 */
+	UNIFORM {
+		@Override
+		Integer[] keys(int count, int keySpace, long seed) {
+			final Random random = new Random(seed);
+			final Integer[] keys = new Integer[count];
+			for (int i = 0; i < count; i++) {
+				keys[i] = random.nextInt(keySpace);
+			}
+			return keys;
+		}
+	},
+	/**
+	 * Zipf分布（theta = 0.99）<br>
+	 * 排名打散到整个键空间，热点键不会集中在相邻的哈希桶中
+	 */
+	ZIPFIAN {
+		@Override
+		Integer[] keys(int count, int keySpace, long seed) {
+			if (Integer.bitCount(keySpace) != 1) {
+				throw new IllegalArgumentException("keySpace must be a power of 2: " + keySpace);
+			}
+			final ZipfianGenerator generator = new ZipfianGenerator(keySpace, seed);
+			final int mask = keySpace - 1;
+			final Integer[] keys = new Integer[count];
+			for (int i = 0; i < count; i++) {
+				// 奇数乘法在 2^n 的模下是双射
+				keys[i] = ((int) generator.next() * 0x9E3779B9) & mask;
+			}
+			return keys;
+		}
+	};
+
+	/**
+	 * 生成键序列
+	 * @param count 序列长度
+	 * @param keySpace 键空间大小，键的取值范围为[0, keySpace)
+	 * @param seed 随机种子
+	 * @return 键序列
+	 */
+	abstract Integer[] keys(int count, int keySpace, long seed);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Belady最优策略（MIN），淘汰下一次访问最晚的对象，是所有策略命中率的上限<br>
+ * 需要预知未来的访问，只能离线模拟。不会再访问的对象不加入缓存，命中后不会再访问的对象直接移出，
+ * 这两种情况都不计入淘汰次数。
+ *
+ * @author Suk
+ */
+class BeladyPolicy implements Policy {
+
+	private final int capacity;
+	/** 键 -> 下一次访问的序号 */
+	private final Map<Long, Long> nextAccesses = new HashMap<Long, Long>();
+	/** 下一次访问的序号 -> 键，每个序号只属于一个键 */
+	private final TreeMap<Long, Long> residents = new TreeMap<Long, Long>();
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	BeladyPolicy(int capacity) {
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void record(long key, long nextAccess) {
+		final Long previous = nextAccesses.remove(key);
+		if (null != previous) {
+			hitCount++;
+			residents.remove(previous);
+		} else {
+			missCount++;
+			if (nextAccess == NEVER) {
+				return;
+			}
+			if (residents.size() >= capacity) {
+				final Map.Entry<Long, Long> farthest = residents.lastEntry();
+				if (farthest.getKey() < nextAccess) {
+					// 新对象的下一次访问最晚，不加入缓存
+					return;
+				}
+				residents.pollLastEntry();
+				nextAccesses.remove(farthest.getValue());
+				evictionCount++;
+			}
+		}
+		if (nextAccess != NEVER) {
+			nextAccesses.put(key, nextAccess);
+			residents.put(nextAccess, key);
+		}
+	}
+
+	@Override
+	public long hitCount() {
+		return hitCount;
+	}
+
+	@Override
+	public long missCount() {
+		return missCount;
+	}
+
+	@Override
+	public long evictionCount() {
+		return evictionCount;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import me.asu.Cache;
+
+/**
+ * 用缓存实现模拟的策略，结果与实际使用该缓存时一致
+ *
+ * @author Suk
+ */
+class CachePolicy implements Policy {
+
+	private final Cache<Long, Long> cache;
+	private long hitCount;
+	private long missCount;
+
+	CachePolicy(Cache<Long, Long> cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public void record(long key, long nextAccess) {
+		final Long boxed = key;
+		if (null == cache.get(boxed)) {
+			missCount++;
+			cache.put(boxed, boxed);
+		} else {
+			hitCount++;
+		}
+	}
+
+	@Override
+	public long hitCount() {
+		return hitCount;
+	}
+
+	@Override
+	public long missCount() {
+		return missCount;
+	}
+
+	@Override
+	public long evictionCount() {
+		return cache.stats().evictionCount();
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 每次访问的下一次访问序号，供离线策略使用<br>
+ * 顺序读一遍访问序列，访问到某个键时把序号写入该键上一次访问的位置。结果保存在内存映射的临时文件中，
+ * 每次访问占8字节，不占用堆内存；堆中只保存每个键最后一次访问的序号。
+ *
+ * @author Suk
+ */
+class FutureIndex implements Closeable {
+
+	/** 每个映射区域的字节数 */
+	private static final int REGION_SHIFT = 27;
+	private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+	private long events;
+
+	private FutureIndex(File file) throws IOException {
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "rw");
+	}
+
+	/**
+	 * 读取访问序列，计算每次访问的下一次访问序号
+	 * @param trace 访问序列
+	 * @param directory 临时文件目录，<code>null</code>表示使用系统临时目录
+	 * @return 结果
+	 * @throws IOException 读写文件失败
+	 */
+	static FutureIndex build(Trace trace, File directory) throws IOException {
+		final FutureIndex index = new FutureIndex(File.createTempFile("future-", ".idx", directory));
+		final LastAccessMap lastAccesses = new LastAccessMap();
+		final long[] buffer = new long[Simulator.BATCH_SIZE];
+		final Trace.Reader reader = trace.open();
+		try {
+			long position = 0;
+			int count;
+			while ((count = reader.read(buffer)) >= 0) {
+				for (int i = 0; i < count; i++, position++) {
+					final long previous = lastAccesses.put(buffer[i], position);
+					if (previous >= 0) {
+						// 保存序号加1，0表示不会再访问
+						index.putLong(previous, position + 1);
+					}
+				}
+			}
+			index.events = position;
+		} catch (IOException e) {
+			index.close();
+			throw e;
+		} finally {
+			reader.close();
+		}
+		return index;
+	}
+
+	/**
+	 * @return 访问次数
+	 */
+	long events() {
+		return events;
+	}
+
+	/**
+	 * 批量读取下一次访问序号
+	 * @param start 第一个访问的序号
+	 * @param buffer 缓冲区
+	 * @param count 读取个数
+	 * @throws IOException 映射文件失败
+	 */
+	void read(long start, long[] buffer, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			final long value = region(start + i).getLong(offset(start + i));
+			buffer[i] = (value == 0) ? Policy.NEVER : value - 1;
+		}
+	}
+
+	private void putLong(long position, long value) throws IOException {
+		region(position).putLong(offset(position), value);
+	}
+
+	private MappedByteBuffer region(long position) throws IOException {
+		final int region = (int) ((position << 3) >>> REGION_SHIFT);
+		while (regions.size() <= region) {
+			regions.add(raf.getChannel().map(FileChannel.MapMode.READ_WRITE,
+					(long) regions.size() << REGION_SHIFT, 1L << REGION_SHIFT));
+		}
+		return regions.get(region);
+	}
+
+	private static int offset(long position) {
+		return (int) ((position << 3) & REGION_MASK);
+	}
+
+	@Override
+	public void close() throws IOException {
+		regions.clear();
+		try {
+			raf.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * 键到最后一次访问序号的映射，开放寻址，避免装箱
+	 */
+	static final class LastAccessMap {
+		private long[] keys = new long[1 << 16];
+		private long[] values = new long[1 << 16];
+		private boolean[] used = new boolean[1 << 16];
+		private int size;
+
+		/**
+		 * 保存键的最后一次访问序号
+		 * @param key 键
+		 * @param value 序号
+		 * @return 原序号，不存在时返回<code>-1</code>
+		 */
+		long put(long key, long value) {
+			final int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (used[slot]) {
+				if (keys[slot] == key) {
+					final long previous = values[slot];
+					values[slot] = value;
+					return previous;
+				}
+				slot = (slot + 1) & mask;
+			}
+			used[slot] = true;
+			keys[slot] = key;
+			values[slot] = value;
+			if (++size > (keys.length >>> 1)) {
+				resize();
+			}
+			return -1;
+		}
+
+		private void resize() {
+			final long[] oldKeys = keys;
+			final long[] oldValues = values;
+			final boolean[] oldUsed = used;
+			keys = new long[oldKeys.length << 1];
+			values = new long[oldKeys.length << 1];
+			used = new boolean[oldKeys.length << 1];
+			final int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i]) {
+					int slot = hash(oldKeys[i]) & mask;
+					while (used[slot]) {
+						slot = (slot + 1) & mask;
+					}
+					used[slot] = true;
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		private static int hash(long key) {
+			final long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+/**
+ * 被模拟的淘汰策略
+ *
+ * @author Suk
+ */
+public interface Policy {
+
+	/** 表示之后不会再访问 */
+	long NEVER = Long.MAX_VALUE;
+
+	/**
+	 * 处理一次访问，未命中时加入缓存
+	 * @param key 键
+	 * @param nextAccess 同一个键下一次被访问的序号，不会再访问时为{@link #NEVER}，
+	 * 只有{@link PolicyType#isOffline()}的策略才会收到真实值，其它策略收到的总是{@link #NEVER}
+	 */
+	void record(long key, long nextAccess);
+
+	/**
+	 * @return 命中次数
+	 */
+	long hitCount();
+
+	/**
+	 * @return 未命中次数
+	 */
+	long missCount();
+
+	/**
+	 * @return 淘汰次数
+	 */
+	long evictionCount();
+}
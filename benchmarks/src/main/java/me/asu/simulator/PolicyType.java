@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import me.asu.CacheUtil;
+
+/**
+ * 可模拟的策略
+ *
+ * @author Suk
+ */
+public enum PolicyType {
+
+	LRU {
+		@Override
+		Policy create(int capacity) {
+			return new CachePolicy(CacheUtil.<Long, Long>newLRUCache(capacity));
+		}
+	},
+	LFU {
+		@Override
+		Policy create(int capacity) {
+			return new CachePolicy(CacheUtil.<Long, Long>newLFUCache(capacity));
+		}
+	},
+	FIFO {
+		@Override
+		Policy create(int capacity) {
+			return new CachePolicy(CacheUtil.<Long, Long>newFIFOCache(capacity));
+		}
+	},
+	CONCURRENT_LRU {
+		@Override
+		Policy create(int capacity) {
+			return new CachePolicy(CacheUtil.<Long, Long>newConcurrentLRUCache(capacity));
+		}
+	},
+	CONCURRENT_LFU {
+		@Override
+		Policy create(int capacity) {
+			return new CachePolicy(CacheUtil.<Long, Long>newConcurrentLFUCache(capacity));
+		}
+	},
+	TINY_LFU {
+		@Override
+		Policy create(int capacity) {
+			return new CachePolicy(CacheUtil.<Long, Long>newTinyLFUCache(capacity));
+		}
+	},
+	/** Belady最优策略，命中率的上限 */
+	OPTIMAL {
+		@Override
+		Policy create(int capacity) {
+			return new BeladyPolicy(capacity);
+		}
+
+		@Override
+		public boolean isOffline() {
+			return true;
+		}
+	};
+
+	/**
+	 * 创建策略
+	 * @param capacity 容量
+	 * @return 策略
+	 */
+	abstract Policy create(int capacity);
+
+	/**
+	 * 是否需要预知未来的访问
+	 * @return 需要时返回<code>true</code>
+	 */
+	public boolean isOffline() {
+		return false;
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 命中率模拟器<br>
+ * 用访问序列驱动多个策略在多种容量下运行，报告命中率、淘汰次数和吞吐量。访问序列只流式读取一遍
+ * （有离线策略时多读一遍计算未来访问），分批交给每个策略处理，吞吐量只统计策略处理的时间。<br>
+ * 命令行参数（均可省略）：
+ * <pre>
+ * --trace=zipf|scan|loop|&lt;文件&gt;  访问序列，默认zipf
+ * --events=10000000                生成的访问次数
+ * --keys=1000000                   生成的键个数，loop时为循环长度
+ * --seed=1                         随机种子
+ * --capacities=1000,10000,100000   容量
+ * --policies=LRU,LFU,FIFO,OPTIMAL  策略，默认全部
+ * --tmpdir=/tmp                    离线策略的临时文件目录
+ * </pre>
+ *
+ * @author Suk
+ */
+public class Simulator {
+
+	/** 每批处理的访问数 */
+	static final int BATCH_SIZE = 4096;
+
+	private final Trace trace;
+	private final List<PolicyType> policyTypes;
+	private final int[] capacities;
+	private File tempDirectory;
+
+	/**
+	 * 构造
+	 * @param trace 访问序列
+	 * @param policyTypes 策略
+	 * @param capacities 容量
+	 */
+	public Simulator(Trace trace, List<PolicyType> policyTypes, int[] capacities) {
+		if (policyTypes.isEmpty() || capacities.length == 0) {
+			throw new IllegalArgumentException("policies and capacities must not be empty");
+		}
+		for (int capacity : capacities) {
+			if (capacity <= 0) {
+				throw new IllegalArgumentException("capacity must be positive: " + capacity);
+			}
+		}
+		this.trace = trace;
+		this.policyTypes = new ArrayList<PolicyType>(policyTypes);
+		this.capacities = capacities.clone();
+	}
+
+	/**
+	 * 设置离线策略的临时文件目录
+	 * @param tempDirectory 目录，<code>null</code>表示使用系统临时目录
+	 */
+	public void setTempDirectory(File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	/**
+	 * 运行模拟
+	 * @return 每个策略在每种容量下的结果，按策略、容量排列
+	 * @throws IOException 读取访问序列失败
+	 */
+	public List<Result> run() throws IOException {
+		final List<Result> results = new ArrayList<Result>();
+		final List<Policy> policies = new ArrayList<Policy>();
+		boolean offline = false;
+		for (PolicyType type : policyTypes) {
+			offline |= type.isOffline();
+			for (int capacity : capacities) {
+				results.add(new Result(type, capacity));
+				policies.add(type.create(capacity));
+			}
+		}
+
+		final FutureIndex future = offline ? FutureIndex.build(trace, tempDirectory) : null;
+		final long[] keys = new long[BATCH_SIZE];
+		final long[] nextAccesses = new long[BATCH_SIZE];
+		final long[] never = new long[BATCH_SIZE];
+		Arrays.fill(never, Policy.NEVER);
+		final Trace.Reader reader = trace.open();
+		try {
+			long position = 0;
+			int count;
+			while ((count = reader.read(keys)) >= 0) {
+				if (null != future) {
+					future.read(position, nextAccesses, count);
+				}
+				for (int p = 0; p < policies.size(); p++) {
+					final Policy policy = policies.get(p);
+					final Result result = results.get(p);
+					final long[] next = result.policyType.isOffline() ? nextAccesses : never;
+					final long start = System.nanoTime();
+					for (int i = 0; i < count; i++) {
+						policy.record(keys[i], next[i]);
+					}
+					result.nanos += System.nanoTime() - start;
+				}
+				position += count;
+			}
+		} finally {
+			reader.close();
+			if (null != future) {
+				future.close();
+			}
+		}
+
+		for (int p = 0; p < policies.size(); p++) {
+			final Policy policy = policies.get(p);
+			final Result result = results.get(p);
+			result.hitCount = policy.hitCount();
+			result.missCount = policy.missCount();
+			result.evictionCount = policy.evictionCount();
+		}
+		return results;
+	}
+
+	/**
+	 * 打印结果表格
+	 * @param results 结果
+	 * @param out 输出
+	 */
+	public static void print(List<Result> results, PrintStream out) {
+		out.printf("%-16s %12s %10s %14s %14s %14s %14s%n",
+				"policy", "capacity", "hit rate", "hits", "misses", "evictions", "ops/s");
+		for (Result result : results) {
+			out.printf("%-16s %12d %9.2f%% %14d %14d %14d %14.0f%n",
+					result.policyType, result.capacity, result.hitRate() * 100,
+					result.hitCount, result.missCount, result.evictionCount, result.throughput());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		final Map<String, String> options = new HashMap<String, String>();
+		for (String arg : args) {
+			final int eq = arg.indexOf('=');
+			if (!arg.startsWith("--") || eq < 0) {
+				throw new IllegalArgumentException("Expected --name=value: " + arg);
+			}
+			options.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+		final long events = Long.parseLong(option(options, "events", "10000000"));
+		final long keys = Long.parseLong(option(options, "keys", "1000000"));
+		final long seed = Long.parseLong(option(options, "seed", "1"));
+		final String traceName = option(options, "trace", "zipf");
+		final Trace trace;
+		if ("zipf".equals(traceName)) {
+			trace = Trace.zipf(events, keys, seed);
+		} else if ("scan".equals(traceName)) {
+			trace = Trace.scan(events, keys, seed);
+		} else if ("loop".equals(traceName)) {
+			trace = Trace.loop(events, keys);
+		} else {
+			trace = Trace.file(new File(traceName));
+		}
+
+		final List<PolicyType> policyTypes = new ArrayList<PolicyType>();
+		final String policyNames = options.get("policies");
+		if (null == policyNames) {
+			policyTypes.addAll(Arrays.asList(PolicyType.values()));
+		} else {
+			for (String name : policyNames.split(",")) {
+				policyTypes.add(PolicyType.valueOf(name.trim().toUpperCase()));
+			}
+		}
+
+		final String[] capacityNames = option(options, "capacities", "1000,10000,100000").split(",");
+		final int[] capacities = new int[capacityNames.length];
+		for (int i = 0; i < capacities.length; i++) {
+			capacities[i] = Integer.parseInt(capacityNames[i].trim());
+		}
+
+		final Simulator simulator = new Simulator(trace, policyTypes, capacities);
+		final String tmpdir = options.get("tmpdir");
+		if (null != tmpdir) {
+			simulator.setTempDirectory(new File(tmpdir));
+		}
+		System.out.println("trace: " + trace);
+		print(simulator.run(), System.out);
+	}
+
+	private static String option(Map<String, String> options, String name, String defaultValue) {
+		final String value = options.get(name);
+		return (null == value) ? defaultValue : value;
+	}
+
+	/**
+	 * 一个策略在一种容量下的结果
+	 */
+	public static final class Result {
+		final PolicyType policyType;
+		final int capacity;
+		long hitCount;
+		long missCount;
+		long evictionCount;
+		/** 策略处理访问的总耗时，单位纳秒 */
+		long nanos;
+
+		Result(PolicyType policyType, int capacity) {
+			this.policyType = policyType;
+			this.capacity = capacity;
+		}
+
+		public PolicyType getPolicyType() {
+			return policyType;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * @return 命中率，没有访问时为1
+		 */
+		public double hitRate() {
+			final long requests = hitCount + missCount;
+			return (requests == 0) ? 1.0 : (double) hitCount / requests;
+		}
+
+		/**
+		 * @return 每秒处理的访问数
+		 */
+		public double throughput() {
+			return (nanos == 0) ? 0 : (hitCount + missCount) * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Result [policy=" + policyType + ", capacity=" + capacity + ", hitRate=" + hitRate()
+					+ ", evictions=" + evictionCount + ", throughput=" + throughput() + "]";
+		}
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 访问序列<br>
+ * 访问序列可以被多次打开，每次打开都从头读取同样的键，读取是流式的，不会把整个序列加载到内存。
+ * 需要预知未来访问的策略（如{@link BeladyPolicy}）会读取两遍。
+ *
+ * @author Suk
+ */
+public abstract class Trace {
+
+	/** 扫描序列中每个周期的事件数 */
+	static final int SCAN_PERIOD = 4096;
+	/** 扫描序列中每个周期的扫描事件数 */
+	static final int SCAN_LENGTH = 1024;
+
+	/**
+	 * 打开访问序列
+	 * @return 读取器
+	 * @throws IOException 读取文件失败
+	 */
+	public abstract Reader open() throws IOException;
+
+	/**
+	 * 访问序列的读取器
+	 */
+	public interface Reader extends Closeable {
+
+		/**
+		 * 批量读取键
+		 * @param buffer 缓冲区
+		 * @return 读取的键数，已读完时返回<code>-1</code>
+		 * @throws IOException 读取文件失败
+		 */
+		int read(long[] buffer) throws IOException;
+	}
+
+	/**
+	 * 从文件读取访问序列<br>
+	 * 每行一次访问，取每行第一个以空白分隔的字段为键：是整数时直接使用，否则使用其64位哈希值。
+	 * 空行和以<code>#</code>开头的行被忽略，以<code>.gz</code>结尾的文件按gzip解压。
+	 *
+	 * @param file 文件
+	 * @return 访问序列
+	 */
+	public static Trace file(final File file) {
+		return new Trace() {
+			@Override
+			public Reader open() throws IOException {
+				InputStream in = new FileInputStream(file);
+				if (file.getName().endsWith(".gz")) {
+					in = new GZIPInputStream(in, 1 << 16);
+				}
+				final BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"), 1 << 16);
+				return new Reader() {
+					@Override
+					public int read(long[] buffer) throws IOException {
+						int count = 0;
+						String line;
+						while (count < buffer.length && (line = reader.readLine()) != null) {
+							line = line.trim();
+							if (line.isEmpty() || line.charAt(0) == '#') {
+								continue;
+							}
+							buffer[count++] = parseKey(line);
+						}
+						return (count == 0) ? -1 : count;
+					}
+
+					@Override
+					public void close() throws IOException {
+						reader.close();
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return file.getPath();
+			}
+		};
+	}
+
+	/**
+	 * Zipf分布的访问序列
+	 * @param events 访问次数
+	 * @param keys 键的个数
+	 * @param seed 随机种子
+	 * @return 访问序列
+	 */
+	public static Trace zipf(final long events, final long keys, final long seed) {
+		return new Trace() {
+			@Override
+			public Reader open() {
+				final ZipfianGenerator generator = new ZipfianGenerator(keys, seed);
+				return new GeneratedReader(events) {
+					@Override
+					long next(long index) {
+						return generator.next();
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return "zipf(events=" + events + ", keys=" + keys + ")";
+			}
+		};
+	}
+
+	/**
+	 * 混有扫描的Zipf访问序列<br>
+	 * 每{@value #SCAN_PERIOD}次访问中，前一部分是Zipf分布的热点访问，最后{@value #SCAN_LENGTH}次是对新键的顺序扫描，
+	 * 扫描的键不会再次出现，用于检验策略能否避免热点被扫描挤出。
+	 *
+	 * @param events 访问次数
+	 * @param keys 热点键的个数
+	 * @param seed 随机种子
+	 * @return 访问序列
+	 */
+	public static Trace scan(final long events, final long keys, final long seed) {
+		return new Trace() {
+			@Override
+			public Reader open() {
+				final ZipfianGenerator generator = new ZipfianGenerator(keys, seed);
+				return new GeneratedReader(events) {
+					private long scanKey = keys;
+
+					@Override
+					long next(long index) {
+						if (index % SCAN_PERIOD < SCAN_PERIOD - SCAN_LENGTH) {
+							return generator.next();
+						}
+						return scanKey++;
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return "scan(events=" + events + ", keys=" + keys + ")";
+			}
+		};
+	}
+
+	/**
+	 * 循环访问序列，按0, 1, ..., keys - 1的顺序反复访问<br>
+	 * 容量小于循环长度时LRU和FIFO的命中率为0，是它们的最坏情况。
+	 *
+	 * @param events 访问次数
+	 * @param keys 循环长度
+	 * @return 访问序列
+	 */
+	public static Trace loop(final long events, final long keys) {
+		return new Trace() {
+			@Override
+			public Reader open() {
+				return new GeneratedReader(events) {
+					@Override
+					long next(long index) {
+						return index % keys;
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return "loop(events=" + events + ", keys=" + keys + ")";
+			}
+		};
+	}
+
+	/**
+	 * 解析一行中的键
+	 * @param line 去掉首尾空白的非空行
+	 * @return 键
+	 */
+	static long parseKey(String line) {
+		int end = 0;
+		while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+			end++;
+		}
+		final String field = line.substring(0, end);
+		try {
+			return Long.parseLong(field);
+		} catch (NumberFormatException e) {
+			// FNV-1a
+			long hash = 0xcbf29ce484222325L;
+			for (int i = 0; i < field.length(); i++) {
+				hash ^= field.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+			return hash;
+		}
+	}
+
+	/**
+	 * 生成的访问序列的读取器
+	 */
+	abstract static class GeneratedReader implements Reader {
+		private final long events;
+		private long index;
+
+		GeneratedReader(long events) {
+			this.events = events;
+		}
+
+		/**
+		 * 生成键
+		 * @param index 访问的序号
+		 * @return 键
+		 */
+		abstract long next(long index);
+
+		@Override
+		public int read(long[] buffer) {
+			if (index >= events) {
+				return -1;
+			}
+			final int count = (int) Math.min(buffer.length, events - index);
+			for (int i = 0; i < count; i++) {
+				buffer[i] = next(index++);
+			}
+			return count;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
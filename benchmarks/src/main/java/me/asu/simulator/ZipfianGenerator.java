@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.simulator;
+
+import java.util.Random;
+
+/**
+ * Zipf分布的排名生成器，算法见 Gray et al.《Quickly Generating Billion-Record Synthetic Databases》<br>
+ * 初始化需要O(n)计算zeta常数，之后每次生成为O(1)，不需要保存分布表。
+ *
+ * @author Suk
+ */
+public class ZipfianGenerator {
+
+	/** 默认偏斜度，与YCSB相同 */
+	public static final double DEFAULT_THETA = 0.99d;
+
+	private final long items;
+	private final double theta;
+	private final double zetan;
+	private final double alpha;
+	private final double eta;
+	private final Random random;
+
+	/**
+	 * 构造，使用默认偏斜度
+	 * @param items 排名个数，生成的排名范围为[0, items)
+	 * @param seed 随机种子
+	 */
+	public ZipfianGenerator(long items, long seed) {
+		this(items, DEFAULT_THETA, seed);
+	}
+
+	/**
+	 * 构造
+	 * @param items 排名个数，生成的排名范围为[0, items)
+	 * @param theta 偏斜度，取值范围(0, 1)
+	 * @param seed 随机种子
+	 */
+	public ZipfianGenerator(long items, double theta, long seed) {
+		if (items < 2) {
+			throw new IllegalArgumentException("items must be at least 2: " + items);
+		}
+		if (theta <= 0 || theta >= 1) {
+			throw new IllegalArgumentException("theta must be in (0, 1): " + theta);
+		}
+		this.items = items;
+		this.theta = theta;
+		this.zetan = zeta(items, theta);
+		this.alpha = 1d / (1d - theta);
+		this.eta = (1d - Math.pow(2d / items, 1d - theta)) / (1d - zeta(2, theta) / zetan);
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * 生成下一个排名，排名越小出现的概率越高
+	 * @return 排名
+	 */
+	public long next() {
+		final double u = random.nextDouble();
+		final double uz = u * zetan;
+		if (uz < 1d) {
+			return 0;
+		}
+		if (uz < 1d + Math.pow(0.5d, theta)) {
+			return 1;
+		}
+		return Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1d, alpha)));
+	}
+
+	private static double zeta(long n, double theta) {
+		double sum = 0;
+		for (long i = 1; i <= n; i++) {
+			sum += 1d / Math.pow(i, theta);
+		}
+		return sum;
+	}
+}
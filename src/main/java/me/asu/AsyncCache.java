@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步缓存<br>
+ * 缓存中保存的是{@link CompletableFuture}，未命中时立即放入尚未完成的结果并在执行器中加载，
+ * 调用者不会被阻塞。同一个键的并发请求共享同一个结果，因此加载只执行一次。
+ * 加载失败（异常完成）或以<code>null</code>完成的结果会被自动移出缓存，下次请求重新加载。
+ * 
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface AsyncCache<K, V> {
+
+	/**
+	 * 从缓存中获得结果，不存在或已过期时使用指定的加载器异步加载
+	 * 
+	 * @param key 键
+	 * @param loader 异步加载器
+	 * @return 键对应的结果，可能尚未完成
+	 */
+	CompletableFuture<V> getAsync(K key, AsyncCacheLoader<? super K, ? extends V> loader);
+
+	/**
+	 * 从缓存中获得结果，不存在或已过期时在执行器中执行同步加载器
+	 * 
+	 * @param key 键
+	 * @param loader 加载器，在执行器的线程中执行
+	 * @return 键对应的结果，可能尚未完成
+	 */
+	CompletableFuture<V> getAsync(K key, CacheLoader<? super K, ? extends V> loader);
+
+	/**
+	 * 从缓存中获得结果，不加载
+	 * 
+	 * @param key 键
+	 * @return 键对应的结果，可能尚未完成，不存在或已过期返回<code>null</code>
+	 */
+	CompletableFuture<V> getIfPresent(K key);
+
+	/**
+	 * 将结果放入缓存，结果异常完成或以<code>null</code>完成时自动移出
+	 * 
+	 * @param key 键
+	 * @param future 结果
+	 */
+	void put(K key, CompletableFuture<V> future);
+
+	/**
+	 * 将已知的值放入缓存
+	 * 
+	 * @param key 键
+	 * @param value 值
+	 */
+	void put(K key, V value);
+
+	/**
+	 * 从缓存中移除结果，正在进行的加载不会被取消
+	 * 
+	 * @param key 键
+	 */
+	void remove(K key);
+
+	/**
+	 * 清空缓存
+	 */
+	void clear();
+
+	/**
+	 * @return 缓存中的结果数（包括未完成的）
+	 */
+	int size();
+
+	/**
+	 * @return 保存结果的缓存，容量、过期和淘汰策略由它决定
+	 */
+	Cache<K, CompletableFuture<V>> cache();
+}
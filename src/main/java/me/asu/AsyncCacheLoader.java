@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 异步缓存加载器，返回加载结果的{@link CompletableFuture}，不阻塞调用者
+ * 
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface AsyncCacheLoader<K, V> {
+
+	/**
+	 * 开始加载对象
+	 * 
+	 * @param key 键
+	 * @param executor 缓存配置的执行器，加载器可以在其中执行阻塞操作
+	 * @return 加载结果，以<code>null</code>完成表示不存在；异常完成表示加载失败，不会被缓存
+	 * @throws Exception 启动加载失败，等同于返回异常完成的结果
+	 */
+	CompletableFuture<? extends V> asyncLoad(K key, Executor executor) throws Exception;
+}
@@ -24,6 +24,8 @@
 package me.asu;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import me.asu.impl.CacheObj;
 
 /**
@@ -94,6 +96,39 @@ public interface Cache<K, V> extends Iterable<V> {
 	 */
 	V get(K key, boolean isUpdateLastAccess);
 
+	/**
+	 * 批量从缓存中获得对象，不在缓存中或已过期的键不包含在结果中
+	 * <p>
+	 * 与逐个调用{@link #get(Object)}相同，会刷新最后访问时间。默认逐个调用{@link #get(Object)}，
+	 * 本包中的缓存整批只加锁一次（分段缓存每个分段一次）。
+	 * 
+	 * @param keys 键
+	 * @return 键和对象的映射，按键的顺序排列
+	 */
+	default Map<K, V> getAll(Iterable<? extends K> keys) {
+		final Map<K, V> result = new LinkedHashMap<K, V>();
+		for (K key : keys) {
+			final V value = get(key);
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 批量将对象加入到缓存，使用默认失效时长<br>
+	 * 默认逐个调用{@link #put(Object, Object)}，本包中的缓存整批只加锁一次（分段缓存每个分段一次）
+	 * 
+	 * @param map 键和对象的映射
+	 * @see Cache#put(Object, Object)
+	 */
+	default void putAll(Map<? extends K, ? extends V> map) {
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
 	/**
 	 * 返回缓存迭代器
 	 * 
@@ -131,6 +166,18 @@ public interface Cache<K, V> extends Iterable<V> {
 	 */
 	void remove(K key);
 
+	/**
+	 * 批量从缓存中移除对象<br>
+	 * 默认逐个调用{@link #remove(Object)}，本包中的缓存整批只加锁一次（分段缓存每个分段一次）
+	 * 
+	 * @param keys 键
+	 */
+	default void removeAll(Iterable<? extends K> keys) {
+		for (K key : keys) {
+			remove(key);
+		}
+	}
+
 	/**
 	 * 清空缓存
 	 */
@@ -157,4 +204,16 @@ public interface Cache<K, V> extends Iterable<V> {
 	 * @return 是否包含key
 	 */
 	boolean containsKey(K key);
+
+	/**
+	 * 返回缓存统计信息的快照，包括命中、丢失、加载、淘汰和过期的计数
+	 * <p>
+	 * 计数器按线程分散累加，记录统计的开销很小，始终开启。默认返回{@link CacheStats#empty()}，
+	 * 不记录统计的实现无需覆盖。
+	 * 
+	 * @return 统计信息快照
+	 */
+	default CacheStats stats() {
+		return CacheStats.empty();
+	}
 }
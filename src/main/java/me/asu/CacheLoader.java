@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存加载器，缓存中不存在对象时用于加载对象
+ * 
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface CacheLoader<K, V> {
+
+	/**
+	 * 加载对象
+	 * 
+	 * @param key 键
+	 * @return 值，<code>null</code>表示不存在，不会被缓存
+	 * @throws Exception 加载失败，异常会传递给所有等待此次加载的调用者
+	 */
+	V load(K key) throws Exception;
+
+	/**
+	 * 批量加载对象，用于{@link LoadingCache#getAll(Iterable, CacheLoader)}<br>
+	 * 默认逐个调用{@link #load(Object)}，可以覆盖为一次后端请求加载全部对象
+	 * 
+	 * @param keys 缓存中不存在的键
+	 * @return 键和值的映射，不包含的键或值为<code>null</code>表示不存在，不会被缓存；不在<code>keys</code>中的键被忽略
+	 * @throws Exception 加载失败，异常会传递给所有等待这些键的调用者
+	 */
+	default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+		final Map<K, V> result = new HashMap<K, V>();
+		for (K key : keys) {
+			final V value = load(key);
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+}
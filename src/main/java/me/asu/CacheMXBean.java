@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+/**
+ * 缓存的JMX管理接口，通过{@link CacheUtil#register(String, Cache)}注册<br>
+ * 所有属性读取预先累计的计数器，不获取缓存的锁。
+ * 
+ * @author Suk
+ */
+public interface CacheMXBean {
+
+	/**
+	 * @return 注册的名称
+	 */
+	String getName();
+
+	/**
+	 * @return 缓存的对象数量
+	 */
+	int getSize();
+
+	/**
+	 * @return 缓存容量，<code>0</code>表示无大小限制
+	 */
+	int getCapacity();
+
+	/**
+	 * @return 命中数
+	 */
+	long getHitCount();
+
+	/**
+	 * @return 丢失数
+	 */
+	long getMissCount();
+
+	/**
+	 * @return 命中率，没有请求时为<code>1.0</code>
+	 */
+	double getHitRatio();
+
+	/**
+	 * @return 因容量或权重不足被淘汰的对象数
+	 */
+	long getEvictionCount();
+
+	/**
+	 * @return 因过期被清理的对象数
+	 */
+	long getExpirationCount();
+
+	/**
+	 * @return 加载成功数
+	 */
+	long getLoadSuccessCount();
+
+	/**
+	 * @return 加载失败数
+	 */
+	long getLoadFailureCount();
+
+	/**
+	 * @return 平均每次加载的耗时，单位纳秒
+	 */
+	double getAverageLoadPenalty();
+
+	/**
+	 * @return 执行清理策略的次数，缓存不支持记录延迟时为0
+	 */
+	long getPruneCount();
+
+	/**
+	 * @return 执行清理策略的平均耗时，单位纳秒
+	 */
+	double getPruneMeanTime();
+
+	/**
+	 * @return 执行清理策略耗时的99百分位数，单位纳秒
+	 */
+	long getPrune99thPercentileTime();
+
+	/**
+	 * @return 执行清理策略的最大耗时，单位纳秒
+	 */
+	long getPruneMaxTime();
+}
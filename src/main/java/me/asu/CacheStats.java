@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+/**
+ * 缓存统计信息的快照，不可变<br>
+ * 所有计数从缓存创建开始累计，两个快照相减（{@link #minus(CacheStats)}）即为一段时间内的统计。
+ * 
+ * @author Suk
+ */
+public final class CacheStats {
+
+	private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+	private final long hitCount;
+	private final long missCount;
+	private final long loadSuccessCount;
+	private final long loadFailureCount;
+	private final long totalLoadTime;
+	private final long evictionCount;
+	private final long evictionWeight;
+	private final long expirationCount;
+
+	/**
+	 * 构造
+	 * 
+	 * @param hitCount 命中数
+	 * @param missCount 丢失数
+	 * @param loadSuccessCount 加载成功数
+	 * @param loadFailureCount 加载失败数（包括加载器抛出异常和返回<code>null</code>）
+	 * @param totalLoadTime 加载总耗时，单位纳秒
+	 * @param evictionCount 因容量或权重不足被淘汰的对象数
+	 * @param evictionWeight 被淘汰的对象的权重之和
+	 * @param expirationCount 因过期被清理的对象数
+	 */
+	public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+			long totalLoadTime, long evictionCount, long evictionWeight, long expirationCount) {
+		if (hitCount < 0 || missCount < 0 || loadSuccessCount < 0 || loadFailureCount < 0 || totalLoadTime < 0
+				|| evictionCount < 0 || evictionWeight < 0 || expirationCount < 0) {
+			throw new IllegalArgumentException("Counts must not be negative");
+		}
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.loadSuccessCount = loadSuccessCount;
+		this.loadFailureCount = loadFailureCount;
+		this.totalLoadTime = totalLoadTime;
+		this.evictionCount = evictionCount;
+		this.evictionWeight = evictionWeight;
+		this.expirationCount = expirationCount;
+	}
+
+	/**
+	 * @return 所有计数均为0的统计
+	 */
+	public static CacheStats empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @return 请求数，即命中数与丢失数之和
+	 */
+	public long requestCount() {
+		return saturatedAdd(hitCount, missCount);
+	}
+
+	/**
+	 * @return 命中数
+	 */
+	public long hitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return 命中率，没有请求时为<code>1.0</code>
+	 */
+	public double hitRate() {
+		final long requestCount = requestCount();
+		return (requestCount == 0) ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * @return 丢失数
+	 */
+	public long missCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return 丢失率，没有请求时为<code>0.0</code>
+	 */
+	public double missRate() {
+		final long requestCount = requestCount();
+		return (requestCount == 0) ? 0.0 : (double) missCount / requestCount;
+	}
+
+	/**
+	 * @return 加载数，即加载成功数与失败数之和
+	 */
+	public long loadCount() {
+		return saturatedAdd(loadSuccessCount, loadFailureCount);
+	}
+
+	/**
+	 * @return 加载成功数
+	 */
+	public long loadSuccessCount() {
+		return loadSuccessCount;
+	}
+
+	/**
+	 * @return 加载失败数，包括加载器抛出异常和返回<code>null</code>
+	 */
+	public long loadFailureCount() {
+		return loadFailureCount;
+	}
+
+	/**
+	 * @return 加载失败率，没有加载时为<code>0.0</code>
+	 */
+	public double loadFailureRate() {
+		final long loadCount = loadCount();
+		return (loadCount == 0) ? 0.0 : (double) loadFailureCount / loadCount;
+	}
+
+	/**
+	 * @return 加载总耗时，单位纳秒
+	 */
+	public long totalLoadTime() {
+		return totalLoadTime;
+	}
+
+	/**
+	 * @return 平均每次加载的耗时，单位纳秒，没有加载时为<code>0.0</code>
+	 */
+	public double averageLoadPenalty() {
+		final long loadCount = loadCount();
+		return (loadCount == 0) ? 0.0 : (double) totalLoadTime / loadCount;
+	}
+
+	/**
+	 * @return 因容量或权重不足被淘汰的对象数，不包括过期和被移除的对象
+	 */
+	public long evictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return 被淘汰的对象的权重之和，未设置权重计算器时为0
+	 */
+	public long evictionWeight() {
+		return evictionWeight;
+	}
+
+	/**
+	 * @return 因过期被清理的对象数
+	 */
+	public long expirationCount() {
+		return expirationCount;
+	}
+
+	/**
+	 * 与另一个统计相减，用于计算两个快照之间的统计，结果中的负数按0计算
+	 * 
+	 * @param other 较早的快照
+	 * @return 差值
+	 */
+	public CacheStats minus(CacheStats other) {
+		return new CacheStats(
+				Math.max(0, hitCount - other.hitCount),
+				Math.max(0, missCount - other.missCount),
+				Math.max(0, loadSuccessCount - other.loadSuccessCount),
+				Math.max(0, loadFailureCount - other.loadFailureCount),
+				Math.max(0, totalLoadTime - other.totalLoadTime),
+				Math.max(0, evictionCount - other.evictionCount),
+				Math.max(0, evictionWeight - other.evictionWeight),
+				Math.max(0, expirationCount - other.expirationCount));
+	}
+
+	/**
+	 * 与另一个统计相加，用于合并分段缓存或多级缓存的统计，溢出时取{@link Long#MAX_VALUE}
+	 * 
+	 * @param other 另一个统计
+	 * @return 和
+	 */
+	public CacheStats plus(CacheStats other) {
+		return new CacheStats(
+				saturatedAdd(hitCount, other.hitCount),
+				saturatedAdd(missCount, other.missCount),
+				saturatedAdd(loadSuccessCount, other.loadSuccessCount),
+				saturatedAdd(loadFailureCount, other.loadFailureCount),
+				saturatedAdd(totalLoadTime, other.totalLoadTime),
+				saturatedAdd(evictionCount, other.evictionCount),
+				saturatedAdd(evictionWeight, other.evictionWeight),
+				saturatedAdd(expirationCount, other.expirationCount));
+	}
+
+	private static long saturatedAdd(long a, long b) {
+		final long sum = a + b;
+		return (sum < 0) ? Long.MAX_VALUE : sum;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = hitCount;
+		h = 31 * h + missCount;
+		h = 31 * h + loadSuccessCount;
+		h = 31 * h + loadFailureCount;
+		h = 31 * h + totalLoadTime;
+		h = 31 * h + evictionCount;
+		h = 31 * h + evictionWeight;
+		h = 31 * h + expirationCount;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (false == (obj instanceof CacheStats)) {
+			return false;
+		}
+		final CacheStats other = (CacheStats) obj;
+		return hitCount == other.hitCount && missCount == other.missCount
+				&& loadSuccessCount == other.loadSuccessCount && loadFailureCount == other.loadFailureCount
+				&& totalLoadTime == other.totalLoadTime && evictionCount == other.evictionCount
+				&& evictionWeight == other.evictionWeight && expirationCount == other.expirationCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", loadSuccessCount="
+				+ loadSuccessCount + ", loadFailureCount=" + loadFailureCount + ", totalLoadTime=" + totalLoadTime
+				+ ", evictionCount=" + evictionCount + ", evictionWeight=" + evictionWeight + ", expirationCount="
+				+ expirationCount + "]";
+	}
+}
@@ -23,11 +23,31 @@
 
 package me.asu;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import me.asu.impl.CacheRegistry;
+import me.asu.impl.CoarseTicker;
+import me.asu.impl.ConcurrentLFUCache;
+import me.asu.impl.ConcurrentLRUCache;
+import me.asu.impl.DefaultAsyncCache;
+import me.asu.impl.DefaultLoadingCache;
+import me.asu.impl.DiskStore;
 import me.asu.impl.FIFOCache;
+import me.asu.impl.JdkSerializer;
 import me.asu.impl.LFUCache;
 import me.asu.impl.LRUCache;
+import me.asu.impl.LongKeyCache;
+import me.asu.impl.LongKeyCache.Eviction;
 import me.asu.impl.NoCache;
+import me.asu.impl.OffHeapCache;
+import me.asu.impl.PrometheusExporter;
+import me.asu.impl.SegmentedCache;
+import me.asu.impl.SegmentedCache.SegmentFactory;
+import me.asu.impl.TieredCache;
 import me.asu.impl.TimedCache;
+import me.asu.impl.TinyLFUCache;
 import me.asu.impl.WeakCache;
 
 /**
@@ -37,6 +57,13 @@ import me.asu.impl.WeakCache;
  */
 public class CacheUtil {
 	
+	private static final Ticker SYSTEM_TICKER = new Ticker() {
+		@Override
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+	
 	/**
 	 * 创建FIFO(first in first out) 先进先出缓存.
 	 * 
@@ -50,6 +77,19 @@ public class CacheUtil {
 		return new FIFOCache<K, V>(capacity, timeout);
 	}
 	
+	/**
+	 * 创建FIFO(first in first out) 先进先出缓存，过期时间由过期策略计算.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param expiry 过期策略，见{@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)}
+	 * @return {@link FIFOCache}
+	 */
+	public static <K, V> FIFOCache<K, V> newFIFOCache(int capacity, Expiry<K, V> expiry){
+		return new FIFOCache<K, V>(capacity, expiry);
+	}
+	
 	/**
 	 * 创建FIFO(first in first out) 先进先出缓存.
 	 * 
@@ -62,6 +102,20 @@ public class CacheUtil {
 		return new FIFOCache<K, V>(capacity);
 	}
 	
+	/**
+	 * 创建FIFO(first in first out) 先进先出缓存，按权重而不是对象数限制缓存大小.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param maximumWeight 最大权重，例如以字节数计算权重时为内存预算
+	 * @param weigher 权重计算器
+	 * @param timeout 过期时长，单位：毫秒
+	 * @return {@link FIFOCache}
+	 */
+	public static <K, V> FIFOCache<K, V> newFIFOCache(long maximumWeight, Weigher<K, V> weigher, long timeout){
+		return new FIFOCache<K, V>(maximumWeight, weigher, timeout);
+	}
+	
 	/**
 	 * 创建LFU(least frequently used) 最少使用率缓存.
 	 * 
@@ -75,6 +129,19 @@ public class CacheUtil {
 		return new LFUCache<K, V>(capacity, timeout);
 	}
 	
+	/**
+	 * 创建LFU(least frequently used) 最少使用率缓存，过期时间由过期策略计算.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param expiry 过期策略，见{@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)}
+	 * @return {@link LFUCache}
+	 */
+	public static <K, V> LFUCache<K, V> newLFUCache(int capacity, Expiry<K, V> expiry){
+		return new LFUCache<K, V>(capacity, expiry);
+	}
+	
 	/**
 	 * 创建LFU(least frequently used) 最少使用率缓存.
 	 * 
@@ -87,6 +154,84 @@ public class CacheUtil {
 		return new LFUCache<K, V>(capacity);
 	}
 	
+	/**
+	 * 创建LFU(least frequently used) 最少使用率缓存，按权重而不是对象数限制缓存大小.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param maximumWeight 最大权重，例如以字节数计算权重时为内存预算
+	 * @param weigher 权重计算器
+	 * @param timeout 过期时长，单位：毫秒
+	 * @return {@link LFUCache}
+	 */
+	public static <K, V> LFUCache<K, V> newLFUCache(long maximumWeight, Weigher<K, V> weigher, long timeout){
+		return new LFUCache<K, V>(maximumWeight, weigher, timeout);
+	}
+	
+	
+	/**
+	 * 创建并发LFU(least frequently used) 最少使用率缓存，访问、加入和淘汰均为O(1).
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param decayPeriod 频率衰减周期，每累计这么多次访问所有频率减半，<code>0</code>表示不衰减
+	 * @return {@link ConcurrentLFUCache}
+	 */
+	public static <K, V> ConcurrentLFUCache<K, V> newConcurrentLFUCache(int capacity, long timeout, long decayPeriod){
+		return new ConcurrentLFUCache<K, V>(capacity, timeout, decayPeriod);
+	}
+	
+	/**
+	 * 创建并发LFU(least frequently used) 最少使用率缓存，访问、加入和淘汰均为O(1).
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @return {@link ConcurrentLFUCache}
+	 */
+	public static <K, V> ConcurrentLFUCache<K, V> newConcurrentLFUCache(int capacity){
+		return new ConcurrentLFUCache<K, V>(capacity);
+	}
+	
+	/**
+	 * 创建W-TinyLFU缓存，根据估算的访问频率决定新对象能否挤掉已有对象，读操作无锁.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位：毫秒
+	 * @return {@link TinyLFUCache}
+	 */
+	public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity, long timeout){
+		return new TinyLFUCache<K, V>(capacity, timeout);
+	}
+	
+	/**
+	 * 创建W-TinyLFU缓存，过期时间由过期策略计算.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param expiry 过期策略，见{@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)}
+	 * @return {@link TinyLFUCache}
+	 */
+	public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity, Expiry<K, V> expiry){
+		return new TinyLFUCache<K, V>(capacity, expiry);
+	}
+	
+	/**
+	 * 创建W-TinyLFU缓存，根据估算的访问频率决定新对象能否挤掉已有对象，读操作无锁.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @return {@link TinyLFUCache}
+	 */
+	public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity){
+		return new TinyLFUCache<K, V>(capacity);
+	}
 	
 	/**
 	 * 创建LRU (least recently used)最近最久未使用缓存.
@@ -101,6 +246,19 @@ public class CacheUtil {
 		return new LRUCache<K, V>(capacity, timeout);
 	}
 	
+	/**
+	 * 创建LRU (least recently used)最近最久未使用缓存，过期时间由过期策略计算.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param expiry 过期策略，见{@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)}
+	 * @return {@link LRUCache}
+	 */
+	public static <K, V> LRUCache<K, V> newLRUCache(int capacity, Expiry<K, V> expiry){
+		return new LRUCache<K, V>(capacity, expiry);
+	}
+	
 	/**
 	 * 创建LRU (least recently used)最近最久未使用缓存.
 	 * 
@@ -113,6 +271,58 @@ public class CacheUtil {
 		return new LRUCache<K, V>(capacity);
 	}
 	
+	/**
+	 * 创建LRU (least recently used)最近最久未使用缓存，按权重而不是对象数限制缓存大小.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param maximumWeight 最大权重，例如以字节数计算权重时为内存预算
+	 * @param weigher 权重计算器
+	 * @param timeout 过期时长，单位：毫秒
+	 * @return {@link LRUCache}
+	 */
+	public static <K, V> LRUCache<K, V> newLRUCache(long maximumWeight, Weigher<K, V> weigher, long timeout){
+		return new LRUCache<K, V>(maximumWeight, weigher, timeout);
+	}
+	
+	/**
+	 * 创建并发LRU (least recently used)最近最久未使用缓存，读操作无锁.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位：毫秒
+	 * @return {@link ConcurrentLRUCache}
+	 */
+	public static <K, V> ConcurrentLRUCache<K, V> newConcurrentLRUCache(int capacity, long timeout){
+		return new ConcurrentLRUCache<K, V>(capacity, timeout);
+	}
+	
+	/**
+	 * 创建并发LRU (least recently used)最近最久未使用缓存，读操作无锁，过期时间由过期策略计算.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param expiry 过期策略，见{@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)}
+	 * @return {@link ConcurrentLRUCache}
+	 */
+	public static <K, V> ConcurrentLRUCache<K, V> newConcurrentLRUCache(int capacity, Expiry<K, V> expiry){
+		return new ConcurrentLRUCache<K, V>(capacity, expiry);
+	}
+	
+	/**
+	 * 创建并发LRU (least recently used)最近最久未使用缓存，读操作无锁.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @return {@link ConcurrentLRUCache}
+	 */
+	public static <K, V> ConcurrentLRUCache<K, V> newConcurrentLRUCache(int capacity){
+		return new ConcurrentLRUCache<K, V>(capacity);
+	}
+	
 	/**
 	 * 创建定时缓存.
 	 * 
@@ -125,6 +335,151 @@ public class CacheUtil {
 		return new TimedCache<K, V>(timeout);
 	}
 	
+	/**
+	 * 创建定时缓存，过期时间由过期策略计算.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param expiry 过期策略，见{@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)}
+	 * @return {@link TimedCache}
+	 */
+	public static <K, V> TimedCache<K, V> newTimedCache(Expiry<K, V> expiry){
+		return new TimedCache<K, V>(expiry);
+	}
+	
+	/**
+	 * 创建分段FIFO(first in first out) 先进先出缓存，键按哈希值分散到各分段，每个分段独立加锁和淘汰.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 总容量，平均分配到每个分段
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param segments 分段数，默认为{@link SegmentedCache#DEFAULT_SEGMENTS}
+	 * @return {@link SegmentedCache}
+	 */
+	public static <K, V> SegmentedCache<K, V> newSegmentedFIFOCache(int capacity, long timeout, int segments){
+		return new SegmentedCache<K, V>(capacity, timeout, segments, new SegmentFactory<K, V>() {
+			@Override
+			public Cache<K, V> create(int capacity, long timeout) {
+				return new FIFOCache<K, V>(capacity, timeout);
+			}
+		});
+	}
+	
+	/**
+	 * 创建分段LFU(least frequently used) 最少使用率缓存，键按哈希值分散到各分段，每个分段独立加锁和淘汰.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 总容量，平均分配到每个分段
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param segments 分段数，默认为{@link SegmentedCache#DEFAULT_SEGMENTS}
+	 * @return {@link SegmentedCache}
+	 */
+	public static <K, V> SegmentedCache<K, V> newSegmentedLFUCache(int capacity, long timeout, int segments){
+		return new SegmentedCache<K, V>(capacity, timeout, segments, new SegmentFactory<K, V>() {
+			@Override
+			public Cache<K, V> create(int capacity, long timeout) {
+				return new LFUCache<K, V>(capacity, timeout);
+			}
+		});
+	}
+	
+	/**
+	 * 创建分段LRU (least recently used)最近最久未使用缓存，键按哈希值分散到各分段，每个分段独立加锁和淘汰.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 总容量，平均分配到每个分段
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param segments 分段数，默认为{@link SegmentedCache#DEFAULT_SEGMENTS}
+	 * @return {@link SegmentedCache}
+	 */
+	public static <K, V> SegmentedCache<K, V> newSegmentedLRUCache(int capacity, long timeout, int segments){
+		return new SegmentedCache<K, V>(capacity, timeout, segments, new SegmentFactory<K, V>() {
+			@Override
+			public Cache<K, V> create(int capacity, long timeout) {
+				return new LRUCache<K, V>(capacity, timeout);
+			}
+		});
+	}
+	
+	/**
+	 * 创建分段LRU (least recently used)最近最久未使用缓存，使用默认分段数.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 总容量，平均分配到每个分段
+	 * @return {@link SegmentedCache}
+	 */
+	public static <K, V> SegmentedCache<K, V> newSegmentedLRUCache(int capacity){
+		return newSegmentedLRUCache(capacity, 0, SegmentedCache.DEFAULT_SEGMENTS);
+	}
+	
+	/**
+	 * 创建分段定时缓存，键按哈希值分散到各分段，每个分段独立加锁和清理.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param segments 分段数，默认为{@link SegmentedCache#DEFAULT_SEGMENTS}
+	 * @return {@link SegmentedCache}
+	 */
+	public static <K, V> SegmentedCache<K, V> newSegmentedTimedCache(long timeout, int segments){
+		return new SegmentedCache<K, V>(0, timeout, segments, new SegmentFactory<K, V>() {
+			@Override
+			public Cache<K, V> create(int capacity, long timeout) {
+				return new TimedCache<K, V>(timeout);
+			}
+		});
+	}
+	
+	/**
+	 * 创建堆外缓存，键和值使用JDK序列化，必须实现{@link java.io.Serializable}.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量（对象数），<code>0</code>表示只受内存限制
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param maxMemory 最多使用的直接内存，单位：字节
+	 * @return {@link OffHeapCache}
+	 */
+	public static <K, V> OffHeapCache<K, V> newOffHeapCache(int capacity, long timeout, long maxMemory){
+		return new OffHeapCache<K, V>(capacity, timeout, maxMemory, new JdkSerializer<K>(), new JdkSerializer<V>());
+	}
+	
+	/**
+	 * 创建堆外缓存.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 容量（对象数），<code>0</code>表示只受内存限制
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param maxMemory 最多使用的直接内存，单位：字节
+	 * @param keySerializer 键的序列化器，相等的键必须序列化为相同的字节
+	 * @param valueSerializer 值的序列化器
+	 * @return {@link OffHeapCache}
+	 */
+	public static <K, V> OffHeapCache<K, V> newOffHeapCache(int capacity, long timeout, long maxMemory, Serializer<K> keySerializer, Serializer<V> valueSerializer){
+		return new OffHeapCache<K, V>(capacity, timeout, maxMemory, keySerializer, valueSerializer);
+	}
+	
+	/**
+	 * 创建带磁盘二级存储的LRU缓存，淘汰的对象转存到磁盘，键和值使用JDK序列化.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param capacity 内存中的容量
+	 * @param timeout 过期时长，单位：毫秒
+	 * @param directory 存储目录，段文件放在其中本存储独占的子目录中，关闭时删除；目录中的其它文件不受影响
+	 * @param maxDiskSize 最多占用的磁盘空间，单位：字节
+	 * @return {@link TieredCache}
+	 */
+	public static <K, V> TieredCache<K, V> newTieredLRUCache(int capacity, long timeout, File directory, long maxDiskSize){
+		return new TieredCache<K, V>(new LRUCache<K, V>(capacity, timeout),
+				new DiskStore<K, V>(directory, maxDiskSize, new JdkSerializer<K>(), new JdkSerializer<V>()));
+	}
+	
 	/**
 	 * 创建若引用缓存.
 	 * 
@@ -138,6 +493,135 @@ public class CacheUtil {
 		return new WeakCache<K, V>(timeout);
 	}
 	
+	/**
+	 * 创建以<code>long</code>为键的缓存，读写时不装箱、不分配对象.
+	 * 
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param timeout 过期时长，从写入时间开始计算，单位：毫秒，0表示永久存活
+	 * @return {@link LongKeyCache}
+	 */
+	public static <V> LongKeyCache<V> newLongKeyCache(int capacity, long timeout){
+		return new LongKeyCache<V>(capacity, timeout);
+	}
+	
+	/**
+	 * 创建以<code>long</code>为键的缓存，读写时不装箱、不分配对象.
+	 * 
+	 * @param <V> Value类型
+	 * @param capacity 容量
+	 * @param timeout 过期时长，从写入时间开始计算，单位：毫秒，0表示永久存活
+	 * @param eviction 淘汰策略，{@link Eviction#CLOCK}的读取不互斥
+	 * @return {@link LongKeyCache}
+	 */
+	public static <V> LongKeyCache<V> newLongKeyCache(int capacity, long timeout, Eviction eviction){
+		return new LongKeyCache<V>(capacity, timeout, eviction);
+	}
+	
+	/**
+	 * 创建可加载缓存，缓存中不存在对象时通过加载器加载，同一个键的并发加载只执行一次.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 被包装的缓存，决定容量、过期和淘汰策略
+	 * @param loader 加载器
+	 * @return {@link LoadingCache}
+	 */
+	public static <K, V> LoadingCache<K, V> newLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> loader){
+		return new DefaultLoadingCache<K, V>(cache, loader);
+	}
+	
+	/**
+	 * 创建可加载缓存，并在对象写入超过刷新时间后的读取时于后台刷新，读取者立即得到当前值.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 被包装的缓存，必须是本包中的缓存实现，例如{@link TimedCache}、{@link LRUCache}
+	 * @param loader 加载器
+	 * @param refreshAfterWrite 写入后刷新时间，单位毫秒，应小于缓存的失效时长
+	 * @param executor 执行刷新的执行器
+	 * @return {@link LoadingCache}
+	 */
+	public static <K, V> LoadingCache<K, V> newLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> loader, long refreshAfterWrite, Executor executor){
+		return new DefaultLoadingCache<K, V>(cache, loader, refreshAfterWrite, executor);
+	}
+	
+	/**
+	 * 创建异步缓存，未命中时在执行器中加载，调用者不会被阻塞.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 保存结果的缓存，决定容量、过期和淘汰策略
+	 * @param executor 执行加载的执行器
+	 * @return {@link AsyncCache}
+	 */
+	public static <K, V> AsyncCache<K, V> newAsyncCache(Cache<K, CompletableFuture<V>> cache, Executor executor){
+		return new DefaultAsyncCache<K, V>(cache, executor);
+	}
+	
+	/**
+	 * 写入后过期：对象在创建或替换后经过指定时长过期，读取不会延长存活时间.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param duration 存活时长，单位：毫秒
+	 * @return {@link Expiry}
+	 */
+	public static <K, V> Expiry<K, V> expireAfterWrite(final long duration){
+		return new Expiry<K, V>() {
+			@Override
+			public long expireAfterCreate(K key, V value, long currentTime) {
+				return duration;
+			}
+
+			@Override
+			public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+				return duration;
+			}
+
+			@Override
+			public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+				return currentDuration;
+			}
+		};
+	}
+	
+	/**
+	 * 访问后过期：对象在创建、替换或最后一次读取后经过指定时长过期.
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param duration 存活时长，单位：毫秒
+	 * @return {@link Expiry}
+	 */
+	public static <K, V> Expiry<K, V> expireAfterAccess(final long duration){
+		return new Expiry<K, V>() {
+			@Override
+			public long expireAfterCreate(K key, V value, long currentTime) {
+				return duration;
+			}
+
+			@Override
+			public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+				return duration;
+			}
+
+			@Override
+			public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+				return duration;
+			}
+		};
+	}
+	
+	/**
+	 * 每次都读取{@link System#currentTimeMillis()}的时钟，过期精确到毫秒，读取开销比默认的{@link CoarseTicker}大.
+	 * 
+	 * @return 时钟
+	 */
+	public static Ticker systemTicker(){
+		return SYSTEM_TICKER;
+	}
+	
 	/**
 	 * 创建无缓存实现.
 	 * 
@@ -149,4 +633,38 @@ public class CacheUtil {
 		return new NoCache<K, V>();
 	}
 	
+	/**
+	 * 按名称登记缓存，通过JMX（<code>me.asu.cache:type=Cache,name="名称"</code>）及{@link PrometheusExporter}输出指标.
+	 * 
+	 * @param <C> 缓存类型
+	 * @param name 名称，不能与已登记的名称重复
+	 * @param cache 缓存
+	 * @return 传入的缓存
+	 * @see CacheRegistry
+	 */
+	public static <C extends Cache<?, ?>> C register(String name, C cache){
+		CacheRegistry.register(name, cache);
+		return cache;
+	}
+	
+	/**
+	 * 撤销登记缓存并注销MBean.
+	 * 
+	 * @param name 名称
+	 */
+	public static void unregister(String name){
+		CacheRegistry.unregister(name);
+	}
+	
+	/**
+	 * 启动Prometheus文本格式的指标服务，监听本机回环地址的<code>/metrics</code>，输出全部已登记的缓存.
+	 * 
+	 * @param port 端口，<code>0</code>表示由系统分配
+	 * @return {@link PrometheusExporter}，关闭即停止服务
+	 * @throws IOException 端口无法绑定
+	 */
+	public static PrometheusExporter startPrometheusExporter(int port) throws IOException{
+		return new PrometheusExporter(port);
+	}
+	
 }
@@ -1,19 +1,32 @@
 package me.asu;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * 分代缓存<br>
+ * 新加入的对象放在eden中被强引用，eden超过<code>size</code>时一部分对象晋升到longterm，
+ * longterm弱引用键，键不再被使用时对象随之被回收。<br>
+ * 两代都使用{@link ConcurrentHashMap}，读取无锁；晋升每次只移动少量对象，同一时间只有一个线程执行，
+ * 其它线程不等待，不会整体复制eden。
+ *
  * @author victor.
  * @since 2018/7/30
  */
 public final class ConcurrentCache<K, V> {
 
-    private final int       size;
-    private final Map<K, V> eden;
-    private final Map<K, V> longterm;
+    private final int                          size;
+    private final Map<K, V>                    eden;
+    private final ConcurrentHashMap<Object, V> longterm;
+    /** 键被回收的longterm对象 */
+    private final ReferenceQueue<K>            staleKeys = new ReferenceQueue<>();
+    /** 是否有线程正在晋升 */
+    private final AtomicBoolean                promoting = new AtomicBoolean();
 
     /**
      * 缓存类
@@ -22,26 +35,33 @@ public final class ConcurrentCache<K, V> {
     public ConcurrentCache(int size) {
         this.size = size;
         this.eden = new ConcurrentHashMap<>();
-        this.longterm = new WeakHashMap<>();
+        this.longterm = new ConcurrentHashMap<>();
     }
 
     /**
-     * 获取一个缓存
+     * 获取一个缓存，longterm中的对象被重新放回eden
      * @param k key
      * @return value
      */
     public V get(K k) {
         V v = eden.get(k);
-        if (v == null) {
-            synchronized (longterm) {
-                v = longterm.get(k);
+        if (v != null) {
+            return v;
+        }
+        LookupKey lookup = new LookupKey(k);
+        while ((v = longterm.get(lookup)) != null) {
+            // 不覆盖期间新加入的对象
+            V current = eden.putIfAbsent(k, v);
+            if (current != null) {
+                return current;
             }
-            if (v != null) {
-                eden.put(k, v);
+            // 放回期间更新的对象可能已晋升，或对象已被删除，此时撤销放回的旧值
+            if (longterm.get(lookup) == v) {
+                return v;
             }
+            eden.remove(k, v);
         }
-
-        return v;
+        return eden.get(k);
     }
 
     /**
@@ -50,13 +70,50 @@ public final class ConcurrentCache<K, V> {
      * @param v value
      */
     public void put(K k, V v) {
+        eden.put(k, v);
         if (eden.size() > size) {
-            synchronized (longterm) {
-                longterm.putAll(eden);
+            promote();
+        }
+    }
+
+    /**
+     * 将eden中的对象晋升到longterm，直到eden降到<code>size</code>的7/8以下，
+     * 晋升的开销分摊到之后的多次put。已有线程在晋升时直接返回，eden可能暂时超过<code>size</code>
+     */
+    private void promote() {
+        if (!promoting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            expungeStaleEntries();
+            int count = eden.size() - (size - (size >> 3));
+            Iterator<Map.Entry<K, V>> it = eden.entrySet().iterator();
+            while (count > 0 && it.hasNext()) {
+                Map.Entry<K, V> e = it.next();
+                K k = e.getKey();
+                V v = e.getValue();
+                // 先放入longterm再从eden移除，期间读取不会丢失对象；
+                // 移除失败说明对象已被替换或删除，撤销放入的旧值
+                longterm.put(new WeakKey<>(k, staleKeys), v);
+                if (eden.remove(k, v)) {
+                    count--;
+                } else {
+                    longterm.remove(new LookupKey(k), v);
+                }
             }
-            this.eden.clear();
+        } finally {
+            promoting.set(false);
+        }
+    }
+
+    /**
+     * 移除键已被回收的longterm对象
+     */
+    private void expungeStaleEntries() {
+        Object ref;
+        while ((ref = staleKeys.poll()) != null) {
+            longterm.remove(ref);
         }
-        eden.put(k, v);
     }
 
     /**
@@ -65,36 +122,108 @@ public final class ConcurrentCache<K, V> {
      * @param k key
      * @return value
      */
-    public synchronized V remove(K k) {
+    public V remove(K k) {
+        // 先删除longterm，get不会再把旧值放回eden
+        V old = longterm.remove(new LookupKey(k));
         V remove = eden.remove(k);
-        if (remove != null) {
-            return remove;
-        }
-        return longterm.remove(k);
+        return remove != null ? remove : old;
     }
 
     /**
-     * 删除所有的缓存
+     * 删除所有的缓存，逐个移除，删除期间加入的对象可能不被删除
      *
      * @return Map&lt;K,V&gt;
      */
-    public synchronized Map<K, V> removeAll() {
-        Map<K, V> all = getAll();
-        eden.clear();
-        longterm.clear();
+    @SuppressWarnings("unchecked")
+    public Map<K, V> removeAll() {
+        Map<K, V> all = new HashMap<>();
+        for (Map.Entry<Object, V> e : longterm.entrySet()) {
+            K k = ((WeakKey<K>) e.getKey()).get();
+            if (longterm.remove(e.getKey(), e.getValue()) && k != null) {
+                all.put(k, e.getValue());
+            }
+        }
+        for (Map.Entry<K, V> e : eden.entrySet()) {
+            if (eden.remove(e.getKey(), e.getValue())) {
+                all.put(e.getKey(), e.getValue());
+            }
+        }
         return all;
     }
 
     /**
-     * 获取所有的缓存
+     * 获取所有的缓存，结果是弱一致的快照
      *
      * @return Map&lt;K,V&gt;
      */
-    public synchronized Map<K, V> getAll() {
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll() {
         int capacity = eden.size() + longterm.size() + 1;
         Map<K, V> m = new HashMap<>(capacity);
-        m.putAll(longterm);
+        for (Map.Entry<Object, V> e : longterm.entrySet()) {
+            K k = ((WeakKey<K>) e.getKey()).get();
+            if (k != null) {
+                m.put(k, e.getValue());
+            }
+        }
         m.putAll(eden);
         return m;
     }
+
+    /**
+     * longterm中的键，弱引用原键，按原键的<code>equals</code>比较
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof WeakKey) {
+                Object k = get();
+                return k != null && hash == o.hashCode() && k.equals(((WeakKey<?>) o).get());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 查找longterm时使用的键，避免每次查找创建弱引用
+     */
+    private static final class LookupKey {
+
+        private final Object key;
+        private final int hash;
+
+        LookupKey(Object key) {
+            this.key = key;
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof WeakKey) {
+                return hash == o.hashCode() && key.equals(((WeakKey<?>) o).get());
+            }
+            return o instanceof LookupKey && key.equals(((LookupKey) o).key);
+        }
+    }
 }
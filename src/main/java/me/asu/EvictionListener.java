@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+/**
+ * 淘汰监听器，对象因容量不足被淘汰时通知，可用于将对象转存到下一级存储
+ * 
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface EvictionListener<K, V> {
+
+	/**
+	 * 对象被淘汰，已过期或被移除的对象不会通知<br>
+	 * 在缓存的锁内调用，应尽快返回
+	 * 
+	 * @param key 键
+	 * @param value 值
+	 * @param expireTime 过期时间，单位毫秒，<code>0</code>表示永久存活
+	 */
+	void onEvict(K key, V value, long expireTime);
+
+	/**
+	 * 对象被淘汰，同时给出对象的存活时长，缓存调用此方法<br>
+	 * 默认调用{@link #onEvict(Object, Object, long)}，转存时需要保留存活时长的监听器可以覆盖
+	 * 
+	 * @param key 键
+	 * @param value 值
+	 * @param expireTime 过期时间，单位毫秒，<code>0</code>表示永久存活
+	 * @param ttl 存活时长，从最后访问时间开始计算，<code>0</code>表示永久存活或由过期策略计算
+	 */
+	default void onEvict(K key, V value, long expireTime, long ttl) {
+		onEvict(key, value, expireTime);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu;
+
+/**
+ * 缓存对象过期策略<br>
+ * 在对象创建、更新和读取时计算对象还能存活多久，缓存将其换算为绝对的过期时间保存，并按过期时间索引。<br>
+ * 所有时长单位均为毫秒，<code>0</code>表示永久存活。
+ * 
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @see CacheUtil#expireAfterWrite(long)
+ * @see CacheUtil#expireAfterAccess(long)
+ */
+public interface Expiry<K, V> {
+
+	/**
+	 * 新对象加入缓存时调用
+	 * 
+	 * @param key 键
+	 * @param value 值
+	 * @param currentTime 当前时间，单位毫秒
+	 * @return 存活时长，<code>0</code>表示永久存活
+	 */
+	long expireAfterCreate(K key, V value, long currentTime);
+
+	/**
+	 * 已有对象被替换时调用
+	 * 
+	 * @param key 键
+	 * @param value 新值
+	 * @param currentTime 当前时间，单位毫秒
+	 * @param currentDuration 原对象剩余的存活时长，<code>0</code>表示永久存活
+	 * @return 存活时长，<code>0</code>表示永久存活，返回<code>currentDuration</code>表示不改变
+	 */
+	long expireAfterUpdate(K key, V value, long currentTime, long currentDuration);
+
+	/**
+	 * 对象被读取时调用
+	 * 
+	 * @param key 键
+	 * @param value 值
+	 * @param currentTime 当前时间，单位毫秒
+	 * @param currentDuration 剩余的存活时长，<code>0</code>表示永久存活
+	 * @return 存活时长，<code>0</code>表示永久存活，返回<code>currentDuration</code>表示不改变
+	 */
+	long expireAfterRead(K key, V value, long currentTime, long currentDuration);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+import java.util.Map;
+
+/**
+ * 可加载的缓存<br>
+ * 缓存中不存在对象时通过{@link CacheLoader}加载并放入缓存。同一个键的并发加载只会执行一次，
+ * 其它调用者等待这次加载的结果（或异常）。加载在缓存的锁之外执行。
+ * 
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface LoadingCache<K, V> extends Cache<K, V> {
+
+	/**
+	 * 从缓存中获得对象，不存在或已过期时使用指定的加载器加载并放入缓存
+	 * 
+	 * @param key 键
+	 * @param loader 加载器
+	 * @return 键对应的对象，加载器返回<code>null</code>时返回<code>null</code>
+	 * @throws CacheLoadException 加载器抛出受检异常时，运行时异常原样抛出
+	 */
+	V get(K key, CacheLoader<? super K, ? extends V> loader);
+
+	/**
+	 * 批量从缓存中获得对象，不存在或已过期的键通过一次{@link CacheLoader#loadAll(java.util.Set)}加载并放入缓存<br>
+	 * 其它线程正在加载的键不重复加载，等待其结果
+	 * 
+	 * @param keys 键
+	 * @param loader 加载器
+	 * @return 键和对象的映射，按键的顺序排列，加载器未返回的键不包含在结果中
+	 * @throws CacheLoadException 加载器抛出受检异常时，运行时异常原样抛出
+	 */
+	Map<K, V> getAll(Iterable<? extends K> keys, CacheLoader<? super K, ? extends V> loader);
+
+	/**
+	 * 批量从缓存中获得对象，不存在或已过期的键使用缓存的加载器批量加载并放入缓存
+	 * 
+	 * @param keys 键
+	 * @return 键和对象的映射，按键的顺序排列，加载器未返回的键不包含在结果中
+	 * @throws CacheLoadException 加载器抛出受检异常时，运行时异常原样抛出
+	 * @throws IllegalStateException 未设置加载器时
+	 */
+	Map<K, V> getAllOrLoad(Iterable<? extends K> keys);
+
+	/**
+	 * 从缓存中获得对象，不存在或已过期时使用缓存的加载器加载并放入缓存
+	 * 
+	 * @param key 键
+	 * @return 键对应的对象，加载器返回<code>null</code>时返回<code>null</code>
+	 * @throws CacheLoadException 加载器抛出受检异常时，运行时异常原样抛出
+	 * @throws IllegalStateException 未设置加载器时
+	 */
+	V getOrLoad(K key);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+/**
+ * 序列化器，用于将对象保存到堆外内存、磁盘等堆之外的位置<br>
+ * 作为键使用时，相等的键必须序列化为相同的字节。
+ * 
+ * @author Suk
+ *
+ * @param <T> 对象类型
+ */
+public interface Serializer<T> {
+
+	/**
+	 * 序列化
+	 * 
+	 * @param object 对象
+	 * @return 字节
+	 * @throws SerializationException 序列化失败
+	 */
+	byte[] serialize(T object);
+
+	/**
+	 * 反序列化
+	 * 
+	 * @param bytes 字节
+	 * @return 对象
+	 * @throws SerializationException 反序列化失败
+	 */
+	T deserialize(byte[] bytes);
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu;
+
+/**
+ * 时钟<br>
+ * 缓存判断过期、计算过期时间时通过时钟读取当前时间，而不是直接调用{@link System#currentTimeMillis()}。
+ * 默认使用由后台线程定期更新的粗粒度时钟{@link me.asu.impl.CoarseTicker}，读取只是一次volatile读；
+ * 需要精确到毫秒的过期时使用{@link CacheUtil#systemTicker()}，测试中可使用手动推进的{@link me.asu.impl.ManualTicker}。<br>
+ * 实现必须是线程安全的。
+ *
+ * @author Suk
+ */
+public interface Ticker {
+
+	/**
+	 * 读取当前时间<br>
+	 * 缓存保存的过期时间等都以此为准，同一个缓存应始终使用同一个时钟
+	 *
+	 * @return 当前时间，单位毫秒，通常为自1970-01-01 00:00:00 UTC起的毫秒数
+	 */
+	long currentTimeMillis();
+}
@@ -24,13 +24,19 @@ package me.asu;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.*;
 import lombok.Getter;
-import me.asu.util.NamedThreadFactory;
+import me.asu.impl.CleanupScheduler;
+import me.asu.impl.CoarseTicker;
+import me.asu.impl.LatencyRecorder;
+import me.asu.impl.LatencyRecorder.Operation;
+import me.asu.impl.TimerWheel;
 
 /**
  * TimeToLiveCache.
+ * <p>清理由{@link CleanupScheduler}调度，过期通知在其共享线程池中执行，创建实例不会创建线程；
+ * 实例不可达后清理任务自动取消，其中的对象不再通知过期。
+ * 共享线程池已满时，到期对象留在缓存中，等下次清理时再通知。</p>
  * <p>2017 Suk All rights reserved.</p>
  *
  * @author Suk
@@ -40,56 +46,121 @@ import me.asu.util.NamedThreadFactory;
 public class TimeToLiveCache<K, T> implements Serializable {
 
     private static final long serialVersionUID = -3021761536220090818L;
-    ExecutorService executorService = new ThreadPoolExecutor(0,
-            Runtime.getRuntime().availableProcessors() * 2, 60L, TimeUnit.SECONDS,
-            new SynchronousQueue<Runnable>(),
-            new NamedThreadFactory("response-timeout-event-thread", true));
+    /** 每次通知处理器的最多对象数 */
+    static final int TIMEOUT_BATCH_SIZE = 256;
+    /** 清理所有实例的共享动作，不引用任何实例，调度器只弱引用缓存 */
+    private static final CleanupScheduler.Cleanup<TimeToLiveCache<?, ?>> CLEANUP =
+            new CleanupScheduler.Cleanup<TimeToLiveCache<?, ?>>() {
+                @Override
+                public void cleanup(TimeToLiveCache<?, ?> cache) {
+                    cache.cleanup();
+                }
+            };
     @Getter
     private long                              timeToLive;
     private ConcurrentHashMap<K, CacheObject> cacheMap;
-    private CheckThread                       checkThread;
-    private List<TimeoutHandler> handlers = new ArrayList<TimeoutHandler>();
+    private final transient CleanupScheduler  scheduler;
+    /** 清理任务，未启用清理时为<code>null</code> */
+    private transient ScheduledFuture<?>      cleanupTask;
+    /** 按过期时间索引缓存对象，只有启用清理时才创建，只在清理线程中访问 */
+    private TimerWheel<CacheObject>           timerWheel;
+    /** 加入、替换或移除的对象，在清理开始时放入或移出时间轮，读写时不用等待时间轮 */
+    private transient Queue<CacheObject>      timerBuffer;
+    private List<TimeoutHandler<K, T>> handlers = new CopyOnWriteArrayList<TimeoutHandler<K, T>>();
+    /** 共享线程池已满时未能提交的一批过期通知，只在清理线程中访问 */
+    private transient List<Map.Entry<K, T>> pendingTimeouts;
     @Getter
     private boolean shutdown = false;
+    /** 延迟记录器，<code>null</code>表示不记录 */
+    private transient volatile LatencyRecorder latencyRecorder;
+    /** 时钟 */
+    private final Ticker ticker;
+
     public TimeToLiveCache(final long timeToLive, final long timerInterval) {
+        this(timeToLive, timerInterval, CoarseTicker.getDefault());
+    }
+
+    /**
+     * 构造，使用共享的默认调度器
+     *
+     * @param timeToLive 存活时长，从最后访问时间开始计算，单位毫秒
+     * @param timerInterval 清理间隔，单位毫秒，<code>0</code>表示不清理
+     * @param ticker 时钟，时间轮以构造时的时间为起点
+     */
+    public TimeToLiveCache(final long timeToLive, final long timerInterval, final Ticker ticker) {
+        this(timeToLive, timerInterval, ticker, CleanupScheduler.getDefault());
+    }
+
+    /**
+     * 构造
+     *
+     * @param timeToLive 存活时长，从最后访问时间开始计算，单位毫秒
+     * @param timerInterval 清理间隔，单位毫秒，<code>0</code>表示不清理
+     * @param ticker 时钟，时间轮以构造时的时间为起点
+     * @param scheduler 执行清理和过期通知的调度器
+     */
+    public TimeToLiveCache(final long timeToLive, final long timerInterval, final Ticker ticker,
+            final CleanupScheduler scheduler) {
+        if (ticker == null) {
+            throw new IllegalArgumentException("ticker must not be null");
+        }
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler must not be null");
+        }
         this.timeToLive = timeToLive;
+        this.ticker = ticker;
+        this.scheduler = scheduler;
 
         cacheMap = new ConcurrentHashMap<K, CacheObject>();
 
         if (this.timeToLive > 0 && timerInterval > 0) {
-            checkThread = new CheckThread(timerInterval);
+            timerWheel = new TimerWheel<CacheObject>(ticker.currentTimeMillis());
+            timerBuffer = new ConcurrentLinkedQueue<CacheObject>();
+            cleanupTask = scheduler.schedule(this, timerInterval, CLEANUP);
         }
-
-        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
-            @Override
-            public void run() {
-                shutdownGracefully();
-            }
-        }, "TimeToLiveCache-Shutdown"));
     }
 
+    /**
+     * 停止清理，已提交的过期通知仍会在共享线程池中执行
+     */
     public void shutdownGracefully() {
-        executorService.shutdownNow();
-        try {
-            executorService.awaitTermination(5, TimeUnit.SECONDS);
-        } catch (InterruptedException e) { /*ignore*/ }
-        if (checkThread != null) {
-            checkThread.cancel();
+        if (cleanupTask != null) {
+            cleanupTask.cancel(false);
         }
         shutdown = true;
     }
 
     public void put(K key, T value) {
-        cacheMap.put(key, new CacheObject(value));
+        final LatencyRecorder recorder = this.latencyRecorder;
+        final long start = (recorder == null) ? 0 : System.nanoTime();
+        CacheObject c = new CacheObject(key, value, ticker.currentTimeMillis());
+        CacheObject old = cacheMap.put(key, c);
+        if (timerBuffer != null) {
+            if (old != null) {
+                timerBuffer.add(old);
+            }
+            timerBuffer.add(c);
+        }
+        if (recorder != null) {
+            recorder.recordSince(Operation.PUT, start);
+        }
     }
 
     public T get(K key) {
+        final LatencyRecorder recorder = this.latencyRecorder;
+        final long start = (recorder == null) ? 0 : System.nanoTime();
         CacheObject c = cacheMap.get(key);
 
         if (c == null) {
+            if (recorder != null) {
+                recorder.recordSince(Operation.GET_MISS, start);
+            }
             return null;
         } else {
-            c.lastAccessed = System.currentTimeMillis();
+            c.lastAccessed = ticker.currentTimeMillis();
+            if (recorder != null) {
+                recorder.recordSince(Operation.GET_HIT, start);
+            }
             return c.value;
         }
     }
@@ -97,6 +168,9 @@ public class TimeToLiveCache<K, T> implements Serializable {
     public T remove(K key) {
         CacheObject remove = cacheMap.remove(key);
         if (remove != null) {
+            if (timerBuffer != null) {
+                timerBuffer.add(remove);
+            }
             return remove.value;
         } else {
             return null;
@@ -107,6 +181,29 @@ public class TimeToLiveCache<K, T> implements Serializable {
         return cacheMap.size();
     }
 
+    /**
+     * 设置延迟记录器，记录读取、加入和清理的耗时
+     *
+     * @param latencyRecorder 延迟记录器，<code>null</code>表示不记录
+     */
+    public void setLatencyRecorder(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * @return 延迟记录器，未设置时为<code>null</code>
+     */
+    public LatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
+    /**
+     * @return 时钟
+     */
+    public Ticker getTicker() {
+        return ticker;
+    }
+
     public void addTimeoutHandler(TimeoutHandler<K, T> handler) {
         if (handler == null) {
             return;
@@ -121,88 +218,137 @@ public class TimeToLiveCache<K, T> implements Serializable {
         handlers.remove(handler);
     }
 
-    private void cleanup() {
-        long now = System.currentTimeMillis();
-        ArrayList<K> deleteKey = null;
+    /**
+     * 先把加入的对象放入时间轮、移除的对象移出时间轮，再只处理时间轮中到期的桶，
+     * 期间被访问过的对象按新的过期时间重新放入时间轮<br>
+     * 共享线程池已满时，未能提交的一批通知留到下次清理时提交，其余到期对象留在缓存和时间轮中；
+     * 这批通知提交之前不再推进时间轮
+     */
+    void cleanup() {
+        final LatencyRecorder recorder = this.latencyRecorder;
+        final long start = (recorder == null) ? 0 : System.nanoTime();
+        if (pendingTimeouts != null) {
+            if (!notifyTimeoutObjects(pendingTimeouts)) {
+                if (recorder != null) {
+                    recorder.recordSince(Operation.PRUNE, start);
+                }
+                return;
+            }
+            pendingTimeouts = null;
+        }
+        drainTimerBuffer();
+        long now = ticker.currentTimeMillis();
+        List<CacheObject> expired = new ArrayList<CacheObject>();
+        for (CacheObject c : timerWheel.advance(now)) {
+            if (now > (timeToLive + c.lastAccessed)) {
+                expired.add(c);
+            } else {
+                timerWheel.reschedule(c.timer, c.lastAccessed + timeToLive);
+            }
+        }
 
-        synchronized (cacheMap) {
-            Iterator<Entry<K, CacheObject>> itr = cacheMap.entrySet().iterator();
-            deleteKey = new ArrayList<K>((cacheMap.size() / 2) + 1);
-            while (itr.hasNext()) {
-                Entry<K, CacheObject> next = itr.next();
-                K key = next.getKey();
-                CacheObject c = next.getValue();
-                if (c != null && (now > (timeToLive + c.lastAccessed))) {
-                    deleteKey.add(key);
+        List<Map.Entry<K, T>> batch = new ArrayList<Map.Entry<K, T>>(Math.min(expired.size(), TIMEOUT_BATCH_SIZE));
+        int i = 0;
+        while (i < expired.size()) {
+            CacheObject c = expired.get(i++);
+            // 已被移除或替换的对象不再通知
+            if (cacheMap.get(c.key) == c && cacheMap.remove(c.key, c)) {
+                batch.add(new AbstractMap.SimpleImmutableEntry<K, T>(c.key, c.value));
+                if (batch.size() == TIMEOUT_BATCH_SIZE) {
+                    if (!notifyTimeoutObjects(batch)) {
+                        pendingTimeouts = batch;
+                        break;
+                    }
+                    batch = new ArrayList<Map.Entry<K, T>>(TIMEOUT_BATCH_SIZE);
+                }
+            }
+        }
+        if (pendingTimeouts != null) {
+            // 其余到期对象放回时间轮的当前桶，下次清理时再处理
+            for (; i < expired.size(); i++) {
+                CacheObject c = expired.get(i);
+                if (cacheMap.get(c.key) == c) {
+                    timerWheel.reschedule(c.timer, c.lastAccessed + timeToLive);
                 }
             }
+        } else if (!batch.isEmpty() && !notifyTimeoutObjects(batch)) {
+            pendingTimeouts = batch;
         }
+        if (recorder != null) {
+            recorder.recordSince(Operation.PRUNE, start);
+        }
+    }
 
-        for (K key : deleteKey) {
-            CacheObject remove = cacheMap.remove(key);
-            notifyTimeoutObject(key, remove.getValue());
-            Thread.yield();
+    /**
+     * 仍在缓存中的对象放入时间轮，已被移除或替换的对象移出时间轮
+     */
+    private void drainTimerBuffer() {
+        CacheObject c;
+        while ((c = timerBuffer.poll()) != null) {
+            if (cacheMap.get(c.key) == c) {
+                if (c.timer == null) {
+                    c.timer = timerWheel.schedule(c, c.lastAccessed + timeToLive);
+                }
+            } else {
+                timerWheel.deschedule(c.timer);
+            }
         }
     }
 
-    private void notifyTimeoutObject(final K key, final T value) {
-        if (handlers != null) {
-            for (final TimeoutHandler<K, T> handler : handlers) {
-                executorService.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        handler.fireTimeout(key, value);
+    /**
+     * 每批对象提交一个任务依次通知所有处理器，不阻塞调度线程
+     *
+     * @return 是否已提交，共享线程池已满时返回<code>false</code>
+     */
+    private boolean notifyTimeoutObjects(final List<Map.Entry<K, T>> batch) {
+        if (handlers.isEmpty()) {
+            return true;
+        }
+        final List<Map.Entry<K, T>> timeouts = Collections.unmodifiableList(batch);
+        return scheduler.tryDispatch(new Runnable() {
+            @Override
+            public void run() {
+                for (TimeoutHandler<K, T> handler : handlers) {
+                    try {
+                        handler.fireTimeouts(timeouts);
+                    } catch (RuntimeException e) {
+                        // 一个处理器出错不影响其它处理器
                     }
-                });
+                }
             }
-        }
+        });
     }
 
     public interface TimeoutHandler<K, T> {
 
         void fireTimeout(K k, T v);
-    }
 
-    class CheckThread extends Thread {
-
-        boolean running = false;
-        private long timerInterval;
-
-        CheckThread(long timerInterval) {
-            super("TimeToLiveCache-Check-Thread");
-            setDaemon(true);
-            this.timerInterval = timerInterval;
-        }
-
-        @Override
-        public void run() {
-            if (running) {
-                return;
-            }
-            running = true;
-            while (running) {
-                try {
-                    Thread.sleep(timerInterval);
-                } catch (InterruptedException ex) {
-                }
-                cleanup();
+        /**
+         * 批量通知过期对象，默认逐个调用{@link #fireTimeout(Object, Object)}，
+         * 可以覆盖为一次处理整批对象
+         *
+         * @param timeouts 过期的键和值，不可修改，每批最多256个
+         */
+        default void fireTimeouts(List<Map.Entry<K, T>> timeouts) {
+            for (Map.Entry<K, T> timeout : timeouts) {
+                fireTimeout(timeout.getKey(), timeout.getValue());
             }
         }
-
-        public void cancel() {
-            running = false;
-        }
     }
 
     @lombok.Data
     class CacheObject implements Serializable {
 
         private static final long serialVersionUID = -2040740421609709915L;
-        public long lastAccessed = System.currentTimeMillis();
+        public long lastAccessed;
         public T value;
+        final K key;
+        transient TimerWheel.Timer<CacheObject> timer;
 
-        protected CacheObject(T value) {
+        protected CacheObject(K key, T value, long now) {
+            this.key = key;
             this.value = value;
+            this.lastAccessed = now;
         }
     }
 }
@@ -23,12 +23,23 @@
 
 package me.asu.impl;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 import me.asu.Cache;
+import me.asu.CacheStats;
+import me.asu.EvictionListener;
+import me.asu.Expiry;
+import me.asu.Ticker;
+import me.asu.Weigher;
+import me.asu.impl.LatencyRecorder.Operation;
 
 /**
  * 超时和限制大小的缓存的默认实现<br>
@@ -53,46 +64,219 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
 	/** 返回缓存容量，<code>0</code>表示无大小限制 */
 	protected int capacity;
+	/** 最大权重，<code>0</code>表示不按权重限制，大于0时需要设置{@link #weigher} */
+	protected long maximumWeight;
+	/** 权重计算器 */
+	protected Weigher<K, V> weigher;
+	/** 当前所有对象的权重之和，加入和移除对象时增量维护；过期对象可能在读锁下被移除，因此使用原子变量 */
+	private final AtomicLong totalWeight = new AtomicLong();
+	/** 正在加入的对象的权重，只在写锁内为加入对象腾出空间时非0 */
+	private long requiredWeight;
 	/** 缓存失效时长， <code>0</code> 表示没有设置，单位毫秒 */
 	protected long timeout;
 	
 	/** 每个对象是否有单独的失效时长，用于决定清理过期对象是否有必要。 */
 	protected boolean existCustomTimeout;
 	
-	/** 命中数 */
-	protected int hitCount;
-	/** 丢失数 */
-	protected int missCount;
+	/** 过期策略，为<code>null</code>时使用{@link #timeout}，从最后访问时间开始计算 */
+	protected Expiry<K, V> expiry;
+	
+	/** 按过期时间索引设置了存活时长的对象，第一次放入这样的对象时创建，受写锁保护 */
+	protected TimerWheel<CacheObj<K, V>> timerWheel;
+	
+	/** 淘汰监听器，对象因容量不足被淘汰时通知 */
+	protected volatile EvictionListener<K, V> evictionListener;
+	
+	/** 统计计数器，无需持有锁 */
+	final StatsCounter statsCounter = new StatsCounter();
+	/** 延迟记录器，<code>null</code>表示不记录 */
+	protected volatile LatencyRecorder latencyRecorder;
+	/** 只记录清理耗时的记录器，注册指标时创建，读写不计时；设置了延迟记录器时不使用 */
+	private volatile LatencyRecorder pruneRecorder;
+	/** 时钟，读取、加入、清理时读取一次当前时间 */
+	protected volatile Ticker ticker = CoarseTicker.getDefault();
 	
 	// ---------------------------------------------------------------- put start
+	/**
+	 * 将对象加入到缓存，设置了过期策略时由过期策略计算过期时间，否则使用默认失效时长
+	 */
 	@Override
 	public void put(K key, V object) {
-		put(key, object, timeout);
+		if (null == expiry) {
+			put(key, object, timeout);
+		} else {
+			put(key, object, 0, true);
+		}
 	}
 
+	/**
+	 * 将对象加入到缓存，使用指定失效时长（从最后访问时间开始计算），不使用过期策略
+	 */
 	@Override
 	public void put(K key, V object, long timeout) {
-		writeLock.lock();
+		put(key, object, timeout, false);
+	}
+
+	/**
+	 * 批量加入对象，整批只获取一次写锁
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		acquire(writeLock, latencyRecorder);
+
+		try {
+			final boolean useExpiry = null != expiry;
+			for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				putWithoutLock(entry.getKey(), entry.getValue(), useExpiry ? 0 : timeout, useExpiry);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void put(K key, V object, long timeout, boolean useExpiry) {
+		final LatencyRecorder recorder = this.latencyRecorder;
+		final long start = acquire(writeLock, recorder);
+
+		try {
+			putWithoutLock(key, object, timeout, useExpiry);
+		} finally {
+			writeLock.unlock();
+		}
+		if (null != recorder) {
+			recorder.recordSince(Operation.PUT, start);
+		}
+	}
+
+	/**
+	 * 缓存中没有未过期的对象时放入，保留原存活时长和过期时间，用于从下一级存储取回对象
+	 * 
+	 * @param key 键
+	 * @param object 值
+	 * @param ttl 存活时长，从最后访问时间开始计算，0表示永久存活或由过期策略计算
+	 * @param expireTime 过期时间，0表示按<code>ttl</code>计算
+	 * @param accessCount 访问次数，未记录访问次数的缓存忽略
+	 * @return 是否放入
+	 */
+	boolean restoreIfAbsent(K key, V object, long ttl, long expireTime, long accessCount) {
+		acquire(writeLock, latencyRecorder);
+
+		try {
+			final CacheObj<K, V> current = cacheMap.get(key);
+			if (null != current && false == current.isExpired(ticker.currentTimeMillis())) {
+				return false;
+			}
+			putWithoutLock(key, object, ttl, false, expireTime);
+			cacheMap.get(key).setAccessCount(accessCount);
+			return true;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 缓存中的对象仍是<code>expected</code>时放入新值，检查和放入在写锁内完成，用于刷新
+	 * 
+	 * @param key 键
+	 * @param expected 刷新前的对象
+	 * @param object 新值
+	 * @return 是否放入，对象已被替换或移除时返回<code>false</code>
+	 */
+	boolean replaceIfSame(K key, CacheObj<K, V> expected, V object) {
+		acquire(writeLock, latencyRecorder);
 
 		try {
-			CacheObj<K, V> co = new CacheObj<K, V>(key, object, timeout);
-			if (timeout != 0) {
-				existCustomTimeout = true;
+			if (cacheMap.get(key) != expected) {
+				return false;
 			}
-			if (isFull()) {
-				pruneCache();
+			final boolean useExpiry = null != expiry;
+			putWithoutLock(key, object, useExpiry ? 0 : timeout, useExpiry);
+			return true;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 缓存中的值仍是<code>expected</code>（同一对象）时移除，检查和移除在写锁内完成
+	 * 
+	 * @param key 键
+	 * @param expected 期望的值
+	 * @return 是否移除
+	 */
+	boolean removeIfSame(K key, V expected) {
+		acquire(writeLock, latencyRecorder);
+		final CacheObj<K, V> co;
+		try {
+			co = cacheMap.get(key);
+			if (null == co || co.obj != expected) {
+				return false;
 			}
-			cacheMap.put(key, co);
+			cacheMap.remove(key);
+			cancelExpiry(co);
+			releaseWeight(co);
 		} finally {
 			writeLock.unlock();
 		}
+		onRemove(co.key, co.obj);
+		return true;
+	}
+
+	/**
+	 * 加入对象，必须持有写锁
+	 */
+	private void putWithoutLock(K key, V object, long timeout, boolean useExpiry) {
+		putWithoutLock(key, object, timeout, useExpiry, 0);
+	}
+
+	/**
+	 * 加入对象，必须持有写锁
+	 * 
+	 * @param expireTime 指定的过期时间，0表示按失效时长或过期策略计算
+	 */
+	private void putWithoutLock(K key, V object, long timeout, boolean useExpiry, long expireTime) {
+		final long now = ticker.currentTimeMillis();
+		CacheObj<K, V> co = CacheObj.create(key, object, timeout, now, useExpiry || expireTime > 0, isAccessCounted());
+		if (expireTime > 0) {
+			co.setExpireTime(expireTime);
+		}
+		if (timeout != 0) {
+			existCustomTimeout = true;
+		}
+		if (maximumWeight > 0) {
+			co.weight = weigh(key, object);
+			// 替换已有对象时，已有对象的权重随后会被扣除
+			final CacheObj<K, V> current = cacheMap.get(key);
+			makeRoom(co.weight - ((null == current) ? 0 : current.weight));
+		} else if (isFull()) {
+			timedPruneCache();
+		}
+		final CacheObj<K, V> old = cacheMap.put(key, co);
+		addWeight(co);
+		if (null != old) {
+			cancelExpiry(old);
+			releaseWeight(old);
+		}
+		if (useExpiry) {
+			if (null == old || old.isExpired(now)) {
+				co.setExpiry(now, expiry.expireAfterCreate(key, object, now));
+			} else {
+				co.setExpiry(now, expiry.expireAfterUpdate(key, object, now, old.remainingDuration(now)));
+			}
+		}
+		if (co.getExpireTime() > 0) {
+			if (null == timerWheel) {
+				timerWheel = new TimerWheel<CacheObj<K, V>>(now);
+			}
+			co.setTimer(timerWheel.schedule(co, co.getExpireTime()));
+		}
 	}
 	// ---------------------------------------------------------------- put end
 
 	// ---------------------------------------------------------------- get start
 	@Override
 	public boolean containsKey(K key) {
-		readLock.lock();
+		acquire(readLock, latencyRecorder);
 
 		try {
 			//不存在或已移除
@@ -102,10 +286,10 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 			}
 			
 			//过期
-			if (co.isExpired() == true) {
+			if (co.isExpired(ticker.currentTimeMillis()) == true) {
 				// remove(key); // 此方法无法获得锁
 				removeWithoutLock(key);
-				missCount++;
+				statsCounter.recordMisses(1);
 				return false;
 			}
 
@@ -119,15 +303,20 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	/**
 	 * @return 命中数
 	 */
-	public int getHitCount() {
-		return hitCount;
+	public long getHitCount() {
+		return statsCounter.hitCount();
 	}
 
 	/**
 	 * @return 丢失数
 	 */
-	public int getMissCount() {
-		return missCount;
+	public long getMissCount() {
+		return statsCounter.missCount();
+	}
+	
+	@Override
+	public CacheStats stats() {
+		return statsCounter.snapshot();
 	}
 	
 	@Override
@@ -137,27 +326,84 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
 	@Override
 	public V get(K key, boolean isUpdateLastAccess) {
-		readLock.lock();
+		final LatencyRecorder recorder = this.latencyRecorder;
+		final long start = acquire(readLock, recorder);
 
+		final V value;
 		try {
-			//不存在或已移除
-			final CacheObj<K, V> co = cacheMap.get(key);
-			if (co == null) {
-				missCount++;
-				return null;
-			}
-			
-			//过期
-			if (co.isExpired() == true) {
-				// remove(key); // 此方法无法获得锁
-				removeWithoutLock(key);
-				missCount++;
-				return null;
+			value = getWithoutLock(key, isUpdateLastAccess, ticker.currentTimeMillis());
+		} finally {
+			readLock.unlock();
+		}
+		if (null != recorder) {
+			recorder.recordSince((null == value) ? Operation.GET_MISS : Operation.GET_HIT, start);
+		}
+		return value;
+	}
+
+	/**
+	 * 批量获得对象，整批只获取一次读锁
+	 */
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		final Map<K, V> result = new LinkedHashMap<K, V>();
+		acquire(readLock, latencyRecorder);
+
+		try {
+			final long now = ticker.currentTimeMillis();
+			for (K key : keys) {
+				final V value = getWithoutLock(key, true, now);
+				if (null != value) {
+					result.put(key, value);
+				}
 			}
+		} finally {
+			readLock.unlock();
+		}
+		return result;
+	}
 
-			//命中
-			hitCount++;
-			return co.get(isUpdateLastAccess);
+	/**
+	 * 获得对象，必须持有读锁
+	 */
+	private V getWithoutLock(K key, boolean isUpdateLastAccess, long now) {
+		//不存在或已移除
+		final CacheObj<K, V> co = cacheMap.get(key);
+		if (co == null) {
+			statsCounter.recordMisses(1);
+			return null;
+		}
+		
+		//过期
+		if (co.isExpired(now) == true) {
+			// remove(key); // 此方法无法获得锁
+			removeWithoutLock(key);
+			statsCounter.recordMisses(1);
+			return null;
+		}
+
+		//命中
+		statsCounter.recordHits(1);
+		final V value = co.get(isUpdateLastAccess, now);
+		// 使用指定失效时长加入的对象不使用过期策略
+		if (isUpdateLastAccess && null != expiry && co.isExpiryManaged()) {
+			// 时间轮中的定时不在读锁下调整，到期时按新的过期时间重新放入
+			co.setExpiry(now, expiry.expireAfterRead(key, value, now, co.remainingDuration(now)));
+		}
+		return value;
+	}
+	
+	/**
+	 * 查看缓存对象，不更新访问信息，不计入命中数
+	 * 
+	 * @param key 键
+	 * @return 缓存对象，不存在或已过期返回<code>null</code>
+	 */
+	CacheObj<K, V> getCacheObj(K key) {
+		acquire(readLock, latencyRecorder);
+		try {
+			final CacheObj<K, V> co = cacheMap.get(key);
+			return (null == co || co.isExpired(ticker.currentTimeMillis())) ? null : co;
 		} finally {
 			readLock.unlock();
 		}
@@ -175,13 +421,13 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	@Override
 	public Iterator<CacheObj<K, V>> cacheObjIterator() {
 		Iterator<CacheObj<K, V>> copiedIterator;
-		readLock.lock();
+		acquire(readLock, latencyRecorder);
 		try {
 			copiedIterator = CopiedIter.copyOf(this.cacheMap.values().iterator());
 		} finally {
 			readLock.unlock();
 		}
-		return new CacheObjIterator<>(copiedIterator);
+		return new CacheObjIterator<>(copiedIterator, ticker.currentTimeMillis());
 	}
 
 	// ---------------------------------------------------------------- prune start
@@ -193,9 +439,9 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
 	@Override 
 	public final int prune() {
-		writeLock.lock();
+		acquire(writeLock, latencyRecorder);
 		try {
-			return pruneCache();
+			return timedPruneCache();
 		} finally {
 			writeLock.unlock();
 		}
@@ -222,20 +468,65 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	 * @return 过期对象清理是否可用，内部使用
 	 */
 	protected boolean isPruneExpiredActive() {
-		return (timeout != 0) || existCustomTimeout;
+		return (timeout != 0) || existCustomTimeout || (null != expiry);
 	}
 	
+	/**
+	 * 对象数达到容量，或设置了最大权重时剩余权重不足以放入对象（写锁内加入对象时按该对象的权重计算，否则按1计算）
+	 */
 	@Override
 	public boolean isFull() {
-		return (capacity > 0) && (cacheMap.size() >= capacity);
+		return ((capacity > 0) && (cacheMap.size() >= capacity)) || isOverweight();
+	}
+	
+	/**
+	 * @return 设置了最大权重时，剩余权重是否不足以放入对象，用于清理策略决定是否需要按权重淘汰
+	 */
+	protected boolean isOverweight() {
+		return (maximumWeight > 0) && (totalWeight.get() + Math.max(requiredWeight, 1) > maximumWeight);
+	}
+	
+	/**
+	 * 按权重而不是对象数限制缓存大小，子类构造时调用，此时容量应为<code>0</code>
+	 * 
+	 * @param maximumWeight 最大权重，必须大于0
+	 * @param weigher 权重计算器
+	 */
+	protected void setMaximumWeight(long maximumWeight, Weigher<K, V> weigher) {
+		if (maximumWeight <= 0) {
+			throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+		}
+		if (null == weigher) {
+			throw new IllegalArgumentException("weigher must not be null");
+		}
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+	}
+	
+	/**
+	 * @return 最大权重，<code>0</code>表示不按权重限制
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+	
+	/**
+	 * @return 当前所有对象的权重之和
+	 */
+	public long getTotalWeight() {
+		return totalWeight.get();
 	}
 
 	@Override
 	public void remove(K key) {
-		writeLock.lock();
+		acquire(writeLock, latencyRecorder);
 		CacheObj<K, V> co;
 		try {
 			co = cacheMap.remove(key);
+			if (null != co) {
+				cancelExpiry(co);
+				releaseWeight(co);
+			}
 		} finally {
 			writeLock.unlock();
 		}
@@ -244,11 +535,39 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 		}
 	}
 
+	/**
+	 * 批量移除对象，整批只获取一次写锁，移除回调在释放锁后执行
+	 */
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		final List<CacheObj<K, V>> removed = new ArrayList<CacheObj<K, V>>();
+		acquire(writeLock, latencyRecorder);
+		try {
+			for (K key : keys) {
+				final CacheObj<K, V> co = cacheMap.remove(key);
+				if (null != co) {
+					cancelExpiry(co);
+					releaseWeight(co);
+					removed.add(co);
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		for (CacheObj<K, V> co : removed) {
+			onRemove(co.key, co.obj);
+		}
+	}
+
 	@Override
 	public void clear() {
-		writeLock.lock();
+		acquire(writeLock, latencyRecorder);
 		try {
 			cacheMap.clear();
+			totalWeight.set(0);
+			if (null != timerWheel) {
+				timerWheel.clear();
+			}
 		} finally {
 			writeLock.unlock();
 		}
@@ -270,6 +589,221 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	}
 	// ---------------------------------------------------------------- common end
 	
+	/**
+	 * 通过时间轮清理过期对象，只处理到期的桶，开销与过期对象数有关而与缓存大小无关，必须持有写锁<br>
+	 * 到期时未过期的对象（期间被访问过，过期时间延后）按新的过期时间重新放入时间轮。<br>
+	 * 过期策略在读取时缩短的过期时间不会提前调整定时，对象在原定时到期后才被清理，但读取时仍会判定为过期。
+	 * 
+	 * @return 清理数
+	 */
+	protected int pruneExpired() {
+		if (null == timerWheel) {
+			return 0;
+		}
+		int count = 0;
+		final long now = ticker.currentTimeMillis();
+		final List<CacheObj<K, V>> due = timerWheel.advance(now);
+		for (CacheObj<K, V> co : due) {
+			if (co.isExpired(now)) {
+				// 只有映射仍指向此对象时才移除，读锁下被移除的对象可能已被新对象替换
+				if (cacheMap.remove(co.key, co)) {
+					releaseWeight(co);
+					statsCounter.recordExpiration();
+					onRemove(co.key, co.obj);
+					count++;
+				}
+			} else if (co.getExpireTime() > 0) {
+				timerWheel.reschedule(co.getTimer(), co.getExpireTime());
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * 获得锁，设置了延迟记录器时记录等待锁的时间
+	 * 
+	 * @param lock 读锁或写锁
+	 * @param recorder 延迟记录器，<code>null</code>表示不记录
+	 * @return 开始等待锁的时间，{@link System#nanoTime()}的返回值，不记录时为0
+	 */
+	private static long acquire(Lock lock, LatencyRecorder recorder) {
+		if (null == recorder) {
+			lock.lock();
+			return 0;
+		}
+		final long start = System.nanoTime();
+		lock.lock();
+		recorder.recordSince(Operation.LOCK_WAIT, start);
+		return start;
+	}
+	
+	/**
+	 * 执行清理策略，设置了延迟记录器时记录耗时，必须持有写锁
+	 * 
+	 * @return 清理数
+	 */
+	private int timedPruneCache() {
+		LatencyRecorder recorder = this.latencyRecorder;
+		if (null == recorder) {
+			recorder = this.pruneRecorder;
+		}
+		if (null == recorder) {
+			return pruneCache();
+		}
+		final long start = System.nanoTime();
+		try {
+			return pruneCache();
+		} finally {
+			recorder.recordSince(Operation.PRUNE, start);
+		}
+	}
+	
+	/**
+	 * 设置延迟记录器，记录读取、加入、清理及等待锁的耗时
+	 * @param latencyRecorder 延迟记录器，<code>null</code>表示不记录
+	 */
+	public void setLatencyRecorder(LatencyRecorder latencyRecorder) {
+		this.latencyRecorder = latencyRecorder;
+	}
+	
+	/**
+	 * @return 延迟记录器，未设置时为<code>null</code>
+	 */
+	public LatencyRecorder getLatencyRecorder() {
+		return latencyRecorder;
+	}
+	
+	/**
+	 * 记录清理耗时的记录器，设置了延迟记录器时返回它，否则创建只记录清理耗时的记录器，不影响读写
+	 * 
+	 * @return 记录器
+	 */
+	synchronized LatencyRecorder pruneRecorder() {
+		final LatencyRecorder recorder = this.latencyRecorder;
+		if (null != recorder) {
+			return recorder;
+		}
+		if (null == pruneRecorder) {
+			pruneRecorder = new LatencyRecorder();
+		}
+		return pruneRecorder;
+	}
+	
+	/**
+	 * 设置时钟，应在加入对象前设置，已有对象的过期时间按原时钟计算
+	 * @param ticker 时钟
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		this.ticker = ticker;
+	}
+	
+	/**
+	 * @return 时钟，默认为{@link CoarseTicker#getDefault()}
+	 */
+	public Ticker getTicker() {
+		return ticker;
+	}
+	
+	/**
+	 * 按权重为即将加入的对象腾出空间，必须持有写锁<br>
+	 * 反复执行清理策略，直到剩余权重足够或没有可清理的对象。
+	 * 单个对象的权重超过最大权重时其它对象都会被淘汰，该对象在下次加入对象时被淘汰
+	 * 
+	 * @param weight 需要腾出的权重
+	 */
+	private void makeRoom(int weight) {
+		if (weight <= 0) {
+			return;
+		}
+		requiredWeight = weight;
+		try {
+			while (isFull() && false == cacheMap.isEmpty()) {
+				if (timedPruneCache() == 0) {
+					break;
+				}
+			}
+		} finally {
+			requiredWeight = 0;
+		}
+	}
+	
+	/**
+	 * 计算对象的权重
+	 */
+	private int weigh(K key, V object) {
+		final int weight = weigher.weigh(key, object);
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight must not be negative: " + weight);
+		}
+		return weight;
+	}
+	
+	/**
+	 * 对象加入缓存后累加其权重
+	 * @param co 缓存对象
+	 */
+	private void addWeight(CacheObj<K, V> co) {
+		if (co.weight != 0) {
+			totalWeight.addAndGet(co.weight);
+		}
+	}
+	
+	/**
+	 * 对象移出缓存后扣除其权重，子类在自行移除对象时调用
+	 * @param co 缓存对象
+	 */
+	void releaseWeight(CacheObj<K, V> co) {
+		if (co.weight != 0) {
+			totalWeight.addAndGet(-co.weight);
+		}
+	}
+	
+	/**
+	 * 取消对象的过期定时，必须持有写锁
+	 * @param co 缓存对象
+	 */
+	void cancelExpiry(CacheObj<K, V> co) {
+		final TimerWheel.Timer<CacheObj<K, V>> timer = co.getTimer();
+		if (null != timer) {
+			timerWheel.deschedule(timer);
+		}
+	}
+	
+	/**
+	 * 设置淘汰监听器，对象因容量不足被淘汰时在写锁内通知，过期或被移除的对象不通知
+	 * @param evictionListener 淘汰监听器，<code>null</code>表示不监听
+	 */
+	public void setEvictionListener(EvictionListener<K, V> evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+	
+	/**
+	 * 记录并通知对象被淘汰，已过期的对象记为过期且不通知，必须持有写锁
+	 * @param co 被淘汰的对象
+	 */
+	void notifyEviction(CacheObj<K, V> co) {
+		if (co.isExpired(ticker.currentTimeMillis())) {
+			statsCounter.recordExpiration();
+			return;
+		}
+		statsCounter.recordEviction(co.weight);
+		final EvictionListener<K, V> listener = this.evictionListener;
+		if (null != listener) {
+			listener.onEvict(co.key, co.obj, co.getExpireTime(), co.getTtl());
+		}
+	}
+	
+	/**
+	 * 是否记录对象的访问次数，决定创建的缓存对象类型。默认不记录
+	 * @return 是否记录
+	 */
+	boolean isAccessCounted() {
+		return false;
+	}
+	
 	/**
 	 * 对象移除回调。默认无动作
 	 * @param key 键
@@ -279,12 +813,14 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	}
 	
 	/**
-	 * 移除元素，无锁
+	 * 移除过期元素，无锁
 	 * @param key 键
 	 */
 	private void removeWithoutLock(K key) {
 		CacheObj<K, V> co = cacheMap.remove(key);
 		if(null != co){
+			releaseWeight(co);
+			statsCounter.recordExpiration();
 			onRemove(co.key, co.obj);
 		}
 	}
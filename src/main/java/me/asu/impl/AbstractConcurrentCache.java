@@ -0,0 +1,977 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import me.asu.Cache;
+import me.asu.CacheStats;
+import me.asu.EvictionListener;
+import me.asu.Expiry;
+import me.asu.Ticker;
+
+/**
+ * 读操作无锁的并发缓存的默认实现<br>
+ * <ul>
+ * 		<li>数据存放在{@link ConcurrentHashMap}中，<code>get</code>直接读取</li>
+ * 		<li>访问记录写入按线程分段的有损环形缓冲区，缓冲区满时直接丢弃记录</li>
+ * 		<li>写操作记录在写缓冲队列中，不会丢弃</li>
+ * 		<li>淘汰策略的维护及淘汰在获得 <code>tryLock</code> 的线程中批量执行</li>
+ * </ul>
+ * 继承此抽象缓存需要实现淘汰策略的几个回调，这些回调都在持有<code>evictionLock</code>时调用，
+ * 因此策略内部的数据结构无需额外同步。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public abstract class AbstractConcurrentCache<K, V> implements Cache<K, V> {
+
+	/** 读缓冲区分段数，2的幂 */
+	static final int NUMBER_OF_READ_BUFFERS = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+	static final int READ_BUFFERS_MASK = NUMBER_OF_READ_BUFFERS - 1;
+	/** 每个读缓冲区的大小，2的幂 */
+	static final int READ_BUFFER_SIZE = 32;
+	static final int READ_BUFFER_INDEX_MASK = READ_BUFFER_SIZE - 1;
+	/** 读缓冲区积压达到此值时尝试执行批量处理 */
+	static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+	/** 每次批量处理写缓冲队列的最大任务数 */
+	static final int WRITE_BUFFER_DRAIN_THRESHOLD = 64;
+
+	final ConcurrentHashMap<K, Node<K, V>> data;
+	final ReadBuffer<K, V>[] readBuffers;
+	final Queue<Runnable> writeBuffer;
+	final ReentrantLock evictionLock;
+
+	/** 已加入淘汰策略的对象数，受<code>evictionLock</code>保护 */
+	int residentSize;
+	/** 按过期时间索引设置了存活时长的对象，第一次加入这样的对象时创建，受<code>evictionLock</code>保护 */
+	TimerWheel<CacheObj<K, V>> timerWheel;
+
+	/** 返回缓存容量，<code>0</code>表示无大小限制 */
+	protected final int capacity;
+	/** 缓存失效时长， <code>0</code> 表示没有设置，单位毫秒 */
+	protected final long timeout;
+	/** 每个对象是否有单独的失效时长，用于决定清理过期对象是否有必要。 */
+	protected volatile boolean existCustomTimeout;
+	/** 过期策略，为<code>null</code>时使用{@link #timeout}，从最后访问时间开始计算 */
+	protected final Expiry<K, V> expiry;
+	/** 淘汰监听器，对象因容量不足被淘汰时通知 */
+	protected volatile EvictionListener<K, V> evictionListener;
+	/** 统计计数器，无需持有锁 */
+	final StatsCounter statsCounter = new StatsCounter();
+	/** 时钟，读取、加入、清理时读取一次当前时间 */
+	protected volatile Ticker ticker = CoarseTicker.getDefault();
+
+	/**
+	 * 构造
+	 * @param capacity 容量，<code>0</code>表示无大小限制
+	 * @param timeout 默认超时时间，单位：毫秒
+	 */
+	protected AbstractConcurrentCache(int capacity, long timeout) {
+		this(capacity, timeout, null);
+	}
+
+	/**
+	 * 构造
+	 * @param capacity 容量，<code>0</code>表示无大小限制
+	 * @param timeout 默认超时时间，单位：毫秒，设置了过期策略时不使用
+	 * @param expiry 过期策略，<code>null</code>表示使用默认超时时间
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected AbstractConcurrentCache(int capacity, long timeout, Expiry<K, V> expiry) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.expiry = expiry;
+		this.data = new ConcurrentHashMap<K, Node<K, V>>(capacity > 0 ? Math.min(capacity, 1 << 16) : 16);
+		this.readBuffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+		for (int i = 0; i < NUMBER_OF_READ_BUFFERS; i++) {
+			readBuffers[i] = new ReadBuffer<K, V>();
+		}
+		this.writeBuffer = new ConcurrentLinkedQueue<Runnable>();
+		this.evictionLock = new ReentrantLock();
+	}
+
+	// ---------------------------------------------------------------- policy start
+	/**
+	 * 新对象加入淘汰策略，持有<code>evictionLock</code>时调用
+	 * @param node 新对象
+	 */
+	abstract void onAdd(Node<K, V> node);
+
+	/**
+	 * 对象被访问，持有<code>evictionLock</code>时调用，只会对已加入策略的对象调用
+	 * @param node 被访问的对象
+	 */
+	abstract void onAccess(Node<K, V> node);
+
+	/**
+	 * 对象移出淘汰策略，持有<code>evictionLock</code>时调用，只会对已加入策略的对象调用
+	 * @param node 被移除的对象
+	 */
+	abstract void onRemoval(Node<K, V> node);
+
+	/**
+	 * 淘汰对象直到{@link #residentSize}不超过容量，持有<code>evictionLock</code>时调用<br>
+	 * 实现通过{@link #evictEntry(Node)}淘汰选中的对象
+	 */
+	abstract void evictOverflow();
+	// ---------------------------------------------------------------- policy end
+
+	// ---------------------------------------------------------------- put start
+	/**
+	 * 将对象加入到缓存，设置了过期策略时由过期策略计算过期时间，否则使用默认失效时长
+	 */
+	@Override
+	public void put(K key, V object) {
+		if (null == expiry) {
+			put(key, object, timeout);
+			return;
+		}
+		put(newNode(key, object));
+	}
+
+	/**
+	 * 将对象加入到缓存，使用指定失效时长（从最后访问时间开始计算），不使用过期策略
+	 */
+	@Override
+	public void put(K key, V object, long timeout) {
+		if (timeout != 0) {
+			existCustomTimeout = true;
+		}
+		put(Node.create(key, object, timeout, ticker.currentTimeMillis(), false));
+	}
+
+	/**
+	 * 批量加入对象，全部写入写缓冲队列后只处理一次缓冲区
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			final K key = entry.getKey();
+			final V object = entry.getValue();
+			if (null == expiry) {
+				if (timeout != 0) {
+					existCustomTimeout = true;
+				}
+				enqueuePut(Node.create(key, object, timeout, ticker.currentTimeMillis(), false));
+			} else {
+				enqueuePut(newNode(key, object));
+			}
+		}
+		tryToDrainBuffers();
+	}
+
+	/**
+	 * 创建由过期策略计算过期时间的节点
+	 */
+	private Node<K, V> newNode(K key, V object) {
+		final long now = ticker.currentTimeMillis();
+		final Node<K, V> node = Node.create(key, object, 0, now, true);
+		final Node<K, V> current = data.get(key);
+		if (null == current || current.isExpired(now)) {
+			node.setExpiry(now, expiry.expireAfterCreate(key, object, now));
+		} else {
+			node.setExpiry(now, expiry.expireAfterUpdate(key, object, now, current.remainingDuration(now)));
+		}
+		return node;
+	}
+
+	/**
+	 * 缓存中没有未过期的对象时放入，保留原存活时长和过期时间，用于从下一级存储取回对象
+	 *
+	 * @param key 键
+	 * @param object 值
+	 * @param ttl 存活时长，从最后访问时间开始计算，0表示永久存活或由过期策略计算
+	 * @param expireTime 过期时间，0表示按<code>ttl</code>计算
+	 * @param accessCount 访问次数，未记录访问次数的缓存忽略
+	 * @return 是否放入
+	 */
+	boolean restoreIfAbsent(K key, V object, long ttl, long expireTime, long accessCount) {
+		final long now = ticker.currentTimeMillis();
+		final Node<K, V> node = Node.create(key, object, ttl, now, expireTime > 0);
+		if (expireTime > 0) {
+			node.setExpireTime(expireTime);
+		}
+		node.setAccessCount(accessCount);
+		Node<K, V> current;
+		while (null != (current = data.putIfAbsent(key, node))) {
+			if (false == current.isExpired(now)) {
+				return false;
+			}
+			if (data.replace(key, current, node)) {
+				current.alive = false;
+				writeBuffer.add(new RemovalTask(current));
+				break;
+			}
+		}
+		if (ttl != 0) {
+			existCustomTimeout = true;
+		}
+		writeBuffer.add(new AddTask(node));
+		tryToDrainBuffers();
+		return true;
+	}
+
+	/**
+	 * 缓存中的对象仍是<code>expected</code>时放入新值，检查和替换是原子的，用于刷新
+	 *
+	 * @param key 键
+	 * @param expected 刷新前的对象
+	 * @param object 新值
+	 * @return 是否放入，对象已被替换或移除时返回<code>false</code>
+	 */
+	boolean replaceIfSame(K key, CacheObj<K, V> expected, V object) {
+		if (data.get(key) != expected) {
+			return false;
+		}
+		final Node<K, V> current = (Node<K, V>) expected;
+		final Node<K, V> node;
+		if (null == expiry) {
+			if (timeout != 0) {
+				existCustomTimeout = true;
+			}
+			node = Node.create(key, object, timeout, ticker.currentTimeMillis(), false);
+		} else {
+			node = newNode(key, object);
+		}
+		if (false == data.replace(key, current, node)) {
+			return false;
+		}
+		current.alive = false;
+		writeBuffer.add(new RemovalTask(current));
+		writeBuffer.add(new AddTask(node));
+		tryToDrainBuffers();
+		return true;
+	}
+
+	private void put(Node<K, V> node) {
+		enqueuePut(node);
+		tryToDrainBuffers();
+	}
+
+	/**
+	 * 放入映射并记录写任务，不处理缓冲区
+	 */
+	private void enqueuePut(Node<K, V> node) {
+		final Node<K, V> old = data.put(node.key, node);
+		if (null != old) {
+			old.alive = false;
+			writeBuffer.add(new RemovalTask(old));
+		}
+		writeBuffer.add(new AddTask(node));
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- get start
+	@Override
+	public boolean containsKey(K key) {
+		final Node<K, V> node = data.get(key);
+		if (node == null) {
+			return false;
+		}
+		if (node.isExpired(ticker.currentTimeMillis())) {
+			removeExpired(node);
+			statsCounter.recordMisses(1);
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public V get(K key) {
+		return get(key, true);
+	}
+
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		final ReadBuffer<K, V> buffer = readBuffer();
+		final Node<K, V> node = data.get(key);
+		if (node == null) {
+			statsCounter.recordMisses(1);
+			return null;
+		}
+		final long now = ticker.currentTimeMillis();
+		if (node.isExpired(now)) {
+			removeExpired(node);
+			statsCounter.recordMisses(1);
+			return null;
+		}
+		statsCounter.recordHits(1);
+		final V value = node.get(isUpdateLastAccess, now);
+		// 使用指定失效时长加入的对象不使用过期策略
+		if (isUpdateLastAccess && null != expiry && node.isExpiryManaged()) {
+			// 时间轮中的定时不在此调整，到期时按新的过期时间重新放入
+			node.setExpiry(now, expiry.expireAfterRead(key, value, now, node.remainingDuration(now)));
+		}
+		if (buffer.record(node) >= READ_BUFFER_DRAIN_THRESHOLD) {
+			tryToDrainBuffers();
+		}
+		return value;
+	}
+
+	/**
+	 * 批量获得对象，读操作本身无锁，与逐个调用{@link #get(Object)}相同
+	 */
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		final Map<K, V> result = new LinkedHashMap<K, V>();
+		for (K key : keys) {
+			final V value = get(key, true);
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 查看缓存对象，不更新访问信息，不计入命中数
+	 *
+	 * @param key 键
+	 * @return 缓存对象，不存在或已过期返回<code>null</code>
+	 */
+	CacheObj<K, V> getCacheObj(K key) {
+		final Node<K, V> node = data.get(key);
+		return (null == node || node.isExpired(ticker.currentTimeMillis())) ? null : node;
+	}
+
+	/**
+	 * @return 命中数
+	 */
+	public long getHitCount() {
+		return statsCounter.hitCount();
+	}
+
+	/**
+	 * @return 丢失数
+	 */
+	public long getMissCount() {
+		return statsCounter.missCount();
+	}
+
+	@Override
+	public CacheStats stats() {
+		return statsCounter.snapshot();
+	}
+	// ---------------------------------------------------------------- get end
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<V> iterator() {
+		CacheObjIterator<K, V> iterator = (CacheObjIterator<K, V>) this.cacheObjIterator();
+		return new CacheValuesIterator<V>(iterator);
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		// ConcurrentHashMap的迭代器是弱一致的，无需加锁复制
+		return new CacheObjIterator<K, V>((Iterator) data.values().iterator(), ticker.currentTimeMillis());
+	}
+
+	// ---------------------------------------------------------------- prune start
+	/**
+	 * 清理过期对象，容量淘汰在批量处理时完成
+	 * @return 清理数
+	 */
+	@Override
+	public int prune() {
+		evictionLock.lock();
+		try {
+			drainBuffers();
+			return pruneExpired();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+	// ---------------------------------------------------------------- prune end
+
+	// ---------------------------------------------------------------- common start
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public long timeout() {
+		return timeout;
+	}
+
+	/**
+	 * 只有设置公共缓存失效时长或每个对象单独的失效时长时清理可用
+	 * @return 过期对象清理是否可用，内部使用
+	 */
+	protected boolean isPruneExpiredActive() {
+		return (timeout != 0) || existCustomTimeout || (null != expiry);
+	}
+
+	@Override
+	public boolean isFull() {
+		return (capacity > 0) && (data.size() >= capacity);
+	}
+
+	@Override
+	public void remove(K key) {
+		final Node<K, V> node = data.remove(key);
+		if (null != node) {
+			node.alive = false;
+			writeBuffer.add(new RemovalTask(node));
+			tryToDrainBuffers();
+			onRemove(node.key, node.obj);
+		}
+	}
+
+	/**
+	 * 缓存中的值仍是<code>expected</code>（同一对象）时移除，检查和移除是原子的
+	 *
+	 * @param key 键
+	 * @param expected 期望的值
+	 * @return 是否移除
+	 */
+	boolean removeIfSame(K key, V expected) {
+		final Node<K, V> node = data.get(key);
+		if (null == node || node.obj != expected || false == data.remove(key, node)) {
+			return false;
+		}
+		node.alive = false;
+		writeBuffer.add(new RemovalTask(node));
+		tryToDrainBuffers();
+		onRemove(node.key, node.obj);
+		return true;
+	}
+
+	/**
+	 * 批量移除对象，全部写入写缓冲队列后只处理一次缓冲区
+	 */
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		final List<Node<K, V>> removed = new ArrayList<Node<K, V>>();
+		for (K key : keys) {
+			final Node<K, V> node = data.remove(key);
+			if (null != node) {
+				node.alive = false;
+				writeBuffer.add(new RemovalTask(node));
+				removed.add(node);
+			}
+		}
+		if (!removed.isEmpty()) {
+			tryToDrainBuffers();
+		}
+		for (Node<K, V> node : removed) {
+			onRemove(node.key, node.obj);
+		}
+	}
+
+	@Override
+	public void clear() {
+		evictionLock.lock();
+		try {
+			drainBuffers();
+			for (Node<K, V> node : data.values()) {
+				if (data.remove(node.key, node)) {
+					node.alive = false;
+					if (node.isLinked()) {
+						removeFromPolicy(node);
+					}
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		return data.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return data.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return this.data.toString();
+	}
+	// ---------------------------------------------------------------- common end
+
+	/**
+	 * 设置淘汰监听器，对象因容量不足被淘汰时在<code>evictionLock</code>内通知，过期或被移除的对象不通知
+	 * @param evictionListener 淘汰监听器，<code>null</code>表示不监听
+	 */
+	public void setEvictionListener(EvictionListener<K, V> evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+
+	/**
+	 * 设置时钟，应在加入对象前设置，已有对象的过期时间按原时钟计算
+	 * @param ticker 时钟
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		this.ticker = ticker;
+	}
+
+	/**
+	 * @return 时钟，默认为{@link CoarseTicker#getDefault()}
+	 */
+	public Ticker getTicker() {
+		return ticker;
+	}
+
+	/**
+	 * 对象移除回调。默认无动作
+	 * @param key 键
+	 * @param cachedObject 被缓存的对象
+	 */
+	protected void onRemove(K key, V cachedObject) {
+	}
+
+	// ---------------------------------------------------------------- buffers start
+	/**
+	 * @return 当前线程对应的读缓冲区
+	 */
+	private ReadBuffer<K, V> readBuffer() {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return readBuffers[(h ^ (h >>> 16)) & READ_BUFFERS_MASK];
+	}
+
+	/**
+	 * 移除已过期的对象，只有当映射仍指向此对象时才移除
+	 * @param node 过期对象
+	 */
+	private void removeExpired(Node<K, V> node) {
+		if (data.remove(node.key, node)) {
+			node.alive = false;
+			statsCounter.recordExpiration();
+			writeBuffer.add(new RemovalTask(node));
+			tryToDrainBuffers();
+			onRemove(node.key, node.obj);
+		}
+	}
+
+	/**
+	 * 尝试获得锁并批量处理缓冲区，获取锁失败时说明其它线程正在处理，直接返回
+	 */
+	void tryToDrainBuffers() {
+		do {
+			if (!evictionLock.tryLock()) {
+				return;
+			}
+			try {
+				drainBuffers();
+			} finally {
+				evictionLock.unlock();
+			}
+			// 持锁线程释放锁之前可能有新的写任务加入，避免其无人处理
+		} while (!writeBuffer.isEmpty());
+	}
+
+	/**
+	 * 批量处理读写缓冲区并淘汰超出容量的对象，必须持有<code>evictionLock</code>
+	 */
+	void drainBuffers() {
+		for (ReadBuffer<K, V> buffer : readBuffers) {
+			buffer.drainTo(this);
+		}
+		Runnable task;
+		for (int i = 0; i < WRITE_BUFFER_DRAIN_THRESHOLD; i++) {
+			if ((task = writeBuffer.poll()) == null) {
+				break;
+			}
+			task.run();
+		}
+		if (capacity > 0 && residentSize > capacity) {
+			// 与AbstractCache相同：缓存满时先清理过期对象，依旧满再按策略淘汰
+			if (isPruneExpiredActive()) {
+				pruneExpired();
+			}
+			evictOverflow();
+		}
+	}
+
+	/**
+	 * 淘汰对象并记录统计，已过期的对象记为过期，必须持有<code>evictionLock</code>
+	 * @param node 被淘汰的对象
+	 * @return 是否由本次调用从映射中移除
+	 */
+	final boolean evictEntry(Node<K, V> node) {
+		if (node.isLinked()) {
+			removeFromPolicy(node);
+		}
+		if (data.remove(node.key, node)) {
+			node.alive = false;
+			if (node.isExpired(ticker.currentTimeMillis())) {
+				statsCounter.recordExpiration();
+			} else {
+				statsCounter.recordEviction(node.weight);
+				final EvictionListener<K, V> listener = this.evictionListener;
+				if (null != listener) {
+					listener.onEvict(node.key, node.obj, node.getExpireTime(), node.getTtl());
+				}
+			}
+			onRemove(node.key, node.obj);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 通过时间轮清理过期对象，只处理到期的桶，必须持有<code>evictionLock</code><br>
+	 * 到期时未过期的对象（期间被访问过，过期时间延后）按新的过期时间重新放入时间轮。
+	 * @return 清理数
+	 */
+	int pruneExpired() {
+		if (null == timerWheel) {
+			return 0;
+		}
+		int count = 0;
+		final long now = ticker.currentTimeMillis();
+		for (CacheObj<K, V> co : timerWheel.advance(now)) {
+			final Node<K, V> node = (Node<K, V>) co;
+			if (false == node.alive) {
+				continue;
+			}
+			if (node.isExpired(now)) {
+				if (evictEntry(node)) {
+					count++;
+				}
+			} else if (node.getExpireTime() > 0) {
+				timerWheel.reschedule(node.getTimer(), node.getExpireTime());
+			}
+		}
+		return count;
+	}
+
+	private void addToPolicy(Node<K, V> node) {
+		onAdd(node);
+		residentSize++;
+		if (node.getExpireTime() > 0) {
+			if (null == timerWheel) {
+				timerWheel = new TimerWheel<CacheObj<K, V>>(node.writeTime);
+			}
+			node.setTimer(timerWheel.schedule(node, node.getExpireTime()));
+		}
+	}
+
+	private void removeFromPolicy(Node<K, V> node) {
+		onRemoval(node);
+		residentSize--;
+		final TimerWheel.Timer<CacheObj<K, V>> timer = node.getTimer();
+		if (null != timer) {
+			timerWheel.deschedule(timer);
+		}
+	}
+
+	/**
+	 * 新对象加入淘汰策略
+	 */
+	final class AddTask implements Runnable {
+		final Node<K, V> node;
+
+		AddTask(Node<K, V> node) {
+			this.node = node;
+		}
+
+		@Override
+		public void run() {
+			// 加入之前已被移除（移除任务可能先于加入任务执行）
+			if (node.alive && false == node.isLinked()) {
+				addToPolicy(node);
+			}
+		}
+	}
+
+	/**
+	 * 对象移出淘汰策略
+	 */
+	final class RemovalTask implements Runnable {
+		final Node<K, V> node;
+
+		RemovalTask(Node<K, V> node) {
+			this.node = node;
+		}
+
+		@Override
+		public void run() {
+			if (node.isLinked()) {
+				removeFromPolicy(node);
+			}
+		}
+	}
+	// ---------------------------------------------------------------- buffers end
+
+	/**
+	 * 缓存对象，同时是淘汰策略中链表的节点，映射中的值和链表节点是同一个对象。<br>
+	 * 本类的对象永久存活，可过期的对象使用{@link ExpiringNode}
+	 */
+	static class Node<K, V> extends CacheObj<K, V> {
+		/** 受<code>evictionLock</code>保护 */
+		Node<K, V> prev;
+		/** 受<code>evictionLock</code>保护 */
+		Node<K, V> next;
+		/** 所在的策略队列，由具体策略定义，受<code>evictionLock</code>保护 */
+		byte queue;
+		/** 策略使用的附加引用，例如LFU的频率桶，受<code>evictionLock</code>保护 */
+		Object owner;
+		/** 是否仍在映射中 */
+		volatile boolean alive = true;
+
+		Node(K key, V obj, long now) {
+			super(key, obj, now);
+		}
+
+		/**
+		 * 按需要的特性创建节点
+		 *
+		 * @param key 键
+		 * @param obj 值
+		 * @param ttl 存活时长，从最后访问时间开始计算，0表示永久存活
+		 * @param now 当前时间，单位毫秒
+		 * @param expirable 存活时长为0时是否仍可能设置过期时间
+		 * @return 节点
+		 */
+		static <K, V> Node<K, V> create(K key, V obj, long ttl, long now, boolean expirable) {
+			if (ttl > 0 || expirable) {
+				return new ExpiringNode<K, V>(key, obj, ttl, now);
+			}
+			return new Node<K, V>(key, obj, now);
+		}
+
+		/**
+		 * @return 是否已加入淘汰策略的链表
+		 */
+		boolean isLinked() {
+			return prev != null;
+		}
+	}
+
+	/**
+	 * 可过期的节点，存活时长大于0时从最后访问时间开始计算，否则由过期策略计算
+	 */
+	static final class ExpiringNode<K, V> extends Node<K, V> {
+		/** 存活时长，0表示由过期策略计算 */
+		final long ttl;
+		/** 过期时间，0表示永久存活 */
+		long expireTime;
+		/** 过期时间轮中的定时器，受<code>evictionLock</code>保护 */
+		TimerWheel.Timer<CacheObj<K, V>> timer;
+
+		ExpiringNode(K key, V obj, long ttl, long now) {
+			super(key, obj, now);
+			this.ttl = ttl;
+			this.expireTime = (ttl > 0) ? now + ttl : 0;
+		}
+
+		@Override
+		boolean isExpirable() {
+			return true;
+		}
+
+		@Override
+		long getExpireTime() {
+			return expireTime;
+		}
+
+		@Override
+		void setExpireTime(long expireTime) {
+			this.expireTime = expireTime;
+		}
+
+		@Override
+		long getTtl() {
+			return ttl;
+		}
+
+		@Override
+		long getLastAccess() {
+			return (ttl > 0) ? expireTime - ttl : 0;
+		}
+
+		@Override
+		TimerWheel.Timer<CacheObj<K, V>> getTimer() {
+			return timer;
+		}
+
+		@Override
+		void setTimer(TimerWheel.Timer<CacheObj<K, V>> timer) {
+			this.timer = timer;
+		}
+
+		@Override
+		V get(boolean isUpdateLastAccess, long now) {
+			if (isUpdateLastAccess && ttl > 0) {
+				expireTime = now + ttl;
+			}
+			return obj;
+		}
+	}
+
+	/**
+	 * 以{@link Node}为节点的双向链表，首部为最先加入（最久未使用）的对象，不是线程安全的
+	 */
+	static final class NodeDeque<K, V> {
+		/** 哨兵节点 */
+		private final Node<K, V> head = new Node<K, V>(null, null, 0);
+		private int size;
+
+		NodeDeque() {
+			head.prev = head;
+			head.next = head;
+		}
+
+		int size() {
+			return size;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		/**
+		 * @return 首部对象，链表为空时返回<code>null</code>
+		 */
+		Node<K, V> peekFirst() {
+			return (head.next == head) ? null : head.next;
+		}
+
+		void linkLast(Node<K, V> node) {
+			final Node<K, V> last = head.prev;
+			node.prev = last;
+			node.next = head;
+			last.next = node;
+			head.prev = node;
+			size++;
+		}
+
+		void unlink(Node<K, V> node) {
+			node.prev.next = node.next;
+			node.next.prev = node.prev;
+			node.prev = null;
+			node.next = null;
+			size--;
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (head.prev != node) {
+				unlink(node);
+				linkLast(node);
+			}
+		}
+
+		/**
+		 * 把另一个链表的全部对象按原顺序接到尾部，另一个链表变为空，时间复杂度为O(1)
+		 *
+		 * @param other 另一个链表
+		 */
+		void linkAllLast(NodeDeque<K, V> other) {
+			if (other.isEmpty()) {
+				return;
+			}
+			final Node<K, V> first = other.head.next;
+			final Node<K, V> last = other.head.prev;
+			final Node<K, V> tail = head.prev;
+			tail.next = first;
+			first.prev = tail;
+			last.next = head;
+			head.prev = last;
+			size += other.size;
+			other.head.next = other.head;
+			other.head.prev = other.head;
+			other.size = 0;
+		}
+	}
+
+	/**
+	 * 有损环形读缓冲区，写满后新的访问记录被丢弃
+	 */
+	static final class ReadBuffer<K, V> {
+		final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<Node<K, V>>(READ_BUFFER_SIZE);
+		final AtomicLong writeCount = new AtomicLong();
+		/** 只由持有<code>evictionLock</code>的线程写入 */
+		final AtomicLong readCount = new AtomicLong();
+
+		/**
+		 * 记录一次访问
+		 * @param node 被访问的对象
+		 * @return 记录后缓冲区积压数
+		 */
+		long record(Node<K, V> node) {
+			final long w = writeCount.get();
+			final long pending = w - readCount.get();
+			if (pending >= READ_BUFFER_SIZE) {
+				// 缓冲区已满，丢弃此次记录
+				return pending;
+			}
+			if (writeCount.compareAndSet(w, w + 1)) {
+				buffer.lazySet((int) (w & READ_BUFFER_INDEX_MASK), node);
+			}
+			return pending + 1;
+		}
+
+		/**
+		 * 将缓冲区中的访问记录交给淘汰策略，必须持有<code>evictionLock</code>
+		 * @param cache 缓存
+		 */
+		void drainTo(AbstractConcurrentCache<K, V> cache) {
+			long r = readCount.get();
+			final long w = writeCount.get();
+			for (; r < w; r++) {
+				final int index = (int) (r & READ_BUFFER_INDEX_MASK);
+				final Node<K, V> node = buffer.get(index);
+				if (node == null) {
+					// 写入者已占位但尚未写入，留待下次处理
+					break;
+				}
+				buffer.lazySet(index, null);
+				if (node.alive && node.isLinked()) {
+					cache.onAccess(node);
+				}
+			}
+			readCount.lazySet(r);
+		}
+	}
+
+	static int ceilingPowerOfTwo(int x) {
+		return 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(x - 1));
+	}
+}
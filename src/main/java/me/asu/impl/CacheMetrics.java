@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import me.asu.Cache;
+import me.asu.CacheMXBean;
+import me.asu.CacheStats;
+import me.asu.impl.LatencyRecorder.Operation;
+
+/**
+ * 注册的缓存的指标，同时是{@link CacheMXBean}的实现<br>
+ * 计数来自{@link Cache#stats()}，清理耗时来自{@link LatencyRecorder}，都是无锁累计的，读取时不获取缓存的锁。
+ * 被包装的{@link AbstractCache}未设置延迟记录器时，注册时只为其开启清理耗时的记录，读取和加入不计时。
+ *
+ * @author Suk
+ */
+public class CacheMetrics implements CacheMXBean {
+
+	private final String name;
+	private final Cache<?, ?> cache;
+	/** 记录清理耗时的被包装缓存，不支持时为<code>null</code> */
+	private final AbstractCache<?, ?> timedCache;
+
+	/**
+	 * 构造
+	 *
+	 * @param name 注册的名称
+	 * @param cache 缓存
+	 */
+	public CacheMetrics(String name, Cache<?, ?> cache) {
+		if (null == name || null == cache) {
+			throw new IllegalArgumentException("name and cache must not be null");
+		}
+		this.name = name;
+		this.cache = cache;
+		this.timedCache = timedCacheOf(cache);
+		if (null != timedCache) {
+			// 开始记录清理耗时
+			timedCache.pruneRecorder();
+		}
+	}
+
+	/**
+	 * 查找记录清理耗时的缓存，包装类取被包装的缓存
+	 */
+	private static AbstractCache<?, ?> timedCacheOf(Cache<?, ?> cache) {
+		if (cache instanceof DefaultLoadingCache) {
+			return timedCacheOf(((DefaultLoadingCache<?, ?>) cache).cache);
+		}
+		if (cache instanceof TieredCache) {
+			return timedCacheOf(((TieredCache<?, ?>) cache).cache);
+		}
+		if (cache instanceof AbstractCache) {
+			return (AbstractCache<?, ?>) cache;
+		}
+		return null;
+	}
+
+	/**
+	 * @return 缓存
+	 */
+	public Cache<?, ?> getCache() {
+		return cache;
+	}
+
+	/**
+	 * @return 统计信息快照
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/**
+	 * @return 清理耗时的分布，缓存不支持记录延迟时为<code>null</code>
+	 */
+	public LatencyHistogram.Snapshot pruneTimes() {
+		return (null == timedCache) ? null : timedCache.pruneRecorder().histogram(Operation.PRUNE).snapshot();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public int getSize() {
+		return cache.size();
+	}
+
+	@Override
+	public int getCapacity() {
+		return cache.capacity();
+	}
+
+	@Override
+	public long getHitCount() {
+		return stats().hitCount();
+	}
+
+	@Override
+	public long getMissCount() {
+		return stats().missCount();
+	}
+
+	@Override
+	public double getHitRatio() {
+		return stats().hitRate();
+	}
+
+	@Override
+	public long getEvictionCount() {
+		return stats().evictionCount();
+	}
+
+	@Override
+	public long getExpirationCount() {
+		return stats().expirationCount();
+	}
+
+	@Override
+	public long getLoadSuccessCount() {
+		return stats().loadSuccessCount();
+	}
+
+	@Override
+	public long getLoadFailureCount() {
+		return stats().loadFailureCount();
+	}
+
+	@Override
+	public double getAverageLoadPenalty() {
+		return stats().averageLoadPenalty();
+	}
+
+	@Override
+	public long getPruneCount() {
+		final LatencyHistogram.Snapshot pruneTimes = pruneTimes();
+		return (null == pruneTimes) ? 0 : pruneTimes.count();
+	}
+
+	@Override
+	public double getPruneMeanTime() {
+		final LatencyHistogram.Snapshot pruneTimes = pruneTimes();
+		return (null == pruneTimes) ? 0 : pruneTimes.mean();
+	}
+
+	@Override
+	public long getPrune99thPercentileTime() {
+		final LatencyHistogram.Snapshot pruneTimes = pruneTimes();
+		return (null == pruneTimes) ? 0 : pruneTimes.percentile(99);
+	}
+
+	@Override
+	public long getPruneMaxTime() {
+		final LatencyHistogram.Snapshot pruneTimes = pruneTimes();
+		return (null == pruneTimes) ? 0 : pruneTimes.max();
+	}
+
+	@Override
+	public String toString() {
+		return "CacheMetrics [name=" + name + ", stats=" + stats() + "]";
+	}
+}
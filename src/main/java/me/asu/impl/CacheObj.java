@@ -23,8 +23,14 @@
 
 package me.asu.impl;
 
+import me.asu.Cache;
+import me.asu.Ticker;
+
 /**
- * 缓存对象
+ * 缓存对象<br>
+ * 本类只保存所有缓存都需要的字段，过期时间、存活时长和访问次数由子类按缓存使用的特性保存，
+ * 创建对象时由{@link #create(Object, Object, long, long, boolean, boolean)}选择，
+ * 未设置失效时长的LRU缓存中的对象不再为这些字段占用空间。
  * @author Looly
  *
  * @param <K> Key类型
@@ -35,44 +41,354 @@ public class CacheObj<K, V> {
 	final K key;
 	final V obj;
 	
-	/** 上次访问时间 */
-	long lastAccess; 
-	/** 访问次数 */
-	long accessCount;
-	/** 对象存活时长，0表示永久存活*/
-	long ttl;
+	/** 写入时间 */
+	final long writeTime;
+	/** 权重，加入缓存时计算，未设置权重计算器时为0 */
+	int weight;
 	
-	CacheObj(K key, V obj, long ttl) {
+	/**
+	 * 构造永久存活、不记录访问次数的对象
+	 * 
+	 * @param key 键
+	 * @param obj 值
+	 * @param now 当前时间，由缓存的{@link Ticker}读取，单位毫秒
+	 */
+	CacheObj(K key, V obj, long now) {
 		this.key = key;
 		this.obj = obj;
-		this.ttl = ttl;
-		this.lastAccess = System.currentTimeMillis();
+		this.writeTime = now;
+	}
+	
+	/**
+	 * 按需要的特性创建对象
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param key 键
+	 * @param obj 值
+	 * @param ttl 存活时长，从最后访问时间开始计算，0表示永久存活
+	 * @param now 当前时间，单位毫秒
+	 * @param expirable 存活时长为0时是否仍可能设置过期时间，例如由过期策略计算过期时间
+	 * @param countAccess 是否记录访问次数
+	 * @return 缓存对象
+	 */
+	static <K, V> CacheObj<K, V> create(K key, V obj, long ttl, long now, boolean expirable, boolean countAccess) {
+		if (countAccess) {
+			if (ttl > 0 || expirable) {
+				return new CountingExpiring<K, V>(key, obj, ttl, now);
+			}
+			return new Counting<K, V>(key, obj, now);
+		}
+		if (ttl > 0) {
+			return new AccessExpiring<K, V>(key, obj, ttl, now);
+		}
+		if (expirable) {
+			return new Expiring<K, V>(key, obj, now);
+		}
+		return new CacheObj<K, V>(key, obj, now);
+	}
+	
+	/**
+	 * @return 是否可以设置过期时间
+	 */
+	boolean isExpirable() {
+		return false;
+	}
+	
+	/**
+	 * @return 是否由过期策略计算过期时间，即可过期且没有固定的存活时长
+	 */
+	boolean isExpiryManaged() {
+		return isExpirable() && getTtl() == 0;
+	}
+	
+	/**
+	 * @return 过期时间，0表示永久存活
+	 */
+	long getExpireTime() {
+		return 0;
+	}
+	
+	/**
+	 * 设置过期时间
+	 * 
+	 * @param expireTime 过期时间，0表示永久存活
+	 * @throws UnsupportedOperationException 对象不可过期且过期时间不为0
+	 */
+	void setExpireTime(long expireTime) {
+		if (expireTime != 0) {
+			throw new UnsupportedOperationException("Entry does not expire: " + key);
+		}
+	}
+	
+	/**
+	 * @return 存活时长，0表示永久存活或由过期策略计算
+	 */
+	long getTtl() {
+		return 0;
+	}
+	
+	/**
+	 * @return 最后访问时间，0表示未记录
+	 */
+	long getLastAccess() {
+		return 0;
+	}
+	
+	/**
+	 * @return 访问次数，未记录时为0
+	 */
+	long getAccessCount() {
+		return 0;
+	}
+	
+	/**
+	 * 设置访问次数，未记录访问次数的对象忽略
+	 * 
+	 * @param accessCount 访问次数
+	 */
+	void setAccessCount(long accessCount) {
+	}
+	
+	/**
+	 * @return 过期时间轮中的定时器，永久存活时为<code>null</code>
+	 */
+	TimerWheel.Timer<CacheObj<K, V>> getTimer() {
+		return null;
+	}
+	
+	/**
+	 * 设置过期时间轮中的定时器，只用于可过期的对象
+	 * 
+	 * @param timer 定时器
+	 */
+	void setTimer(TimerWheel.Timer<CacheObj<K, V>> timer) {
+		throw new UnsupportedOperationException("Entry does not expire: " + key);
 	}
 	
 	/**
 	 * 判断是否过期
 	 * 
+	 * @param now 当前时间，单位毫秒
 	 * @return 是否过期
 	 */
-	boolean isExpired() {
-		return (this.ttl > 0) && (this.lastAccess + this.ttl < System.currentTimeMillis());
+	boolean isExpired(long now) {
+		final long expireTime = getExpireTime();
+		return (expireTime > 0) && (expireTime < now);
+	}
+	
+	/**
+	 * 按过期策略计算的存活时长设置过期时间
+	 * 
+	 * @param currentTime 当前时间，单位毫秒
+	 * @param duration 存活时长，0表示永久存活
+	 */
+	void setExpiry(long currentTime, long duration) {
+		setExpireTime((duration > 0) ? currentTime + duration : 0);
+	}
+	
+	/**
+	 * 剩余存活时长
+	 * 
+	 * @param currentTime 当前时间，单位毫秒
+	 * @return 剩余存活时长，0表示永久存活，已过期时为1
+	 */
+	long remainingDuration(long currentTime) {
+		final long expireTime = getExpireTime();
+		if (expireTime == 0) {
+			return 0;
+		}
+		return Math.max(1, expireTime - currentTime);
 	}
 	
 	/**
 	 * 获取值
 	 * 
 	 * @param isUpdateLastAccess 是否更新最后访问时间
+	 * @param now 当前时间，单位毫秒
 	 * @return 获得对象
 	 * @since 4.0.10
 	 */
-	V get(boolean isUpdateLastAccess) {
-		if(isUpdateLastAccess) {
-			lastAccess = System.currentTimeMillis();
-		}
-		accessCount++;
+	V get(boolean isUpdateLastAccess, long now) {
 		return obj;
 	}
 	
+	/**
+	 * 缓存是否支持{@link #peek(Cache, Object)}
+	 * 
+	 * @param cache 缓存
+	 * @return 是否支持
+	 */
+	static boolean isPeekable(Cache<?, ?> cache) {
+		return cache instanceof AbstractCache || cache instanceof AbstractConcurrentCache
+				|| cache instanceof SegmentedCache;
+	}
+	
+	/**
+	 * 不更新访问信息、不计入命中数地查看缓存中的对象<br>
+	 * 只支持本包中的缓存实现，其它缓存返回<code>null</code>
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 缓存
+	 * @param key 键
+	 * @return 缓存对象，不存在、已过期或缓存不支持时返回<code>null</code>
+	 */
+	static <K, V> CacheObj<K, V> peek(Cache<K, V> cache, K key) {
+		if (cache instanceof AbstractCache) {
+			return ((AbstractCache<K, V>) cache).getCacheObj(key);
+		}
+		if (cache instanceof AbstractConcurrentCache) {
+			return ((AbstractConcurrentCache<K, V>) cache).getCacheObj(key);
+		}
+		if (cache instanceof SegmentedCache) {
+			return ((SegmentedCache<K, V>) cache).getCacheObj(key);
+		}
+		return null;
+	}
+	
+	/**
+	 * 缓存中没有未过期的对象时放入，在缓存的锁内恢复存活时长、过期时间和访问次数，过期时间在放入时生效<br>
+	 * 本包以外的缓存直接放入，不恢复过期时间和访问次数
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 缓存
+	 * @param key 键
+	 * @param object 值
+	 * @param ttl 存活时长，0表示永久存活或由过期策略计算
+	 * @param expireTime 过期时间，0表示按<code>ttl</code>计算
+	 * @param accessCount 访问次数
+	 * @return 是否放入
+	 */
+	static <K, V> boolean restoreIfAbsent(Cache<K, V> cache, K key, V object, long ttl, long expireTime,
+			long accessCount) {
+		if (cache instanceof AbstractCache) {
+			return ((AbstractCache<K, V>) cache).restoreIfAbsent(key, object, ttl, expireTime, accessCount);
+		}
+		if (cache instanceof AbstractConcurrentCache) {
+			return ((AbstractConcurrentCache<K, V>) cache).restoreIfAbsent(key, object, ttl, expireTime, accessCount);
+		}
+		if (cache instanceof SegmentedCache) {
+			return restoreIfAbsent(((SegmentedCache<K, V>) cache).segmentFor(key), key, object, ttl, expireTime,
+					accessCount);
+		}
+		if (ttl > 0) {
+			cache.put(key, object, ttl);
+		} else {
+			cache.put(key, object);
+		}
+		return true;
+	}
+	
+	/**
+	 * 缓存中的对象仍是<code>expected</code>时放入新值，本包中的缓存在锁内原子地检查和放入<br>
+	 * 其它缓存先检查再放入，不是原子的
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 缓存
+	 * @param key 键
+	 * @param expected 期望的对象，通过{@link #peek(Cache, Object)}获得
+	 * @param object 新值
+	 * @return 是否放入
+	 */
+	static <K, V> boolean replaceIfSame(Cache<K, V> cache, K key, CacheObj<K, V> expected, V object) {
+		if (cache instanceof AbstractCache) {
+			return ((AbstractCache<K, V>) cache).replaceIfSame(key, expected, object);
+		}
+		if (cache instanceof AbstractConcurrentCache) {
+			return ((AbstractConcurrentCache<K, V>) cache).replaceIfSame(key, expected, object);
+		}
+		if (cache instanceof SegmentedCache) {
+			return replaceIfSame(((SegmentedCache<K, V>) cache).segmentFor(key), key, expected, object);
+		}
+		if (peek(cache, key) != expected) {
+			return false;
+		}
+		cache.put(key, object);
+		return true;
+	}
+	
+	/**
+	 * 缓存中的值仍是<code>expected</code>（同一对象）时移除，本包中的缓存在锁内原子地检查和移除<br>
+	 * 其它缓存先检查再移除，不是原子的
+	 * 
+	 * @param <K> Key类型
+	 * @param <V> Value类型
+	 * @param cache 缓存
+	 * @param key 键
+	 * @param expected 期望的值
+	 * @return 是否移除
+	 */
+	static <K, V> boolean removeIfSame(Cache<K, V> cache, K key, V expected) {
+		if (cache instanceof AbstractCache) {
+			return ((AbstractCache<K, V>) cache).removeIfSame(key, expected);
+		}
+		if (cache instanceof AbstractConcurrentCache) {
+			return ((AbstractConcurrentCache<K, V>) cache).removeIfSame(key, expected);
+		}
+		if (cache instanceof SegmentedCache) {
+			return removeIfSame(((SegmentedCache<K, V>) cache).segmentFor(key), key, expected);
+		}
+		if (cache.get(key, false) != expected) {
+			return false;
+		}
+		cache.remove(key);
+		return true;
+	}
+	
+	/**
+	 * 缓存使用的时钟<br>
+	 * 只支持本包中的缓存实现，其它缓存返回默认的{@link CoarseTicker}
+	 * 
+	 * @param cache 缓存
+	 * @return 时钟
+	 */
+	static Ticker tickerOf(Cache<?, ?> cache) {
+		if (cache instanceof AbstractCache) {
+			return ((AbstractCache<?, ?>) cache).getTicker();
+		}
+		if (cache instanceof AbstractConcurrentCache) {
+			return ((AbstractConcurrentCache<?, ?>) cache).getTicker();
+		}
+		if (cache instanceof SegmentedCache) {
+			return ((SegmentedCache<?, ?>) cache).getTicker();
+		}
+		if (cache instanceof OffHeapCache) {
+			return ((OffHeapCache<?, ?>) cache).getTicker();
+		}
+		if (cache instanceof TieredCache) {
+			return ((TieredCache<?, ?>) cache).getTicker();
+		}
+		return CoarseTicker.getDefault();
+	}
+	
+	/**
+	 * 设置缓存使用的时钟<br>
+	 * 只支持本包中的缓存实现
+	 * 
+	 * @param cache 缓存
+	 * @param ticker 时钟
+	 * @return 是否支持
+	 */
+	static boolean setTicker(Cache<?, ?> cache, Ticker ticker) {
+		if (cache instanceof AbstractCache) {
+			((AbstractCache<?, ?>) cache).setTicker(ticker);
+		} else if (cache instanceof AbstractConcurrentCache) {
+			((AbstractConcurrentCache<?, ?>) cache).setTicker(ticker);
+		} else if (cache instanceof SegmentedCache) {
+			((SegmentedCache<?, ?>) cache).setTicker(ticker);
+		} else if (cache instanceof OffHeapCache) {
+			((OffHeapCache<?, ?>) cache).setTicker(ticker);
+		} else if (cache instanceof TieredCache) {
+			((TieredCache<?, ?>) cache).setTicker(ticker);
+		} else {
+			return false;
+		}
+		return true;
+	}
+	
 	/**
 	 * 获取键
 	 * @return 键
@@ -93,6 +409,134 @@ public class CacheObj<K, V> {
 	
 	@Override
 	public String toString() {
-		return "CacheObj [key=" + key + ", obj=" + obj + ", lastAccess=" + lastAccess + ", accessCount=" + accessCount + ", ttl=" + ttl + "]";
+		return "CacheObj [key=" + key + ", obj=" + obj + ", writeTime=" + writeTime + ", lastAccess=" + getLastAccess() + ", accessCount=" + getAccessCount() + ", ttl=" + getTtl() + ", expireTime=" + getExpireTime() + "]";
+	}
+	
+	/**
+	 * 可过期的对象，过期时间由过期策略计算，读取时不延长
+	 */
+	static class Expiring<K, V> extends CacheObj<K, V> {
+		/** 过期时间，0表示永久存活 */
+		long expireTime;
+		/** 过期时间轮中的定时器 */
+		TimerWheel.Timer<CacheObj<K, V>> timer;
+		
+		Expiring(K key, V obj, long now) {
+			super(key, obj, now);
+		}
+		
+		@Override
+		boolean isExpirable() {
+			return true;
+		}
+		
+		@Override
+		long getExpireTime() {
+			return expireTime;
+		}
+		
+		@Override
+		void setExpireTime(long expireTime) {
+			this.expireTime = expireTime;
+		}
+		
+		@Override
+		TimerWheel.Timer<CacheObj<K, V>> getTimer() {
+			return timer;
+		}
+		
+		@Override
+		void setTimer(TimerWheel.Timer<CacheObj<K, V>> timer) {
+			this.timer = timer;
+		}
+	}
+	
+	/**
+	 * 设置了存活时长的对象，存活时长从最后访问时间开始计算，最后访问时间由过期时间推算
+	 */
+	static class AccessExpiring<K, V> extends Expiring<K, V> {
+		/** 存活时长，0表示由过期策略计算 */
+		final long ttl;
+		
+		AccessExpiring(K key, V obj, long ttl, long now) {
+			super(key, obj, now);
+			this.ttl = ttl;
+			this.expireTime = (ttl > 0) ? now + ttl : 0;
+		}
+		
+		@Override
+		long getTtl() {
+			return ttl;
+		}
+		
+		@Override
+		long getLastAccess() {
+			return (ttl > 0) ? expireTime - ttl : 0;
+		}
+		
+		@Override
+		V get(boolean isUpdateLastAccess, long now) {
+			if (isUpdateLastAccess && ttl > 0) {
+				// 未使用过期策略时，存活时长从最后访问时间开始计算
+				expireTime = now + ttl;
+			}
+			return obj;
+		}
+	}
+	
+	/**
+	 * 记录访问次数、永久存活的对象
+	 */
+	static final class Counting<K, V> extends CacheObj<K, V> {
+		/** 访问次数 */
+		long accessCount;
+		
+		Counting(K key, V obj, long now) {
+			super(key, obj, now);
+		}
+		
+		@Override
+		long getAccessCount() {
+			return accessCount;
+		}
+		
+		@Override
+		void setAccessCount(long accessCount) {
+			this.accessCount = accessCount;
+		}
+		
+		@Override
+		V get(boolean isUpdateLastAccess, long now) {
+			accessCount++;
+			return obj;
+		}
+	}
+	
+	/**
+	 * 记录访问次数的可过期对象
+	 */
+	static final class CountingExpiring<K, V> extends AccessExpiring<K, V> {
+		/** 访问次数 */
+		long accessCount;
+		
+		CountingExpiring(K key, V obj, long ttl, long now) {
+			super(key, obj, ttl, now);
+		}
+		
+		@Override
+		long getAccessCount() {
+			return accessCount;
+		}
+		
+		@Override
+		void setAccessCount(long accessCount) {
+			this.accessCount = accessCount;
+		}
+		
+		@Override
+		V get(boolean isUpdateLastAccess, long now) {
+			accessCount++;
+			return super.get(isUpdateLastAccess, now);
+		}
 	}
 }
@@ -38,16 +38,19 @@ import java.util.NoSuchElementException;
 public class CacheObjIterator<K, V> implements Iterator<CacheObj<K, V>> {
 
 	private final Iterator<CacheObj<K, V>> iterator;
+	/** 判断过期的时间，为创建迭代器的时间 */
+	private final long now;
 	private CacheObj<K, V> nextValue;
 
 	/**
 	 * 构造
 	 * 
 	 * @param iterator 原{@link Iterator}
-	 * @param readLock 读锁
+	 * @param now 当前时间，在此时间已过期的对象被跳过
 	 */
-	CacheObjIterator(Iterator<CacheObj<K, V>> iterator) {
+	CacheObjIterator(Iterator<CacheObj<K, V>> iterator, long now) {
 		this.iterator = iterator;
+		this.now = now;
 		nextValue();
 	}
 
@@ -86,7 +89,7 @@ public class CacheObjIterator<K, V> implements Iterator<CacheObj<K, V>> {
 	private void nextValue() {
 		while (iterator.hasNext()) {
 			nextValue = iterator.next();
-			if (nextValue.isExpired() == false) {
+			if (nextValue.isExpired(now) == false) {
 				return;
 			}
 		}
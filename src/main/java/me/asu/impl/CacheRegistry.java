@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import me.asu.Cache;
+
+/**
+ * 按名称登记缓存的指标，并注册到平台MBeanServer<br>
+ * MBean名称为<code>me.asu.cache:type=Cache,name="名称"</code>。{@link PrometheusExporter}输出这里登记的全部缓存。
+ *
+ * @author Suk
+ */
+public final class CacheRegistry {
+
+	/** MBean的域 */
+	public static final String DOMAIN = "me.asu.cache";
+
+	private static final ConcurrentMap<String, CacheMetrics> METRICS = new ConcurrentHashMap<String, CacheMetrics>();
+
+	private CacheRegistry() {
+	}
+
+	/**
+	 * 登记缓存并注册MBean
+	 *
+	 * @param name 名称，不能与已登记的名称重复
+	 * @param cache 缓存
+	 * @return 缓存的指标
+	 * @throws IllegalArgumentException 名称已被使用
+	 * @throws IllegalStateException 注册MBean失败
+	 */
+	public static CacheMetrics register(String name, Cache<?, ?> cache) {
+		final CacheMetrics metrics = new CacheMetrics(name, cache);
+		if (null != METRICS.putIfAbsent(name, metrics)) {
+			throw new IllegalArgumentException("Cache already registered: " + name);
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName(name));
+		} catch (JMException e) {
+			METRICS.remove(name, metrics);
+			throw new IllegalStateException("Failed to register MBean for cache: " + name, e);
+		}
+		return metrics;
+	}
+
+	/**
+	 * 撤销登记并注销MBean，未登记时无动作
+	 *
+	 * @param name 名称
+	 */
+	public static void unregister(String name) {
+		if (null == METRICS.remove(name)) {
+			return;
+		}
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName objectName = objectName(name);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to unregister MBean for cache: " + name, e);
+		}
+	}
+
+	/**
+	 * @param name 名称
+	 * @return 缓存的指标，未登记时为<code>null</code>
+	 */
+	public static CacheMetrics get(String name) {
+		return METRICS.get(name);
+	}
+
+	/**
+	 * @return 全部已登记缓存的指标，不随之后的登记变化
+	 */
+	public static Collection<CacheMetrics> all() {
+		return Collections.unmodifiableList(new ArrayList<CacheMetrics>(METRICS.values()));
+	}
+
+	/**
+	 * @param name 名称
+	 * @return MBean名称
+	 * @throws JMException 名称无效
+	 */
+	public static ObjectName objectName(String name) throws JMException {
+		return new ObjectName(DOMAIN + ":type=Cache,name=" + ObjectName.quote(name));
+	}
+}
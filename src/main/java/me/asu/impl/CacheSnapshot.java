@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import me.asu.Cache;
+import me.asu.Serializer;
+
+/**
+ * 缓存快照，用于重启后预热<br>
+ * 保存时通过{@link Cache#cacheObjIterator()}逐个写出未过期的对象，不在保存期间持有缓存的锁。
+ * 每条记录包括键、值、存活时长、剩余存活时长、最后访问时间和访问次数。<br>
+ * 加载时通过内存映射读取文件，先顺序扫描记录边界，再在执行器中并行反序列化，
+ * 最后按最后访问时间从旧到新放入缓存，使LRU等按访问顺序淘汰的缓存恢复原来的顺序；
+ * 未记录最后访问时间的对象（未设置存活时长）排在最前并保持保存时的顺序，本包中LRU缓存的迭代顺序即访问顺序。
+ * 剩余存活时长扣除保存到加载之间经过的时间，已过期的对象和缓存中已有未过期对象的键不加载；
+ * 访问次数（{@link LFUCache}使用）和剩余存活时长只对本包中的缓存实现恢复。<br>
+ * 快照文件不超过2GB。
+ *
+ * @author Suk
+ */
+public final class CacheSnapshot {
+
+	/** 文件标识："ASUC" */
+	static final int MAGIC = 0x41535543;
+	static final int VERSION = 1;
+	/** 文件头部：标识、版本、保存时间 */
+	static final int FILE_HEADER = 16;
+	/** 记录头部：键长度、值长度、存活时长、剩余存活时长、最后访问时间、访问次数 */
+	static final int RECORD_HEADER = 40;
+	/** 结束标记，写在键长度的位置 */
+	static final int END = -1;
+	/** 每个并行解码任务至少处理的记录数 */
+	static final int MIN_RECORDS_PER_TASK = 1024;
+
+	private CacheSnapshot() {
+	}
+
+	/**
+	 * 使用JDK序列化保存快照，键和值必须实现{@link java.io.Serializable}
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 * @param cache 缓存
+	 * @param file 快照文件
+	 * @return 保存的对象数
+	 * @throws IOException 写入失败
+	 */
+	public static <K, V> int save(Cache<K, V> cache, File file) throws IOException {
+		return save(cache, file, new JdkSerializer<K>(), new JdkSerializer<V>());
+	}
+
+	/**
+	 * 保存快照，先写入临时文件，完成后替换目标文件
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 * @param cache 缓存
+	 * @param file 快照文件
+	 * @param keySerializer 键的序列化器
+	 * @param valueSerializer 值的序列化器
+	 * @return 保存的对象数
+	 * @throws IOException 写入失败
+	 */
+	public static <K, V> int save(Cache<K, V> cache, File file, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		final File temp = new File(file.getPath() + ".tmp");
+		int count = 0;
+		boolean saved = false;
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+		try {
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(System.currentTimeMillis());
+				// 已写入的字节数，包括结束标记
+				long size = FILE_HEADER + 4;
+				// 过期时间按缓存的时钟计算，文件中保存剩余存活时长
+				final long now = CacheObj.tickerOf(cache).currentTimeMillis();
+				final Iterator<CacheObj<K, V>> iterator = cache.cacheObjIterator();
+				while (null != iterator && iterator.hasNext()) {
+					final CacheObj<K, V> co = iterator.next();
+					final long expireTime = co.getExpireTime();
+					if (expireTime > 0 && expireTime <= now) {
+						continue;
+					}
+					final byte[] keyBytes = keySerializer.serialize(co.key);
+					final byte[] valueBytes = valueSerializer.serialize(co.obj);
+					size += RECORD_HEADER + keyBytes.length + valueBytes.length;
+					if (size > Integer.MAX_VALUE) {
+						throw new IOException("Snapshot exceeds 2GB: " + file);
+					}
+					out.writeInt(keyBytes.length);
+					out.writeInt(valueBytes.length);
+					out.writeLong(co.getTtl());
+					out.writeLong((expireTime > 0) ? expireTime - now : 0);
+					out.writeLong(co.getLastAccess());
+					out.writeLong(co.getAccessCount());
+					out.write(keyBytes);
+					out.write(valueBytes);
+					count++;
+				}
+				out.writeInt(END);
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			saved = true;
+		} finally {
+			if (!saved) {
+				// 写入失败不留下不完整的临时文件
+				temp.delete();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 加载使用JDK序列化保存的快照，在{@link ForkJoinPool#commonPool()}中并行反序列化
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 * @param cache 缓存，应在开始服务之前加载
+	 * @param file 快照文件
+	 * @return 加载的对象数
+	 * @throws IOException 读取失败或文件格式错误
+	 */
+	public static <K, V> int load(Cache<K, V> cache, File file) throws IOException {
+		return load(cache, file, new JdkSerializer<K>(), new JdkSerializer<V>());
+	}
+
+	/**
+	 * 加载快照，在{@link ForkJoinPool#commonPool()}中并行反序列化
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 * @param cache 缓存，应在开始服务之前加载
+	 * @param file 快照文件
+	 * @param keySerializer 键的序列化器
+	 * @param valueSerializer 值的序列化器
+	 * @return 加载的对象数
+	 * @throws IOException 读取失败或文件格式错误
+	 */
+	public static <K, V> int load(Cache<K, V> cache, File file, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		return load(cache, file, keySerializer, valueSerializer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 加载快照
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 * @param cache 缓存，应在开始服务之前加载
+	 * @param file 快照文件
+	 * @param keySerializer 键的序列化器
+	 * @param valueSerializer 值的序列化器
+	 * @param executor 执行反序列化的执行器
+	 * @return 加载的对象数
+	 * @throws IOException 读取失败或文件格式错误
+	 */
+	public static <K, V> int load(Cache<K, V> cache, File file, final Serializer<K> keySerializer,
+			final Serializer<V> valueSerializer, Executor executor) throws IOException {
+		final MappedByteBuffer buffer;
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot exceeds 2GB: " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			raf.close();
+		}
+		if (buffer.limit() < FILE_HEADER || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a cache snapshot: " + file);
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ": " + file);
+		}
+		final long elapsed = Math.max(0, System.currentTimeMillis() - buffer.getLong(8));
+
+		// 顺序扫描记录边界
+		final int[] offsets = scan(buffer, file);
+		final int count = offsets.length;
+
+		// 并行反序列化
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Record<K, V>[] records = new Record[count];
+		final int tasks = Math.max(1,
+				Math.min(Runtime.getRuntime().availableProcessors(), count / MIN_RECORDS_PER_TASK));
+		final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>(tasks);
+		for (int t = 0; t < tasks; t++) {
+			final int from = (int) ((long) count * t / tasks);
+			final int to = (int) ((long) count * (t + 1) / tasks);
+			futures.add(CompletableFuture.runAsync(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = from; i < to; i++) {
+						records[i] = decode(buffer, offsets[i], keySerializer, valueSerializer);
+					}
+				}
+			}, executor));
+		}
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+		} catch (CompletionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+
+		// 按最后访问时间从旧到新放入，排序是稳定的，相同时间保持保存时的顺序
+		Arrays.sort(records, new Comparator<Record<K, V>>() {
+			@Override
+			public int compare(Record<K, V> o1, Record<K, V> o2) {
+				return Long.compare(o1.lastAccess, o2.lastAccess);
+			}
+		});
+		int loaded = 0;
+		for (Record<K, V> record : records) {
+			if (restore(cache, record, elapsed)) {
+				loaded++;
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * 扫描记录边界
+	 *
+	 * @return 每条记录的起始位置
+	 */
+	private static int[] scan(MappedByteBuffer buffer, File file) throws IOException {
+		int[] offsets = new int[1024];
+		int count = 0;
+		int offset = FILE_HEADER;
+		while (true) {
+			if (offset + 4 > buffer.limit()) {
+				throw new IOException("Truncated snapshot: " + file);
+			}
+			final int keyLength = buffer.getInt(offset);
+			if (keyLength == END) {
+				break;
+			}
+			if (offset + RECORD_HEADER > buffer.limit()) {
+				throw new IOException("Truncated snapshot: " + file);
+			}
+			final long next = (long) offset + RECORD_HEADER + keyLength + buffer.getInt(offset + 4);
+			if (keyLength < 0 || next > buffer.limit()) {
+				throw new IOException("Corrupted snapshot at " + offset + ": " + file);
+			}
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = offset;
+			offset = (int) next;
+		}
+		return Arrays.copyOf(offsets, count);
+	}
+
+	private static <K, V> Record<K, V> decode(MappedByteBuffer buffer, int offset, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) {
+		final ByteBuffer in = buffer.duplicate();
+		in.position(offset);
+		final byte[] keyBytes = new byte[in.getInt()];
+		final byte[] valueBytes = new byte[in.getInt()];
+		final long ttl = in.getLong();
+		final long remaining = in.getLong();
+		final long lastAccess = in.getLong();
+		final long accessCount = in.getLong();
+		in.get(keyBytes);
+		in.get(valueBytes);
+		return new Record<K, V>(keySerializer.deserialize(keyBytes), valueSerializer.deserialize(valueBytes), ttl,
+				remaining, lastAccess, accessCount);
+	}
+
+	/**
+	 * 放入一条记录，在缓存的锁内恢复剩余存活时长和访问次数
+	 *
+	 * @return 是否放入，已过期或缓存中已有未过期对象的不放入
+	 */
+	private static <K, V> boolean restore(Cache<K, V> cache, Record<K, V> record, long elapsed) {
+		long remaining = record.remaining;
+		if (remaining > 0) {
+			remaining -= elapsed;
+			if (remaining <= 0) {
+				return false;
+			}
+		}
+		final long expireTime = (remaining > 0) ? CacheObj.tickerOf(cache).currentTimeMillis() + remaining : 0;
+		return CacheObj.restoreIfAbsent(cache, record.key, record.obj, record.ttl, expireTime, record.accessCount);
+	}
+
+	/**
+	 * 解码后的记录
+	 */
+	private static final class Record<K, V> {
+		final K key;
+		final V obj;
+		final long ttl;
+		/** 保存时的剩余存活时长，0表示永久存活 */
+		final long remaining;
+		final long lastAccess;
+		final long accessCount;
+
+		Record(K key, V obj, long ttl, long remaining, long lastAccess, long accessCount) {
+			this.key = key;
+			this.obj = obj;
+			this.ttl = ttl;
+			this.remaining = remaining;
+			this.lastAccess = lastAccess;
+			this.accessCount = accessCount;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import me.asu.util.NamedThreadFactory;
+
+/**
+ * 共享的清理调度器<br>
+ * 所有注册的缓存共用一个守护线程按各自的间隔执行清理，过期通知由一个共享的有界线程池执行，
+ * 创建大量缓存实例时不再为每个实例创建线程和关闭钩子。<br>
+ * 调度器弱引用注册的缓存，缓存不可达后其清理任务在下次执行时自动取消。<br>
+ * 通知线程池的线程数不超过CPU核数，空闲时全部退出；执行和等待执行的通知数有上限，
+ * 达到上限时{@link #tryDispatch(Runnable)}立即返回<code>false</code>，由缓存把到期对象留到下次清理时再处理。
+ * 调度线程既不执行通知也不等待，处理器再慢也只推迟通知，不影响其它缓存的清理；
+ * 大量对象同时过期时既不丢弃通知也不创建更多线程。<br>
+ * 所有缓存默认共享{@link #getDefault()}。
+ *
+ * @author Suk
+ */
+public final class CleanupScheduler {
+
+	/** 默认的通知队列容量 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private final ScheduledThreadPoolExecutor timer;
+	private final ThreadPoolExecutor dispatcher;
+	/** 通知线程池中执行和排队的任务数上限 */
+	private final Semaphore permits;
+
+	/**
+	 * 构造，线程在需要时才创建
+	 *
+	 * @param dispatchThreads 执行过期通知的最大线程数
+	 * @param queueCapacity 等待执行的通知任务数上限
+	 */
+	public CleanupScheduler(int dispatchThreads, int queueCapacity) {
+		if (dispatchThreads <= 0) {
+			throw new IllegalArgumentException("dispatchThreads must be positive: " + dispatchThreads);
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+		}
+		this.timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("cache-cleanup-scheduler", true));
+		this.timer.setRemoveOnCancelPolicy(true);
+		// 队列的容量由permits限制
+		this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("cache-timeout-dispatcher", true));
+		this.dispatcher.allowCoreThreadTimeOut(true);
+		this.permits = new Semaphore(dispatchThreads + queueCapacity);
+	}
+
+	/**
+	 * @return 所有缓存默认使用的共享调度器
+	 */
+	public static CleanupScheduler getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * 按固定间隔执行清理，调度器只弱引用<code>owner</code><br>
+	 * <code>cleanup</code>不能引用<code>owner</code>（包括匿名类隐式引用的外部对象），否则缓存永远不会被回收
+	 *
+	 * @param <T> 缓存类型
+	 * @param owner 被清理的缓存
+	 * @param interval 清理间隔，单位毫秒
+	 * @param cleanup 清理动作，抛出的异常被忽略，不影响之后的清理
+	 * @return 用于取消清理的句柄
+	 */
+	public <T> ScheduledFuture<?> schedule(T owner, long interval, Cleanup<? super T> cleanup) {
+		if (owner == null || cleanup == null) {
+			throw new IllegalArgumentException("owner and cleanup must not be null");
+		}
+		if (interval <= 0) {
+			throw new IllegalArgumentException("interval must be positive: " + interval);
+		}
+		return timer.scheduleWithFixedDelay(new CleanupTask<T>(owner, cleanup), interval, interval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 在共享线程池中执行过期通知，不会阻塞，也不会在提交的线程中执行
+	 *
+	 * @param command 通知任务
+	 * @return 是否已提交，执行和等待执行的通知数达到上限或调度器已停止时返回<code>false</code>，调用者稍后重试
+	 */
+	public boolean tryDispatch(final Runnable command) {
+		if (false == permits.tryAcquire()) {
+			return false;
+		}
+		try {
+			dispatcher.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						command.run();
+					} finally {
+						permits.release();
+					}
+				}
+			});
+			return true;
+		} catch (RuntimeException e) {
+			// 调度器已停止
+			permits.release();
+			return false;
+		}
+	}
+
+	/**
+	 * @return 注册中的清理任务数
+	 */
+	public int size() {
+		return timer.getQueue().size();
+	}
+
+	/**
+	 * 停止调度线程和通知线程池，未执行的通知被丢弃。共享的默认调度器不能停止
+	 */
+	public void shutdown() {
+		if (this == DefaultHolder.INSTANCE) {
+			throw new IllegalStateException("The default scheduler can not be shut down");
+		}
+		timer.shutdownNow();
+		dispatcher.shutdownNow();
+	}
+
+	/**
+	 * 清理动作
+	 *
+	 * @param <T> 缓存类型
+	 */
+	public interface Cleanup<T> {
+
+		/**
+		 * 清理缓存
+		 *
+		 * @param owner 被清理的缓存
+		 */
+		void cleanup(T owner);
+	}
+
+	/**
+	 * 弱引用缓存的清理任务
+	 */
+	private static final class CleanupTask<T> implements Runnable {
+		private final WeakReference<T> owner;
+		private final Cleanup<? super T> cleanup;
+
+		CleanupTask(T owner, Cleanup<? super T> cleanup) {
+			this.owner = new WeakReference<T>(owner);
+			this.cleanup = cleanup;
+		}
+
+		@Override
+		public void run() {
+			final T target = owner.get();
+			if (target == null) {
+				// 缓存已被回收，周期任务抛出异常后不再执行
+				throw new CancellationException("owner has been collected");
+			}
+			try {
+				cleanup.cleanup(target);
+			} catch (RuntimeException e) {
+				// 周期任务抛出异常后不再执行，忽略以保证之后的清理
+			}
+		}
+	}
+
+	private static final class DefaultHolder {
+		static final CleanupScheduler INSTANCE = new CleanupScheduler(Runtime.getRuntime().availableProcessors(),
+				DEFAULT_QUEUE_CAPACITY);
+	}
+}
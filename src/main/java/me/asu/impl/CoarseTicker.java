@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import me.asu.Ticker;
+
+/**
+ * 粗粒度时钟<br>
+ * 由一个守护线程每隔固定时间把{@link System#currentTimeMillis()}写入volatile变量，读取时间只是一次volatile读，
+ * 缓存的读写路径上不再有系统调用。读到的时间最多落后一个更新间隔，对于以毫秒到小时计的存活时长可以忽略。<br>
+ * 所有缓存默认共享{@link #getDefault()}，整个进程只有一个更新线程。
+ *
+ * @author Suk
+ */
+public final class CoarseTicker implements Ticker {
+
+	/** 默认更新间隔，单位毫秒 */
+	public static final long DEFAULT_RESOLUTION = 2;
+
+	private final long resolution;
+	private volatile long now = System.currentTimeMillis();
+	private volatile boolean running = true;
+
+	/**
+	 * 构造并启动更新线程
+	 *
+	 * @param resolution 更新间隔，单位毫秒
+	 */
+	public CoarseTicker(long resolution) {
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("resolution must be positive: " + resolution);
+		}
+		this.resolution = resolution;
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					now = System.currentTimeMillis();
+					try {
+						Thread.sleep(CoarseTicker.this.resolution);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "cache-coarse-ticker");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * @return 所有缓存默认使用的共享时钟，第一次调用时启动更新线程
+	 */
+	public static CoarseTicker getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	@Override
+	public long currentTimeMillis() {
+		return now;
+	}
+
+	/**
+	 * @return 更新间隔，单位毫秒
+	 */
+	public long getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * 停止更新线程，之后读到的时间不再变化。共享的默认时钟不能停止
+	 */
+	public void shutdown() {
+		if (this == DefaultHolder.INSTANCE) {
+			throw new IllegalStateException("The default ticker can not be shut down");
+		}
+		running = false;
+	}
+
+	private static final class DefaultHolder {
+		static final CoarseTicker INSTANCE = new CoarseTicker(DEFAULT_RESOLUTION);
+	}
+}
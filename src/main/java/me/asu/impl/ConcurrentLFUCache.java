@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+import me.asu.Expiry;
+
+/**
+ * 并发LFU(least frequently used) 最少使用率缓存<br>
+ * 使用按频率排序的频率桶链表，每个桶中是访问次数相同的对象（按加入顺序），
+ * 访问、加入、淘汰都只需移动一个节点，时间复杂度为O(1)，与缓存对象数无关。<br>
+ * 与{@link LFUCache}不同，淘汰时不需要遍历全部对象查找最小访问数，也不需要将所有对象的访问数减去最小值。<br>
+ * 可选的频率衰减：每累计一定访问次数，所有频率减半，使历史热点可以逐渐被新热点替换，
+ * 衰减时合并的桶整体接到前一个桶的尾部，对象通过桶引用间接找到所在的桶，不需要逐个修改，
+ * 一次衰减为O(桶数)，在<code>evictionLock</code>内的停顿与缓存对象数无关。<br>
+ * 读操作不加锁，策略维护在{@link AbstractConcurrentCache}中批量执行。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ConcurrentLFUCache<K, V> extends AbstractConcurrentCache<K, V> {
+
+	/** 频率桶链表的哨兵，<code>head.next</code>为频率最低的桶，受<code>evictionLock</code>保护 */
+	private final FrequencyBucket<K, V> head = new FrequencyBucket<K, V>(0);
+	/** 频率衰减周期（访问次数），<code>0</code>表示不衰减 */
+	private final long decayPeriod;
+	/** 上次衰减后的访问次数，受<code>evictionLock</code>保护 */
+	private long accessesSinceDecay;
+
+	/**
+	 * 构造，不衰减，默认对象不过期
+	 *
+	 * @param capacity 容量
+	 */
+	public ConcurrentLFUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造，不衰减
+	 *
+	 * @param capacity 容量
+	 * @param timeout 过期时长
+	 */
+	public ConcurrentLFUCache(int capacity, long timeout) {
+		this(capacity, timeout, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量，<code>0</code>表示无大小限制
+	 * @param timeout 过期时长
+	 * @param decayPeriod 频率衰减周期，每累计这么多次访问所有频率减半，<code>0</code>表示不衰减，建议不小于容量
+	 */
+	public ConcurrentLFUCache(int capacity, long timeout, long decayPeriod) {
+		this(capacity, timeout, null, decayPeriod);
+	}
+
+	/**
+	 * 构造，过期时间由过期策略计算
+	 *
+	 * @param capacity 容量，<code>0</code>表示无大小限制
+	 * @param expiry 过期策略
+	 * @param decayPeriod 频率衰减周期，每累计这么多次访问所有频率减半，<code>0</code>表示不衰减，建议不小于容量
+	 */
+	public ConcurrentLFUCache(int capacity, Expiry<K, V> expiry, long decayPeriod) {
+		this(capacity, 0, expiry, decayPeriod);
+	}
+
+	private ConcurrentLFUCache(int capacity, long timeout, Expiry<K, V> expiry, long decayPeriod) {
+		super(capacity, timeout, expiry);
+		if (decayPeriod < 0) {
+			throw new IllegalArgumentException("decayPeriod must not be negative: " + decayPeriod);
+		}
+		this.decayPeriod = decayPeriod;
+		head.prev = head;
+		head.next = head;
+	}
+
+	@Override
+	void onAdd(Node<K, V> node) {
+		FrequencyBucket<K, V> first = head.next;
+		if (first == head || first.frequency != 1) {
+			first = insertAfter(head, 1);
+		}
+		first.nodes.linkLast(node);
+		node.owner = first.ref;
+	}
+
+	@Override
+	void onAccess(Node<K, V> node) {
+		final FrequencyBucket<K, V> bucket = bucketOf(node);
+		FrequencyBucket<K, V> next = bucket.next;
+		if (next == head || next.frequency != bucket.frequency + 1) {
+			next = insertAfter(bucket, bucket.frequency + 1);
+		}
+		bucket.nodes.unlink(node);
+		next.nodes.linkLast(node);
+		node.owner = next.ref;
+		if (bucket.nodes.isEmpty()) {
+			unlinkBucket(bucket);
+		}
+
+		if (decayPeriod > 0 && ++accessesSinceDecay >= decayPeriod) {
+			decay();
+		}
+	}
+
+	@Override
+	void onRemoval(Node<K, V> node) {
+		final FrequencyBucket<K, V> bucket = bucketOf(node);
+		bucket.nodes.unlink(node);
+		node.owner = null;
+		if (bucket.nodes.isEmpty()) {
+			unlinkBucket(bucket);
+		}
+	}
+
+	/**
+	 * 淘汰频率最低的桶中最先加入的对象
+	 */
+	@Override
+	void evictOverflow() {
+		while (residentSize > capacity && head.next != head) {
+			evictEntry(head.next.nodes.peekFirst());
+		}
+	}
+
+	/**
+	 * 对象所在的桶，沿合并后的桶引用查找并压缩路径
+	 */
+	@SuppressWarnings("unchecked")
+	private FrequencyBucket<K, V> bucketOf(Node<K, V> node) {
+		final BucketRef<K, V> ref = (BucketRef<K, V>) node.owner;
+		if (null != ref.bucket) {
+			return ref.bucket;
+		}
+		BucketRef<K, V> root = ref.merged;
+		while (null == root.bucket) {
+			root = root.merged;
+		}
+		BucketRef<K, V> current = ref;
+		while (current != root) {
+			final BucketRef<K, V> next = current.merged;
+			current.merged = root;
+			current = next;
+		}
+		node.owner = root;
+		return root.bucket;
+	}
+
+	/**
+	 * 所有频率减半（至少为1），减半后频率相同的相邻桶合并，只处理桶，不逐个移动对象
+	 */
+	private void decay() {
+		accessesSinceDecay = 0;
+		FrequencyBucket<K, V> bucket = head.next;
+		while (bucket != head) {
+			final FrequencyBucket<K, V> next = bucket.next;
+			bucket.frequency = Math.max(1, bucket.frequency >>> 1);
+			final FrequencyBucket<K, V> prev = bucket.prev;
+			if (prev != head && prev.frequency == bucket.frequency) {
+				// 合并到前一个桶，本桶的对象频率较高，整个链表接在尾部
+				prev.nodes.linkAllLast(bucket.nodes);
+				bucket.ref.bucket = null;
+				bucket.ref.merged = prev.ref;
+				unlinkBucket(bucket);
+			}
+			bucket = next;
+		}
+	}
+
+	private FrequencyBucket<K, V> insertAfter(FrequencyBucket<K, V> prev, long frequency) {
+		final FrequencyBucket<K, V> bucket = new FrequencyBucket<K, V>(frequency);
+		bucket.prev = prev;
+		bucket.next = prev.next;
+		prev.next.prev = bucket;
+		prev.next = bucket;
+		return bucket;
+	}
+
+	private void unlinkBucket(FrequencyBucket<K, V> bucket) {
+		bucket.prev.next = bucket.next;
+		bucket.next.prev = bucket.prev;
+		bucket.prev = null;
+		bucket.next = null;
+	}
+
+	/**
+	 * 频率桶，保存访问次数相同的对象
+	 */
+	static final class FrequencyBucket<K, V> {
+		long frequency;
+		final NodeDeque<K, V> nodes = new NodeDeque<K, V>();
+		/** 本桶中的对象通过此引用找到本桶 */
+		final BucketRef<K, V> ref = new BucketRef<K, V>(this);
+		FrequencyBucket<K, V> prev;
+		FrequencyBucket<K, V> next;
+
+		FrequencyBucket(long frequency) {
+			this.frequency = frequency;
+		}
+	}
+
+	/**
+	 * 对象到频率桶的间接引用，桶被合并后改为指向合并到的桶的引用
+	 */
+	static final class BucketRef<K, V> {
+		/** 所指的桶，桶被合并后为<code>null</code> */
+		FrequencyBucket<K, V> bucket;
+		/** 桶被合并后指向合并到的桶的引用 */
+		BucketRef<K, V> merged;
+
+		BucketRef(FrequencyBucket<K, V> bucket) {
+			this.bucket = bucket;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+import me.asu.Expiry;
+
+/**
+ * 并发LRU (least recently used)缓存<br>
+ * 与{@link LRUCache}语义相同，但读操作不加锁，访问顺序的调整在{@link AbstractConcurrentCache}中批量执行，
+ * 因此读操作可以随CPU核数近似线性扩展，访问顺序只是延迟（或少量丢失）更新。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ConcurrentLRUCache<K, V> extends AbstractConcurrentCache<K, V> {
+
+	/** 访问顺序链表，首部为最久未使用的对象，受<code>evictionLock</code>保护 */
+	private final NodeDeque<K, V> accessOrder = new NodeDeque<K, V>();
+
+	/**
+	 * 构造<br>
+	 * 默认无超时
+	 * @param capacity 容量
+	 */
+	public ConcurrentLRUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 * @param capacity 容量，<code>0</code>表示无大小限制
+	 * @param timeout 默认超时时间，单位：毫秒
+	 */
+	public ConcurrentLRUCache(int capacity, long timeout) {
+		super(capacity, timeout);
+	}
+
+	/**
+	 * 构造，过期时间由过期策略计算
+	 * @param capacity 容量，<code>0</code>表示无大小限制
+	 * @param expiry 过期策略
+	 */
+	public ConcurrentLRUCache(int capacity, Expiry<K, V> expiry) {
+		super(capacity, 0, expiry);
+	}
+
+	@Override
+	void onAdd(Node<K, V> node) {
+		accessOrder.linkLast(node);
+	}
+
+	@Override
+	void onAccess(Node<K, V> node) {
+		accessOrder.moveToBack(node);
+	}
+
+	@Override
+	void onRemoval(Node<K, V> node) {
+		accessOrder.unlink(node);
+	}
+
+	/**
+	 * 淘汰最久未使用的对象
+	 */
+	@Override
+	void evictOverflow() {
+		Node<K, V> victim;
+		while (residentSize > capacity && (victim = accessOrder.peekFirst()) != null) {
+			evictEntry(victim);
+		}
+	}
+}
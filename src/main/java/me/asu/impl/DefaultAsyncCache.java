@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import me.asu.AsyncCache;
+import me.asu.AsyncCacheLoader;
+import me.asu.Cache;
+import me.asu.CacheLoader;
+
+/**
+ * 异步缓存的默认实现，结果保存在任意{@link Cache}中<br>
+ * 未命中时先放入尚未完成的结果，再启动加载，加载完成前的并发请求直接得到这个结果。
+ * 两个线程同时未命中时，通过一个只在放入期间登记的映射保证只有一个线程启动加载。<br>
+ * 结果异常完成或以<code>null</code>完成时，如果缓存中仍是这个结果则将其移除。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class DefaultAsyncCache<K, V> implements AsyncCache<K, V> {
+
+	/** 保存结果的缓存 */
+	protected final Cache<K, CompletableFuture<V>> cache;
+	/** 执行加载的执行器 */
+	protected final Executor executor;
+	/** 正在放入缓存的结果 */
+	private final ConcurrentHashMap<K, CompletableFuture<V>> pending = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+	/**
+	 * 构造，在{@link ForkJoinPool#commonPool()}中加载
+	 *
+	 * @param cache 保存结果的缓存
+	 */
+	public DefaultAsyncCache(Cache<K, CompletableFuture<V>> cache) {
+		this(cache, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param cache 保存结果的缓存
+	 * @param executor 执行加载的执行器
+	 */
+	public DefaultAsyncCache(Cache<K, CompletableFuture<V>> cache, Executor executor) {
+		if (null == cache) {
+			throw new IllegalArgumentException("cache must not be null");
+		}
+		if (null == executor) {
+			throw new IllegalArgumentException("executor must not be null");
+		}
+		this.cache = cache;
+		this.executor = executor;
+	}
+
+	@Override
+	public CompletableFuture<V> getAsync(K key, AsyncCacheLoader<? super K, ? extends V> loader) {
+		CompletableFuture<V> future = cache.get(key);
+		if (null != future) {
+			return future;
+		}
+
+		final CompletableFuture<V> created = new CompletableFuture<V>();
+		future = pending.putIfAbsent(key, created);
+		if (null != future) {
+			return future;
+		}
+		try {
+			// 登记之前其它线程可能刚放入缓存并撤销登记
+			future = cache.get(key, false);
+			if (null != future) {
+				return future;
+			}
+			cache.put(key, created);
+		} finally {
+			pending.remove(key, created);
+		}
+		removeOnFailure(key, created);
+
+		CompletableFuture<? extends V> source;
+		try {
+			source = loader.asyncLoad(key, executor);
+		} catch (Throwable e) {
+			created.completeExceptionally(e);
+			return created;
+		}
+		if (null == source) {
+			created.complete(null);
+			return created;
+		}
+		source.whenComplete(new BiConsumer<V, Throwable>() {
+			@Override
+			public void accept(V value, Throwable error) {
+				if (null != error) {
+					created.completeExceptionally(error);
+				} else {
+					created.complete(value);
+				}
+			}
+		});
+		return created;
+	}
+
+	@Override
+	public CompletableFuture<V> getAsync(K key, final CacheLoader<? super K, ? extends V> loader) {
+		return getAsync(key, new AsyncCacheLoader<K, V>() {
+			@Override
+			public CompletableFuture<V> asyncLoad(final K key, Executor executor) {
+				final CompletableFuture<V> future = new CompletableFuture<V>();
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							future.complete(loader.load(key));
+						} catch (Throwable e) {
+							future.completeExceptionally(e);
+						}
+					}
+				});
+				return future;
+			}
+		});
+	}
+
+	@Override
+	public CompletableFuture<V> getIfPresent(K key) {
+		return cache.get(key);
+	}
+
+	@Override
+	public void put(K key, CompletableFuture<V> future) {
+		if (null == future) {
+			throw new IllegalArgumentException("future must not be null");
+		}
+		cache.put(key, future);
+		removeOnFailure(key, future);
+	}
+
+	@Override
+	public void put(K key, V value) {
+		put(key, CompletableFuture.completedFuture(value));
+	}
+
+	@Override
+	public void remove(K key) {
+		cache.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		cache.clear();
+	}
+
+	@Override
+	public int size() {
+		return cache.size();
+	}
+
+	@Override
+	public Cache<K, CompletableFuture<V>> cache() {
+		return cache;
+	}
+
+	/**
+	 * 结果异常完成或以<code>null</code>完成时，如果缓存中仍是这个结果则移除，检查和移除在缓存的锁内完成
+	 *
+	 * @param key 键
+	 * @param future 结果
+	 */
+	private void removeOnFailure(final K key, final CompletableFuture<V> future) {
+		future.whenComplete(new BiConsumer<V, Throwable>() {
+			@Override
+			public void accept(V value, Throwable error) {
+				if (null != error || null == value) {
+					CacheObj.removeIfSame(cache, key, future);
+				}
+			}
+		});
+	}
+
+	@Override
+	public String toString() {
+		return cache.toString();
+	}
+}
@@ -0,0 +1,563 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import me.asu.Cache;
+import me.asu.CacheLoadException;
+import me.asu.CacheStats;
+import me.asu.CacheLoader;
+import me.asu.LoadingCache;
+
+/**
+ * 可加载缓存的默认实现，包装任意{@link Cache}<br>
+ * 正在进行的加载以{@link CompletableFuture}登记在单独的映射中：第一个未命中的线程执行加载，
+ * 同一个键的其它未命中线程等待同一个结果，加载完成后先放入缓存再撤销登记。
+ * 批量获取时，由本线程登记的全部未命中键通过一次{@link CacheLoader#loadAll(Set)}加载，
+ * 其它线程正在加载的键等待其结果。加载器中获取本线程正在加载的键会抛出{@link IllegalStateException}，而不是永远等待。
+ * 加载在被包装缓存的锁之外执行，被包装缓存只在读取和放入时短暂加锁。<br>
+ * 设置了写入后刷新时间时，通过加载方法读到写入时间超过刷新时间（但尚未过期）的对象，
+ * 立即返回当前值，并在执行器中重新加载一次，加载成功后替换缓存中的对象。
+ * 热点对象因此在过期前被刷新，读取者不需要等待加载。刷新只支持本包中的缓存实现。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class DefaultLoadingCache<K, V> implements LoadingCache<K, V> {
+
+	/** 被包装的缓存 */
+	protected final Cache<K, V> cache;
+	/** 默认加载器 */
+	protected final CacheLoader<? super K, ? extends V> loader;
+	/** 写入后刷新时间，单位毫秒，<code>0</code>表示不刷新 */
+	protected final long refreshAfterWrite;
+	/** 执行刷新的执行器 */
+	protected final Executor executor;
+	/** 正在进行的加载 */
+	private final ConcurrentHashMap<K, InFlight<V>> loading = new ConcurrentHashMap<K, InFlight<V>>();
+	/** 正在刷新的对象 */
+	private final ConcurrentHashMap<K, CacheObj<K, V>> refreshing = new ConcurrentHashMap<K, CacheObj<K, V>>();
+	/** 加载的统计，命中等其它统计由被包装的缓存记录 */
+	private final StatsCounter loadStats = new StatsCounter();
+
+	/**
+	 * 构造，无默认加载器
+	 *
+	 * @param cache 被包装的缓存
+	 */
+	public DefaultLoadingCache(Cache<K, V> cache) {
+		this(cache, null);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param cache 被包装的缓存
+	 * @param loader 默认加载器，{@link #getOrLoad(Object)}使用
+	 */
+	public DefaultLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> loader) {
+		this(cache, loader, 0, null);
+	}
+
+	/**
+	 * 构造，在{@link ForkJoinPool#commonPool()}中刷新
+	 *
+	 * @param cache 被包装的缓存，必须是本包中的缓存实现
+	 * @param loader 默认加载器，{@link #getOrLoad(Object)}使用
+	 * @param refreshAfterWrite 写入后刷新时间，单位毫秒，<code>0</code>表示不刷新
+	 */
+	public DefaultLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> loader, long refreshAfterWrite) {
+		this(cache, loader, refreshAfterWrite, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param cache 被包装的缓存，设置刷新时必须是本包中的缓存实现
+	 * @param loader 默认加载器，{@link #getOrLoad(Object)}使用
+	 * @param refreshAfterWrite 写入后刷新时间，单位毫秒，<code>0</code>表示不刷新
+	 * @param executor 执行刷新的执行器，不刷新时可以为<code>null</code>
+	 */
+	public DefaultLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> loader, long refreshAfterWrite,
+			Executor executor) {
+		if (null == cache) {
+			throw new IllegalArgumentException("cache must not be null");
+		}
+		if (refreshAfterWrite < 0) {
+			throw new IllegalArgumentException("refreshAfterWrite must not be negative: " + refreshAfterWrite);
+		}
+		if (refreshAfterWrite > 0) {
+			if (null == executor) {
+				throw new IllegalArgumentException("executor must not be null when refreshAfterWrite is set");
+			}
+			if (!CacheObj.isPeekable(cache)) {
+				throw new IllegalArgumentException("refreshAfterWrite is not supported by " + cache.getClass().getName());
+			}
+		}
+		this.cache = cache;
+		this.loader = loader;
+		this.refreshAfterWrite = refreshAfterWrite;
+		this.executor = executor;
+	}
+
+	// ---------------------------------------------------------------- load start
+	@Override
+	public V getOrLoad(K key) {
+		if (null == loader) {
+			throw new IllegalStateException("No CacheLoader attached to this cache.");
+		}
+		return get(key, loader);
+	}
+
+	@Override
+	public V get(K key, CacheLoader<? super K, ? extends V> loader) {
+		V value = cache.get(key);
+		if (null != value) {
+			if (refreshAfterWrite > 0) {
+				refreshIfNeeded(key, loader);
+			}
+			return value;
+		}
+
+		InFlight<V> future = loading.get(key);
+		if (null == future) {
+			final InFlight<V> created = new InFlight<V>();
+			future = loading.putIfAbsent(key, created);
+			if (null == future) {
+				future = created;
+				try {
+					// 在当前线程中执行加载
+					created.complete(load(key, loader));
+				} catch (Throwable e) {
+					created.completeExceptionally(e);
+				} finally {
+					loading.remove(key, created);
+				}
+				return await(key, future);
+			}
+		}
+		if (future.owner == Thread.currentThread()) {
+			// 加载器获取了正在加载的键，等待会永远阻塞
+			throw new IllegalStateException("Recursive load: " + key);
+		}
+		return await(key, future);
+	}
+
+	@Override
+	public Map<K, V> getAllOrLoad(Iterable<? extends K> keys) {
+		if (null == loader) {
+			throw new IllegalStateException("No CacheLoader attached to this cache.");
+		}
+		return getAll(keys, loader);
+	}
+
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys, CacheLoader<? super K, ? extends V> loader) {
+		// 键可能只能遍历一次
+		final List<K> keyList = new ArrayList<K>();
+		for (K key : keys) {
+			keyList.add(key);
+		}
+		final Map<K, V> found = cache.getAll(keyList);
+		if (refreshAfterWrite > 0) {
+			for (K key : found.keySet()) {
+				refreshIfNeeded(key, loader);
+			}
+		}
+
+		// 未命中的键：由本线程登记的一次批量加载，其它线程已登记的等待其结果
+		final Map<K, CompletableFuture<V>> waiting = new LinkedHashMap<K, CompletableFuture<V>>();
+		final Map<K, CompletableFuture<V>> owned = new LinkedHashMap<K, CompletableFuture<V>>();
+		for (K key : keyList) {
+			if (found.containsKey(key) || waiting.containsKey(key)) {
+				continue;
+			}
+			final InFlight<V> created = new InFlight<V>();
+			final InFlight<V> future = loading.putIfAbsent(key, created);
+			if (null == future) {
+				owned.put(key, created);
+				waiting.put(key, created);
+			} else if (future.owner == Thread.currentThread()) {
+				// 撤销本次的登记，等待这些键的其它线程得到同样的异常
+				final IllegalStateException e = new IllegalStateException("Recursive load: " + key);
+				for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+					loading.remove(entry.getKey(), entry.getValue());
+					entry.getValue().completeExceptionally(e);
+				}
+				throw e;
+			} else {
+				waiting.put(key, future);
+			}
+		}
+		if (waiting.isEmpty()) {
+			return found;
+		}
+		if (false == owned.isEmpty()) {
+			try {
+				loadAll(owned, loader);
+			} finally {
+				for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+					loading.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		final Map<K, V> result = new LinkedHashMap<K, V>();
+		for (K key : keyList) {
+			V value = found.get(key);
+			if (null == value) {
+				final CompletableFuture<V> future = waiting.get(key);
+				if (null != future) {
+					value = await(key, future);
+				}
+			}
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 加载对象并放入缓存
+	 *
+	 * @param key 键
+	 * @param loader 加载器
+	 * @return 加载的值
+	 * @throws Exception 加载器抛出的异常
+	 */
+	private V load(K key, CacheLoader<? super K, ? extends V> loader) throws Exception {
+		// 登记之前其它线程可能刚完成加载并撤销登记
+		V value = getQuietly(key);
+		if (null != value) {
+			return value;
+		}
+		final long start = System.nanoTime();
+		boolean success = false;
+		try {
+			value = loader.load(key);
+			success = null != value;
+		} finally {
+			recordLoad(success, System.nanoTime() - start);
+		}
+		if (null != value) {
+			cache.put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * 通过一次批量加载完成本线程登记的全部结果，加载的值整批放入缓存
+	 *
+	 * @param owned 本线程登记的键和结果
+	 * @param loader 加载器
+	 */
+	private void loadAll(Map<K, CompletableFuture<V>> owned, CacheLoader<? super K, ? extends V> loader) {
+		try {
+			// 登记之前其它线程可能刚完成加载并撤销登记
+			final Map<K, V> present = new LinkedHashMap<K, V>();
+			for (K key : owned.keySet()) {
+				final V value = getQuietly(key);
+				if (null != value) {
+					present.put(key, value);
+				}
+			}
+			final Map<K, V> loaded = new LinkedHashMap<K, V>();
+			final Set<K> missing = new LinkedHashSet<K>(owned.keySet());
+			missing.removeAll(present.keySet());
+			if (false == missing.isEmpty()) {
+				final long start = System.nanoTime();
+				boolean success = false;
+				final Map<?, ? extends V> values;
+				try {
+					values = loader.loadAll(missing);
+					success = true;
+				} finally {
+					recordLoad(success, System.nanoTime() - start);
+				}
+				for (K key : missing) {
+					final V value = (null == values) ? null : values.get(key);
+					if (null != value) {
+						loaded.put(key, value);
+					}
+				}
+				cache.putAll(loaded);
+			}
+			for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+				final V value = present.get(entry.getKey());
+				entry.getValue().complete((null != value) ? value : loaded.get(entry.getKey()));
+			}
+		} catch (Throwable e) {
+			for (CompletableFuture<V> future : owned.values()) {
+				future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * 加载前再次检查缓存，本包中的缓存实现不计入命中数和丢失数，避免一次未命中被统计两次
+	 *
+	 * @param key 键
+	 * @return 缓存中的值，不存在返回<code>null</code>
+	 */
+	private V getQuietly(K key) {
+		if (CacheObj.isPeekable(cache)) {
+			final CacheObj<K, V> co = CacheObj.peek(cache, key);
+			return (null == co) ? null : co.obj;
+		}
+		return cache.get(key, false);
+	}
+
+	/**
+	 * 记录一次加载，批量加载计为一次
+	 *
+	 * @param success 是否成功，加载器返回<code>null</code>计为失败
+	 * @param loadTime 加载耗时，单位纳秒
+	 */
+	private void recordLoad(boolean success, long loadTime) {
+		if (success) {
+			loadStats.recordLoadSuccess(loadTime);
+		} else {
+			loadStats.recordLoadFailure(loadTime);
+		}
+	}
+
+	/**
+	 * 等待加载结果，加载器的异常传递给调用者
+	 *
+	 * @param key 键
+	 * @param future 加载结果
+	 * @return 加载的值
+	 */
+	private V await(K key, CompletableFuture<V> future) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					// 加载仍在进行，等待完成后恢复中断状态
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CacheLoadException("Failed to load key: " + key, cause);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * 对象写入时间超过刷新时间时在执行器中刷新，同一个对象只刷新一次
+	 *
+	 * @param key 键
+	 * @param loader 加载器
+	 */
+	private void refreshIfNeeded(K key, CacheLoader<? super K, ? extends V> loader) {
+		final CacheObj<K, V> co = CacheObj.peek(cache, key);
+		if (null == co || CacheObj.tickerOf(cache).currentTimeMillis() - co.writeTime < refreshAfterWrite) {
+			return;
+		}
+		if (null != refreshing.putIfAbsent(key, co)) {
+			return;
+		}
+		try {
+			executor.execute(new RefreshTask(key, co, loader));
+		} catch (RuntimeException e) {
+			// 执行器拒绝时继续使用当前值，下次读取再尝试
+			refreshing.remove(key, co);
+		}
+	}
+
+	/**
+	 * 刷新任务，加载成功且对象未被替换时放入缓存；失败时保留当前值，过期后由读取者重新加载
+	 */
+	private class RefreshTask implements Runnable {
+		private final K key;
+		private final CacheObj<K, V> co;
+		private final CacheLoader<? super K, ? extends V> loader;
+
+		RefreshTask(K key, CacheObj<K, V> co, CacheLoader<? super K, ? extends V> loader) {
+			this.key = key;
+			this.co = co;
+			this.loader = loader;
+		}
+
+		@Override
+		public void run() {
+			final long start = System.nanoTime();
+			boolean success = false;
+			try {
+				final V value = loader.load(key);
+				success = null != value;
+				// 刷新期间对象被放入新值或移除时放弃结果
+				if (null != value) {
+					CacheObj.replaceIfSame(cache, key, co, value);
+				}
+			} catch (Exception e) {
+				// 保留当前值
+			} finally {
+				recordLoad(success, System.nanoTime() - start);
+				refreshing.remove(key, co);
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------- load end
+
+	// ---------------------------------------------------------------- delegate start
+	@Override
+	public int capacity() {
+		return cache.capacity();
+	}
+
+	@Override
+	public long timeout() {
+		return cache.timeout();
+	}
+
+	@Override
+	public void put(K key, V object) {
+		cache.put(key, object);
+	}
+
+	@Override
+	public void put(K key, V object, long timeout) {
+		cache.put(key, object, timeout);
+	}
+
+	@Override
+	public V get(K key) {
+		return cache.get(key);
+	}
+
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		return cache.get(key, isUpdateLastAccess);
+	}
+
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		return cache.getAll(keys);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		cache.putAll(map);
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return cache.iterator();
+	}
+
+	@Override
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		return cache.cacheObjIterator();
+	}
+
+	@Override
+	public int prune() {
+		return cache.prune();
+	}
+
+	@Override
+	public boolean isFull() {
+		return cache.isFull();
+	}
+
+	@Override
+	public void remove(K key) {
+		cache.remove(key);
+	}
+
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		cache.removeAll(keys);
+	}
+
+	@Override
+	public void clear() {
+		cache.clear();
+	}
+
+	@Override
+	public int size() {
+		return cache.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return cache.isEmpty();
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		return cache.containsKey(key);
+	}
+
+	/**
+	 * @return 被包装缓存的统计加上本缓存的加载统计
+	 */
+	@Override
+	public CacheStats stats() {
+		return cache.stats().plus(loadStats.snapshot());
+	}
+
+	@Override
+	public String toString() {
+		return cache.toString();
+	}
+	// ---------------------------------------------------------------- delegate end
+
+	/**
+	 * 正在进行的加载，记录执行加载的线程
+	 */
+	private static final class InFlight<V> extends CompletableFuture<V> {
+		final Thread owner = Thread.currentThread();
+	}
+}
@@ -0,0 +1,810 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import me.asu.Serializer;
+import me.asu.Ticker;
+
+/**
+ * 磁盘存储，作为内存缓存的二级存储<br>
+ * <ul>
+ * 		<li>对象序列化后追加写入内存映射的段文件，段写满后封存并创建新段</li>
+ * 		<li>索引保存在内存中，记录每个键最新记录所在的段和位置</li>
+ * 		<li>覆盖和移除只更新索引，段中失效的记录超过一半时在后台压缩：仍有效的记录复制到当前段，旧段删除</li>
+ * 		<li>段数达到上限时丢弃最旧的段及其中的对象</li>
+ * 		<li>删除段文件时立即解除映射，不必等缓冲区被回收才释放磁盘空间；JDK不支持时仍等回收</li>
+ * </ul>
+ * 这是缓存而不是持久化存储：每个存储在指定目录下创建自己的子目录，并在存储打开期间锁定其中的锁文件，关闭时删除子目录。
+ * 打开时只清理锁文件未被锁定（所属进程已退出）的存储子目录，并且只删除存储自己创建的文件，
+ * 因此多个存储和多个进程可以共用同一个目录。读操作共享读锁，读取的值在锁外反序列化。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class DiskStore<K, V> implements Closeable {
+
+	/** 默认段大小：64MB */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+	/** 段中有效记录低于此比例时压缩 */
+	static final double COMPACTION_THRESHOLD = 0.5d;
+	/** 段文件前缀 */
+	static final String SEGMENT_PREFIX = "segment-";
+	/** 段文件后缀 */
+	static final String SEGMENT_SUFFIX = ".seg";
+	/** 存储子目录前缀 */
+	static final String STORE_PREFIX = "diskstore-";
+	/** 锁文件名 */
+	static final String LOCK_FILE = "store.lock";
+	/** 记录头部：键长度、值长度、过期时间、存活时长 */
+	static final int RECORD_HEADER = 24;
+	/** JDK 9及以上解除映射的方法，不支持时为<code>null</code> */
+	private static final Method INVOKE_CLEANER;
+	private static final Object UNSAFE;
+
+	static {
+		Method invokeCleaner = null;
+		Object unsafe = null;
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+		} catch (Exception e) {
+			// JDK 8，使用缓冲区的cleaner
+			invokeCleaner = null;
+			unsafe = null;
+		}
+		INVOKE_CLEANER = invokeCleaner;
+		UNSAFE = unsafe;
+	}
+
+	/** 本存储独占的子目录 */
+	private final File directory;
+	private final RandomAccessFile lockFile;
+	private final FileLock fileLock;
+	private final int segmentSize;
+	private final int maxSegments;
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final Executor executor;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReadLock readLock = lock.readLock();
+	private final WriteLock writeLock = lock.writeLock();
+
+	/** 以下字段受写锁保护 */
+	private final Map<K, Location> index = new HashMap<K, Location>();
+	/** 所有段，最旧的在前 */
+	private final List<Segment> segments = new ArrayList<Segment>();
+	private Segment active;
+	private int nextSegmentId;
+	private boolean closed;
+	/** 时钟，与上层缓存相同时过期时间才有意义 */
+	private volatile Ticker ticker = CoarseTicker.getDefault();
+
+	/**
+	 * 构造，段大小为{@link #DEFAULT_SEGMENT_SIZE}，在{@link ForkJoinPool#commonPool()}中压缩
+	 *
+	 * @param directory 存储目录，不存在时创建，段文件放在其中本存储独占的子目录中
+	 * @param maxSize 最多占用的磁盘空间，单位字节
+	 * @param keySerializer 键的序列化器
+	 * @param valueSerializer 值的序列化器
+	 */
+	public DiskStore(File directory, long maxSize, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(directory, maxSize, DEFAULT_SEGMENT_SIZE, keySerializer, valueSerializer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param directory 存储目录，不存在时创建，段文件放在其中本存储独占的子目录中
+	 * @param maxSize 最多占用的磁盘空间，单位字节，至少为两个段
+	 * @param segmentSize 段大小，也是单个记录的最大大小
+	 * @param keySerializer 键的序列化器
+	 * @param valueSerializer 值的序列化器
+	 * @param executor 执行压缩的执行器
+	 * @throws UncheckedIOException 创建子目录或锁文件失败
+	 */
+	public DiskStore(File directory, long maxSize, int segmentSize, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer, Executor executor) {
+		if (segmentSize < RECORD_HEADER) {
+			throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+		}
+		if (null == keySerializer || null == valueSerializer || null == executor) {
+			throw new IllegalArgumentException("serializers and executor must not be null");
+		}
+		if (false == directory.isDirectory() && false == directory.mkdirs()) {
+			throw new IllegalArgumentException("Can not create directory: " + directory);
+		}
+		this.segmentSize = segmentSize;
+		this.maxSegments = (int) Math.min(Integer.MAX_VALUE, Math.max(2, maxSize / segmentSize));
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.executor = executor;
+
+		deleteAbandonedStores(directory);
+		RandomAccessFile raf = null;
+		File created = null;
+		try {
+			created = Files.createTempDirectory(directory.toPath(), STORE_PREFIX).toFile();
+			raf = new RandomAccessFile(new File(created, LOCK_FILE), "rw");
+			this.fileLock = raf.getChannel().lock();
+		} catch (IOException e) {
+			closeQuietly(raf);
+			if (null != created) {
+				new File(created, LOCK_FILE).delete();
+				created.delete();
+			}
+			throw new UncheckedIOException("Can not create store directory in: " + directory, e);
+		}
+		this.directory = created;
+		this.lockFile = raf;
+	}
+
+	/**
+	 * 删除锁文件未被锁定的存储子目录，只删除存储创建的段文件和锁文件
+	 *
+	 * @param directory 存储目录
+	 */
+	private static void deleteAbandonedStores(File directory) {
+		final File[] stores = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(STORE_PREFIX);
+			}
+		});
+		if (null == stores) {
+			return;
+		}
+		for (File store : stores) {
+			final File lock = new File(store, LOCK_FILE);
+			if (false == store.isDirectory() || false == lock.isFile()) {
+				continue;
+			}
+			RandomAccessFile raf = null;
+			try {
+				raf = new RandomAccessFile(lock, "rw");
+				final FileLock fileLock = raf.getChannel().tryLock();
+				if (null == fileLock) {
+					// 另一个进程中的存储仍在使用
+					continue;
+				}
+				try {
+					final File[] segments = store.listFiles(new FilenameFilter() {
+						@Override
+						public boolean accept(File dir, String name) {
+							return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+						}
+					});
+					if (null != segments) {
+						for (File segment : segments) {
+							segment.delete();
+						}
+					}
+				} finally {
+					fileLock.release();
+				}
+			} catch (OverlappingFileLockException e) {
+				// 本进程中的存储仍在使用
+				continue;
+			} catch (IOException e) {
+				continue;
+			} finally {
+				closeQuietly(raf);
+			}
+			lock.delete();
+			// 目录中还有其它文件时保留
+			store.delete();
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (null != closeable) {
+			try {
+				closeable.close();
+			} catch (IOException ignore) {
+				// 忽略
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------- put start
+	/**
+	 * 写入对象，覆盖已有的记录
+	 *
+	 * @param key 键
+	 * @param value 值
+	 * @param expireTime 过期时间，单位毫秒，<code>0</code>表示永久存活
+	 * @return 是否写入，序列化后超过段大小的对象不写入
+	 * @throws UncheckedIOException 创建段文件失败
+	 * @throws IllegalStateException 已关闭
+	 */
+	public boolean put(K key, V value, long expireTime) {
+		return put(key, value, expireTime, 0);
+	}
+
+	/**
+	 * 写入对象及其存活时长，覆盖已有的记录
+	 *
+	 * @param key 键
+	 * @param value 值
+	 * @param expireTime 过期时间，单位毫秒，<code>0</code>表示永久存活
+	 * @param ttl 存活时长，从最后访问时间开始计算，<code>0</code>表示永久存活或由过期策略计算，取回时恢复
+	 * @return 是否写入，序列化后超过段大小的对象不写入
+	 * @throws UncheckedIOException 创建段文件失败
+	 * @throws IllegalStateException 已关闭
+	 */
+	public boolean put(K key, V value, long expireTime, long ttl) {
+		final byte[] keyBytes = keySerializer.serialize(key);
+		final byte[] valueBytes = valueSerializer.serialize(value);
+		final int length = RECORD_HEADER + keyBytes.length + valueBytes.length;
+		if (length > segmentSize) {
+			return false;
+		}
+		final byte[] record = new byte[length];
+		ByteBuffer.wrap(record).putInt(keyBytes.length).putInt(valueBytes.length).putLong(expireTime).putLong(ttl)
+				.put(keyBytes)
+				.put(valueBytes);
+
+		writeLock.lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("DiskStore is closed.");
+			}
+			final Location old = index.put(key, append(record, expireTime));
+			if (null != old) {
+				release(old);
+			}
+			return true;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- get start
+	/**
+	 * 读取对象
+	 *
+	 * @param key 键
+	 * @return 值，不存在或已过期返回<code>null</code>
+	 */
+	public V get(K key) {
+		final CacheObj<K, V> co = getCacheObj(key);
+		return (null == co) ? null : co.obj;
+	}
+
+	/**
+	 * 读取对象及其存活时长和过期时间
+	 *
+	 * @param key 键
+	 * @return 缓存对象，不存在或已过期返回<code>null</code>
+	 */
+	CacheObj<K, V> getCacheObj(K key) {
+		final byte[] record;
+		readLock.lock();
+		try {
+			final Location location = index.get(key);
+			if (null == location || location.isExpired(ticker.currentTimeMillis())) {
+				return null;
+			}
+			record = readRecord(location);
+		} finally {
+			readLock.unlock();
+		}
+		return decode(key, record);
+	}
+
+	/**
+	 * 移除并返回对象，读取和移除是原子的，同一条记录只会被取回一次
+	 *
+	 * @param key 键
+	 * @return 缓存对象，包括存活时长和过期时间，不存在或已过期返回<code>null</code>
+	 */
+	CacheObj<K, V> take(K key) {
+		final byte[] record;
+		writeLock.lock();
+		try {
+			final Location location = index.remove(key);
+			if (null == location) {
+				return null;
+			}
+			release(location);
+			if (location.isExpired(ticker.currentTimeMillis())) {
+				return null;
+			}
+			record = readRecord(location);
+		} finally {
+			writeLock.unlock();
+		}
+		return decode(key, record);
+	}
+
+	/**
+	 * 由记录创建缓存对象，在锁外反序列化
+	 */
+	private CacheObj<K, V> decode(K key, byte[] record) {
+		final ByteBuffer buffer = ByteBuffer.wrap(record);
+		final int keyLength = buffer.getInt();
+		final int valueLength = buffer.getInt();
+		final long expireTime = buffer.getLong();
+		final long ttl = buffer.getLong();
+		final byte[] valueBytes = new byte[valueLength];
+		buffer.position(RECORD_HEADER + keyLength);
+		buffer.get(valueBytes);
+		final CacheObj<K, V> co = CacheObj.create(key, valueSerializer.deserialize(valueBytes), ttl,
+				ticker.currentTimeMillis(), true, false);
+		co.setExpireTime(expireTime);
+		return co;
+	}
+
+	/**
+	 * @param key 键
+	 * @return 是否包含未过期的对象
+	 */
+	public boolean containsKey(K key) {
+		readLock.lock();
+		try {
+			final Location location = index.get(key);
+			return null != location && false == location.isExpired(ticker.currentTimeMillis());
+		} finally {
+			readLock.unlock();
+		}
+	}
+	// ---------------------------------------------------------------- get end
+
+	// ---------------------------------------------------------------- remove start
+	/**
+	 * 移除对象
+	 *
+	 * @param key 键
+	 */
+	public void remove(K key) {
+		writeLock.lock();
+		try {
+			final Location location = index.remove(key);
+			if (null != location) {
+				release(location);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 批量移除对象，整批只获取一次写锁
+	 *
+	 * @param keys 键
+	 */
+	public void removeAll(Iterable<? extends K> keys) {
+		writeLock.lock();
+		try {
+			for (K key : keys) {
+				final Location location = index.remove(key);
+				if (null != location) {
+					release(location);
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 移除过期对象，空间在段压缩时回收
+	 *
+	 * @return 移除数
+	 */
+	public int prune() {
+		int count = 0;
+		writeLock.lock();
+		try {
+			final long now = ticker.currentTimeMillis();
+			final Iterator<Location> locations = index.values().iterator();
+			while (locations.hasNext()) {
+				final Location location = locations.next();
+				if (location.isExpired(now)) {
+					locations.remove();
+					release(location);
+					count++;
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		return count;
+	}
+
+	/**
+	 * 移除全部对象并删除段文件
+	 */
+	public void clear() {
+		writeLock.lock();
+		try {
+			index.clear();
+			for (Segment segment : segments) {
+				closeSegment(segment);
+			}
+			segments.clear();
+			active = null;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 关闭，删除全部段文件和本存储的子目录，之后不能再写入
+	 */
+	@Override
+	public void close() {
+		writeLock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			clear();
+			closed = true;
+			try {
+				fileLock.release();
+			} catch (IOException ignore) {
+				// 关闭文件时也会释放
+			}
+			closeQuietly(lockFile);
+			new File(directory, LOCK_FILE).delete();
+			directory.delete();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * @return 本存储独占的子目录
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	// ---------------------------------------------------------------- remove end
+
+	/**
+	 * @return 对象数，包括尚未清理的过期对象
+	 */
+	public int size() {
+		readLock.lock();
+		try {
+			return index.size();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * @return 段数
+	 */
+	public int segmentCount() {
+		readLock.lock();
+		try {
+			return segments.size();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * 设置时钟，应与上层缓存使用同一个时钟
+	 * @param ticker 时钟
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		this.ticker = ticker;
+	}
+
+	@Override
+	public String toString() {
+		return "DiskStore [directory=" + directory + ", size=" + size() + ", segments=" + segmentCount() + "]";
+	}
+
+	// ---------------------------------------------------------------- segment start
+	/**
+	 * 将记录追加到当前段，当前段空间不足时创建新段，必须持有写锁
+	 *
+	 * @param record 记录
+	 * @param expireTime 过期时间
+	 * @return 记录位置
+	 */
+	private Location append(byte[] record, long expireTime) {
+		if (null == active || active.writePosition + record.length > segmentSize) {
+			roll();
+		}
+		final ByteBuffer buffer = active.buffer.duplicate();
+		buffer.position(active.writePosition);
+		buffer.put(record);
+		final Location location = new Location(active, active.writePosition, record.length, expireTime);
+		active.writePosition += record.length;
+		active.liveBytes += record.length;
+		return location;
+	}
+
+	/**
+	 * 封存当前段并创建新段，段数达到上限时丢弃最旧的段，必须持有写锁
+	 */
+	private void roll() {
+		if (null != active) {
+			final Segment sealed = active;
+			active = null;
+			scheduleCompactionIfNeeded(sealed);
+		}
+		while (segments.size() >= maxSegments) {
+			dropSegment(segments.get(0));
+		}
+		active = openSegment(nextSegmentId++);
+		segments.add(active);
+	}
+
+	private Segment openSegment(int id) {
+		final File file = new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(segmentSize);
+			final FileChannel channel = raf.getChannel();
+			return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+		} catch (IOException e) {
+			if (null != raf) {
+				try {
+					raf.close();
+				} catch (IOException ignore) {
+					// 忽略
+				}
+			}
+			file.delete();
+			throw new UncheckedIOException("Can not create segment file: " + file, e);
+		}
+	}
+
+	/**
+	 * 丢弃段及其中的全部对象，必须持有写锁
+	 */
+	private void dropSegment(Segment segment) {
+		final Iterator<Location> locations = index.values().iterator();
+		while (locations.hasNext()) {
+			if (locations.next().segment == segment) {
+				locations.remove();
+			}
+		}
+		segments.remove(segment);
+		closeSegment(segment);
+	}
+
+	/**
+	 * 关闭并删除段文件，解除映射，必须持有写锁<br>
+	 * 缓冲区只在持有读锁或写锁并确认段未关闭时访问，解除映射后不会再被读写
+	 */
+	private void closeSegment(Segment segment) {
+		segment.closed = true;
+		try {
+			segment.channel.close();
+		} catch (IOException e) {
+			// 忽略
+		}
+		unmap(segment.buffer);
+		segment.file.delete();
+	}
+
+	/**
+	 * 立即释放映射的内存，失败时等缓冲区被回收后释放
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			if (null != INVOKE_CLEANER) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(buffer);
+				if (null != cleaner) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (Exception e) {
+			// 忽略
+		}
+	}
+
+	/**
+	 * 记录失效，所在段的有效记录过少时安排压缩，必须持有写锁
+	 */
+	private void release(Location location) {
+		location.segment.liveBytes -= location.length;
+		scheduleCompactionIfNeeded(location.segment);
+	}
+
+	private void scheduleCompactionIfNeeded(final Segment segment) {
+		if (segment == active || segment.compacting || segment.closed
+				|| segment.liveBytes >= segment.writePosition * COMPACTION_THRESHOLD) {
+			return;
+		}
+		segment.compacting = true;
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					compact(segment);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 下次有记录失效时再尝试
+			segment.compacting = false;
+		}
+	}
+
+	/**
+	 * 压缩已封存的段：逐条检查记录，仍被索引引用的复制到当前段，最后删除该段<br>
+	 * 段封存后内容不再变化，读取记录头部只需读锁（段可能被丢弃并解除映射），每条记录的检查和复制单独获取写锁
+	 *
+	 * @param segment 已封存的段
+	 */
+	void compact(Segment segment) {
+		final int end = segment.writePosition;
+		int offset = 0;
+		while (offset < end) {
+			final byte[] keyBytes;
+			final int length;
+			final long expireTime;
+			readLock.lock();
+			try {
+				if (segment.closed) {
+					// 已作为最旧的段被丢弃
+					return;
+				}
+				final ByteBuffer buffer = segment.buffer.duplicate();
+				buffer.position(offset);
+				final int keyLength = buffer.getInt();
+				final int valueLength = buffer.getInt();
+				expireTime = buffer.getLong();
+				buffer.position(offset + RECORD_HEADER);
+				keyBytes = new byte[keyLength];
+				buffer.get(keyBytes);
+				length = RECORD_HEADER + keyLength + valueLength;
+			} finally {
+				readLock.unlock();
+			}
+			final K key = keySerializer.deserialize(keyBytes);
+
+			writeLock.lock();
+			try {
+				if (segment.closed) {
+					// 已作为最旧的段被丢弃
+					return;
+				}
+				final Location location = index.get(key);
+				if (null != location && location.segment == segment && location.offset == offset) {
+					segment.liveBytes -= length;
+					if (location.isExpired(ticker.currentTimeMillis())) {
+						index.remove(key);
+					} else {
+						final byte[] record = new byte[length];
+						final ByteBuffer source = segment.buffer.duplicate();
+						source.position(offset);
+						source.get(record);
+						index.put(key, append(record, expireTime));
+					}
+				}
+			} finally {
+				writeLock.unlock();
+			}
+			offset += length;
+		}
+
+		writeLock.lock();
+		try {
+			if (false == segment.closed) {
+				segments.remove(segment);
+				closeSegment(segment);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private static byte[] readRecord(Location location) {
+		final ByteBuffer buffer = location.segment.buffer.duplicate();
+		buffer.position(location.offset);
+		final byte[] record = new byte[location.length];
+		buffer.get(record);
+		return record;
+	}
+	// ---------------------------------------------------------------- segment end
+
+	/**
+	 * 段文件
+	 */
+	static final class Segment {
+		final File file;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		/** 以下字段受写锁保护 */
+		int writePosition;
+		long liveBytes;
+		boolean compacting;
+		volatile boolean closed;
+
+		Segment(File file, FileChannel channel, MappedByteBuffer buffer) {
+			this.file = file;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * 记录在段中的位置
+	 */
+	static final class Location {
+		final Segment segment;
+		final int offset;
+		final int length;
+		final long expireTime;
+
+		Location(Segment segment, int offset, int length, long expireTime) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.expireTime = expireTime;
+		}
+
+		boolean isExpired(long now) {
+			return (expireTime > 0) && (expireTime < now);
+		}
+	}
+}
@@ -25,6 +25,8 @@ package me.asu.impl;
 
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import me.asu.Expiry;
+import me.asu.Weigher;
 
 /**
  * FIFO(first in first out) 先进先出缓存.
@@ -67,33 +69,50 @@ public class FIFOCache<K, V> extends AbstractCache<K, V> {
 		cacheMap = new LinkedHashMap<K, CacheObj<K, V>>(capacity + 1, 1.0f, false);
 	}
 
+	/**
+	 * 构造，过期时间由过期策略计算
+	 * 
+	 * @param capacity 容量
+	 * @param expiry 过期策略
+	 */
+	public FIFOCache(int capacity, Expiry<K, V> expiry) {
+		this(capacity, 0);
+		this.expiry = expiry;
+	}
+
+	/**
+	 * 构造，按权重而不是对象数限制缓存大小<br>
+	 * 权重不足时淘汰最先加入的对象
+	 * 
+	 * @param maximumWeight 最大权重，例如以字节数计算权重时为内存预算
+	 * @param weigher 权重计算器
+	 * @param timeout 过期时长，<code>0</code>表示不过期
+	 */
+	public FIFOCache(long maximumWeight, Weigher<K, V> weigher, long timeout) {
+		this(0, timeout);
+		setMaximumWeight(maximumWeight, weigher);
+	}
+
 	/**
 	 * 先进先出的清理策略<br>
-	 * 先遍历缓存清理过期的缓存对象，如果清理后还是满的，则删除第一个缓存对象
+	 * 先通过时间轮清理到期的缓存对象，如果清理后还是满的，则删除第一个缓存对象
 	 */
 	@Override
 	protected int pruneCache() {
-		int count = 0;
-		CacheObj<K, V> first = null;
-		
-		// 清理过期对象并找出链表头部元素（先入元素）
-		Iterator<CacheObj<K, V>> values = cacheMap.values().iterator();
-		while (values.hasNext()) {
-			CacheObj<K, V> co = values.next();
-			if (co.isExpired()) {
+		int count = pruneExpired();
+
+		// 清理结束后依旧是满的，则删除链表头部元素（先入元素）
+		if (isFull()) {
+			Iterator<CacheObj<K, V>> values = cacheMap.values().iterator();
+			if (values.hasNext()) {
+				CacheObj<K, V> first = values.next();
 				values.remove();
+				cancelExpiry(first);
+				releaseWeight(first);
+				notifyEviction(first);
+				onRemove(first.key, first.obj);
 				count++;
 			}
-			if (first == null) {
-				first = co;
-			}
-		}
-
-		// 清理结束后依旧是满的，则删除第一个被缓存的对象
-		if (isFull() && null != first) {
-			cacheMap.remove(first.key);
-			onRemove(first.key, first.obj);
-			count++;
 		}
 		return count;
 	}
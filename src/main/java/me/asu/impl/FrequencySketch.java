@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+/**
+ * 4位Count-Min Sketch，用于估算对象的访问频率<br>
+ * 每个<code>long</code>保存16个4位计数器，计数器上限为15；每个对象使用4个计数器，估算值取其中最小值。<br>
+ * 累计增加次数达到采样数（容量的10倍）时所有计数器减半（老化），使历史热点可以逐渐冷却。<br>
+ * 表的大小为不小于容量的2的幂，即每个缓存对象约占用8字节。不是线程安全的。
+ *
+ * @author Suk
+ *
+ * @param <E> 对象类型
+ */
+final class FrequencySketch<E> {
+
+	/** 4个哈希函数的种子 */
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+	/** 每个4位计数器减半时保留的位 */
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final long[] table;
+	private final int tableMask;
+	private final int sampleSize;
+	private int size;
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 缓存容量
+	 */
+	FrequencySketch(int capacity) {
+		int length = AbstractConcurrentCache.ceilingPowerOfTwo(Math.max(capacity, 16));
+		this.table = new long[length];
+		this.tableMask = length - 1;
+		this.sampleSize = (capacity > Integer.MAX_VALUE / 10) ? Integer.MAX_VALUE : 10 * Math.max(capacity, 16);
+	}
+
+	/**
+	 * 估算对象的访问频率
+	 *
+	 * @param e 对象
+	 * @return 0-15之间的频率估算值
+	 */
+	int frequency(E e) {
+		final int hash = spread(e);
+		final int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			final int index = indexOf(hash, i);
+			final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * 增加对象的访问频率，达到采样数时执行老化
+	 *
+	 * @param e 对象
+	 */
+	void increment(E e) {
+		final int hash = spread(e);
+		final int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && (++size == sampleSize)) {
+			reset();
+		}
+	}
+
+	/**
+	 * 计数器未达上限时加1
+	 *
+	 * @param i 表下标
+	 * @param j 计数器在<code>long</code>中的序号（0-15）
+	 * @return 是否增加
+	 */
+	private boolean incrementAt(int i, int j) {
+		final int offset = j << 2;
+		final long mask = 0xfL << offset;
+		if ((table[i] & mask) != mask) {
+			table[i] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 所有计数器减半
+	 */
+	private void reset() {
+		int odd = 0;
+		for (int i = 0; i < table.length; i++) {
+			odd += Long.bitCount(table[i] & 0x1111111111111111L);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size = (size >>> 1) - (odd >>> 2);
+	}
+
+	private int indexOf(int item, int i) {
+		long hash = (item + SEEDS[i]) * SEEDS[i];
+		hash += (hash >>> 32);
+		return ((int) hash) & tableMask;
+	}
+
+	private static int spread(Object e) {
+		int x = (e == null) ? 0 : e.hashCode();
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
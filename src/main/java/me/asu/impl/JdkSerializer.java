@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import me.asu.SerializationException;
+import me.asu.Serializer;
+
+/**
+ * 使用JDK对象流的序列化器，对象必须实现{@link java.io.Serializable}<br>
+ * 通用但较慢且结果较大，数据量大时建议提供专用的{@link Serializer}。
+ *
+ * @author Suk
+ *
+ * @param <T> 对象类型
+ */
+public class JdkSerializer<T> implements Serializer<T> {
+
+	@Override
+	public byte[] serialize(T object) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			final ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(object);
+			out.close();
+		} catch (IOException e) {
+			throw new SerializationException("Failed to serialize object", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T deserialize(byte[] bytes) {
+		try {
+			final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			try {
+				return (T) in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new SerializationException("Failed to deserialize", e);
+		} catch (ClassNotFoundException e) {
+			throw new SerializationException("Failed to deserialize", e);
+		}
+	}
+}
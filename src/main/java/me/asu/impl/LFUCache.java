@@ -25,13 +25,16 @@ package me.asu.impl;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import me.asu.Expiry;
+import me.asu.Weigher;
 
 /**
  * LFU(least frequently used) 最少使用率缓存<br>
  * 根据使用次数来判定对象是否被持续缓存<br>
  * 使用率是通过访问次数计算的。<br>
  * 当缓存满时清理过期对象。<br>
- * 清理后依旧满的情况下清除最少访问（访问计数最小）的对象并将其他对象的访问数减去这个最小访问数，以便新对象进入后可以公平计数。
+ * 清理后依旧满的情况下清除最少访问（访问计数最小）的对象并将其他对象的访问数减去这个最小访问数，以便新对象进入后可以公平计数。<br>
+ * 每次清理都要遍历全部对象，对象很多时请使用{@link ConcurrentLFUCache}。
  * 
  * @author Looly,jodd
  *
@@ -65,6 +68,38 @@ public class LFUCache<K, V> extends AbstractCache<K, V> {
 		cacheMap = new HashMap<K, CacheObj<K, V>>(capacity + 1, 1.0f);
 	}
 
+	/**
+	 * 构造，过期时间由过期策略计算
+	 * 
+	 * @param capacity 容量
+	 * @param expiry 过期策略
+	 */
+	public LFUCache(int capacity, Expiry<K, V> expiry) {
+		this(capacity, 0);
+		this.expiry = expiry;
+	}
+
+	/**
+	 * 构造，按权重而不是对象数限制缓存大小<br>
+	 * 权重不足时淘汰访问最少的对象
+	 * 
+	 * @param maximumWeight 最大权重，例如以字节数计算权重时为内存预算
+	 * @param weigher 权重计算器
+	 * @param timeout 过期时长，<code>0</code>表示不过期
+	 */
+	public LFUCache(long maximumWeight, Weigher<K, V> weigher, long timeout) {
+		this(0, timeout);
+		setMaximumWeight(maximumWeight, weigher);
+	}
+
+	/**
+	 * 按访问次数淘汰，缓存对象需要记录访问次数
+	 */
+	@Override
+	boolean isAccessCounted() {
+		return true;
+	}
+
 	// ---------------------------------------------------------------- prune
 
 	/**
@@ -75,38 +110,46 @@ public class LFUCache<K, V> extends AbstractCache<K, V> {
 	 */
 	@Override
 	protected int pruneCache() {
-		int count = 0;
+		// 推进时间轮，读取时已移除的过期对象的定时随之丢弃
+		int count = pruneExpired();
 		CacheObj<K, V> comin = null;
 
 		// 清理过期对象并找出访问最少的对象
 		Iterator<CacheObj<K, V>> values = cacheMap.values().iterator();
 		CacheObj<K, V> co;
+		final long now = ticker.currentTimeMillis();
 		while (values.hasNext()) {
 			co = values.next();
-			if (co.isExpired() == true) {
+			if (co.isExpired(now) == true) {
 				values.remove();
+				cancelExpiry(co);
+				releaseWeight(co);
+				statsCounter.recordExpiration();
 				onRemove(co.key, co.obj);
 				count++;
 				continue;
 			}
 
 			//找出访问最少的对象
-			if (comin == null || co.accessCount < comin.accessCount) {
+			if (comin == null || co.getAccessCount() < comin.getAccessCount()) {
 				comin = co;
 			}
 		}
 
 		// 减少所有对象访问量，并清除减少后为0的访问对象
 		if (isFull() && comin != null) {
-			long minAccessCount = comin.accessCount;
+			long minAccessCount = comin.getAccessCount();
 
 			values = cacheMap.values().iterator();
 			CacheObj<K, V> co1;
 			while (values.hasNext()) {
 				co1 = values.next();
-				co1.accessCount -= minAccessCount;
-				if (co1.accessCount <= 0) {
+				co1.setAccessCount(co1.getAccessCount() - minAccessCount);
+				if (co1.getAccessCount() <= 0) {
 					values.remove();
+					cancelExpiry(co1);
+					releaseWeight(co1);
+					notifyEviction(co1);
 					onRemove(co1.key, co1.obj);
 					count++;
 				}
@@ -26,6 +26,8 @@ package me.asu.impl;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import me.asu.Expiry;
+import me.asu.Weigher;
 
 /**
  * LRU (least recently used)最近最久未使用缓存<br>
@@ -73,29 +75,62 @@ public class LRUCache<K, V> extends AbstractCache<K, V> {
 					return false;
 				}
 				//当链表元素大于容量时，移除最老（最久未被使用）的元素
-				return size() > LRUCache.this.capacity;
+				if (size() > LRUCache.this.capacity) {
+					cancelExpiry(eldest.getValue());
+					releaseWeight(eldest.getValue());
+					notifyEviction(eldest.getValue());
+					return true;
+				}
+				return false;
 			}
 		};
 	}
 
+	/**
+	 * 构造，过期时间由过期策略计算
+	 * 
+	 * @param capacity 容量
+	 * @param expiry 过期策略
+	 */
+	public LRUCache(int capacity, Expiry<K, V> expiry) {
+		this(capacity, 0);
+		this.expiry = expiry;
+	}
+
+	/**
+	 * 构造，按权重而不是对象数限制缓存大小<br>
+	 * 权重不足时淘汰最久未使用的对象
+	 * 
+	 * @param maximumWeight 最大权重，例如以字节数计算权重时为内存预算
+	 * @param weigher 权重计算器
+	 * @param timeout 过期时长，<code>0</code>表示不过期
+	 */
+	public LRUCache(long maximumWeight, Weigher<K, V> weigher, long timeout) {
+		this(0, timeout);
+		setMaximumWeight(maximumWeight, weigher);
+	}
+
 	// ---------------------------------------------------------------- prune
 
 	/**
-	 * 只清理超时对象，LRU的实现会交给<code>LinkedHashMap</code>
+	 * 清理超时对象，按对象数的LRU淘汰交给<code>LinkedHashMap</code><br>
+	 * 超时对象由时间轮索引，只处理到期的桶；按权重限制大小时，清理后权重依旧不足则淘汰最久未使用的对象
 	 */
 	@Override
 	protected int pruneCache() {
-		if (isPruneExpiredActive() == false) {
-			return 0;
-		}
 		int count = 0;
-		Iterator<CacheObj<K, V>> values = cacheMap.values().iterator();
-		CacheObj<K, V> co;
-		while (values.hasNext()) {
-			co = values.next();
-			if (co.isExpired()) {
+		if (isPruneExpiredActive()) {
+			count = pruneExpired();
+		}
+		if (isOverweight()) {
+			Iterator<CacheObj<K, V>> values = cacheMap.values().iterator();
+			while (isOverweight() && values.hasNext()) {
+				CacheObj<K, V> eldest = values.next();
 				values.remove();
-				onRemove(co.key, co.obj);
+				cancelExpiry(eldest);
+				releaseWeight(eldest);
+				notifyEviction(eldest);
+				onRemove(eldest.key, eldest.obj);
 				count++;
 			}
 		}
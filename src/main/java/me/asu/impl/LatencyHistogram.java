@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数-线性延迟直方图<br>
+ * 每个2的幂区间等分为{@value #SUB_BUCKETS}个桶，相对误差不超过1/{@value #SUB_BUCKETS}（约3%），
+ * 小于{@value #SUB_BUCKETS}纳秒的值精确记录，超过约68秒的值计入最后一个桶。<br>
+ * 记录只对桶计数执行一次原子递增并累加总时长，不加锁、不分配对象，可以在热路径上调用。
+ * 查询通过{@link #snapshot()}获得的快照进行，快照之间相减即为一段时间内的分布。线程安全。
+ *
+ * @author Suk
+ */
+public final class LatencyHistogram {
+
+	/** 每个2的幂区间的桶数的位数 */
+	static final int SUB_BUCKET_BITS = 5;
+	/** 每个2的幂区间的桶数 */
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** 可精确分桶的最大值的位数，更大的值计入最后一个桶 */
+	static final int MAX_BITS = 36;
+	static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+	/** 桶数：第0组为0到{@link #SUB_BUCKETS}-1的线性桶，之后每个2的幂区间一组 */
+	static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder totalTime = new LongAdder();
+	/** 上一次{@link #intervalSnapshot()}时的累计快照 */
+	private Snapshot lastInterval = new Snapshot(new long[BUCKETS], 0);
+
+	/**
+	 * 记录一次耗时
+	 *
+	 * @param nanos 耗时，单位纳秒，负数按0计算
+	 */
+	public void record(long nanos) {
+		final long value = (nanos < 0) ? 0 : Math.min(nanos, MAX_VALUE);
+		counts.incrementAndGet(bucketOf(value));
+		totalTime.add(value);
+	}
+
+	/**
+	 * @return 从创建开始累计的分布
+	 */
+	public Snapshot snapshot() {
+		final long[] copy = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+		}
+		return new Snapshot(copy, totalTime.sum());
+	}
+
+	/**
+	 * 返回自上一次调用以来的分布，用于定期输出监控指标
+	 *
+	 * @return 区间分布
+	 */
+	public synchronized Snapshot intervalSnapshot() {
+		final Snapshot current = snapshot();
+		final Snapshot interval = current.minus(lastInterval);
+		lastInterval = current;
+		return interval;
+	}
+
+	/**
+	 * 计算值所在的桶
+	 */
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		final int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * 桶中的最大值
+	 */
+	static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long sub = bucket & (SUB_BUCKETS - 1);
+		final long lowest = (1L << (shift + SUB_BUCKET_BITS)) | (sub << shift);
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * 直方图的快照，不可变
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long totalTime;
+
+		Snapshot(long[] counts, long totalTime) {
+			this.counts = counts;
+			this.totalTime = totalTime;
+			long count = 0;
+			for (long c : counts) {
+				count += c;
+			}
+			this.count = count;
+		}
+
+		/**
+		 * @return 记录次数
+		 */
+		public long count() {
+			return count;
+		}
+
+		/**
+		 * @return 总耗时，单位纳秒
+		 */
+		public long totalTime() {
+			return totalTime;
+		}
+
+		/**
+		 * @return 平均耗时，单位纳秒，没有记录时为<code>0.0</code>
+		 */
+		public double mean() {
+			return (count == 0) ? 0.0 : (double) totalTime / count;
+		}
+
+		/**
+		 * 百分位数，返回所在桶中的最大值，因此不会低估
+		 *
+		 * @param percentile 百分位，0到100之间，例如<code>99.9</code>
+		 * @return 耗时，单位纳秒，没有记录时为0
+		 */
+		public long percentile(double percentile) {
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+			}
+			if (count == 0) {
+				return 0;
+			}
+			final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return highestValueOf(i);
+				}
+			}
+			return max();
+		}
+
+		/**
+		 * @return 最大耗时所在桶中的最大值，单位纳秒，没有记录时为0
+		 */
+		public long max() {
+			for (int i = counts.length - 1; i >= 0; i--) {
+				if (counts[i] != 0) {
+					return highestValueOf(i);
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * 与较早的快照相减
+		 *
+		 * @param other 较早的快照
+		 * @return 两个快照之间的分布
+		 */
+		public Snapshot minus(Snapshot other) {
+			final long[] delta = new long[counts.length];
+			for (int i = 0; i < delta.length; i++) {
+				delta[i] = Math.max(0, counts[i] - other.counts[i]);
+			}
+			return new Snapshot(delta, Math.max(0, totalTime - other.totalTime));
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot [count=" + count + ", mean=" + (long) mean() + ", p50=" + percentile(50) + ", p99="
+					+ percentile(99) + ", p999=" + percentile(99.9) + ", max=" + max() + "]";
+		}
+	}
+}
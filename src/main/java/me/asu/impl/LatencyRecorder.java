@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+/**
+ * 缓存操作的延迟记录器，每种操作一个{@link LatencyHistogram}<br>
+ * 缓存默认不记录延迟，设置记录器后在热路径上通过{@link System#nanoTime()}计时，记录时不分配对象。
+ * 同一个记录器可以由多个缓存共享，此时统计的是它们的合计分布。线程安全。
+ *
+ * @author Suk
+ */
+public final class LatencyRecorder {
+
+	/**
+	 * 记录延迟的操作
+	 */
+	public enum Operation {
+		/** 命中的读取，包括等待锁的时间 */
+		GET_HIT,
+		/** 未命中的读取，包括等待锁的时间 */
+		GET_MISS,
+		/** 加入对象，包括等待锁及加入时触发的清理的时间 */
+		PUT,
+		/** 执行清理策略（清理过期对象及淘汰），不包括等待锁的时间 */
+		PRUNE,
+		/** 等待获得缓存的锁 */
+		LOCK_WAIT
+	}
+
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+
+	/**
+	 * 构造
+	 */
+	public LatencyRecorder() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * 记录从开始时间到现在的耗时
+	 *
+	 * @param operation 操作
+	 * @param startNanos 开始时间，{@link System#nanoTime()}的返回值
+	 */
+	public void recordSince(Operation operation, long startNanos) {
+		histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * 记录耗时
+	 *
+	 * @param operation 操作
+	 * @param nanos 耗时，单位纳秒
+	 */
+	public void record(Operation operation, long nanos) {
+		histograms[operation.ordinal()].record(nanos);
+	}
+
+	/**
+	 * @param operation 操作
+	 * @return 操作的延迟直方图
+	 */
+	public LatencyHistogram histogram(Operation operation) {
+		return histograms[operation.ordinal()];
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("LatencyRecorder [");
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(OPERATIONS[i]).append('=').append(histograms[i].snapshot());
+		}
+		return builder.append(']').toString();
+	}
+}
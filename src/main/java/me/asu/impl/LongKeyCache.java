@@ -0,0 +1,581 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import me.asu.CacheStats;
+import me.asu.Ticker;
+
+/**
+ * 以<code>long</code>为键的缓存<br>
+ * 使用开放寻址（线性探测）的并行数组保存对象，键不装箱，也没有{@link java.util.LinkedHashMap}的节点和{@link CacheObj}，
+ * 读写时不分配对象：
+ * <ul>
+ * 		<li>键、值分别保存在<code>long[]</code>和<code>Object[]</code>中，值为<code>null</code>的槽位为空</li>
+ * 		<li>删除时把后续同一探测链上的对象前移，不留删除标记，探测链不会变长</li>
+ * 		<li>设置了存活时长时才创建过期时间数组，存活时长从写入时间开始计算，过期对象在读取时视为不存在</li>
+ * 		<li>淘汰策略为{@link Eviction#LRU}时用槽位下标组成的双向链表维护访问顺序，读取需要写锁；
+ * 		为{@link Eviction#CLOCK}时每个槽位只有一个访问标记，读取只需要读锁</li>
+ * </ul>
+ * 表大小为容量的4/3向上取2的幂，不扩容。每个对象约占用 (8 + 4 + 1) * 4/3 字节，
+ * LRU多8字节的链表下标，设置存活时长时多8字节的过期时间，约为{@link LRUCache}的三分之一。
+ *
+ * @author Suk
+ *
+ * @param <V> 值类型
+ */
+public class LongKeyCache<V> {
+
+	/**
+	 * 淘汰策略
+	 */
+	public enum Eviction {
+		/** 淘汰最久未使用的对象 */
+		LRU,
+		/** 时钟（二次机会）算法，近似LRU，读取不修改链表，并发读取不互斥 */
+		CLOCK
+	}
+
+	private static final int NIL = -1;
+
+	private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
+	private final ReadLock readLock = cacheLock.readLock();
+	private final WriteLock writeLock = cacheLock.writeLock();
+
+	private final int capacity;
+	private final long timeout;
+	private final Eviction eviction;
+	private final int mask;
+
+	private final long[] keys;
+	private final Object[] values;
+	/** 过期时间，0表示永久存活，第一次加入有存活时长的对象时创建 */
+	private long[] expireTimes;
+	/** LRU链表，按访问顺序从{@link #head}到{@link #tail} */
+	private final int[] prev;
+	private final int[] next;
+	private int head = NIL;
+	private int tail = NIL;
+	/** CLOCK的访问标记，在读锁下写入，丢失一次标记只影响淘汰顺序 */
+	private final byte[] referenced;
+	private int hand;
+	private int size;
+
+	final StatsCounter statsCounter = new StatsCounter();
+	/** 时钟，只有设置了存活时长时才读取 */
+	private volatile Ticker ticker = CoarseTicker.getDefault();
+
+	/**
+	 * 构造，LRU淘汰，对象永久存活
+	 *
+	 * @param capacity 容量
+	 */
+	public LongKeyCache(int capacity) {
+		this(capacity, 0, Eviction.LRU);
+	}
+
+	/**
+	 * 构造，LRU淘汰
+	 *
+	 * @param capacity 容量
+	 * @param timeout 默认存活时长，单位毫秒，<code>0</code>表示永久存活
+	 */
+	public LongKeyCache(int capacity, long timeout) {
+		this(capacity, timeout, Eviction.LRU);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量
+	 * @param timeout 默认存活时长，单位毫秒，<code>0</code>表示永久存活
+	 * @param eviction 淘汰策略
+	 */
+	public LongKeyCache(int capacity, long timeout, Eviction eviction) {
+		if (capacity <= 0 || capacity > (1 << 29)) {
+			throw new IllegalArgumentException("capacity must be in (0, 2^29]: " + capacity);
+		}
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+		}
+		if (null == eviction) {
+			throw new IllegalArgumentException("eviction must not be null");
+		}
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.eviction = eviction;
+
+		// 装载因子不超过3/4，且至少有一个空槽位使探测链终止
+		int tableSize = 2;
+		while (tableSize < capacity + capacity / 3 || tableSize <= capacity) {
+			tableSize <<= 1;
+		}
+		this.mask = tableSize - 1;
+		this.keys = new long[tableSize];
+		this.values = new Object[tableSize];
+		if (timeout > 0) {
+			this.expireTimes = new long[tableSize];
+		}
+		if (eviction == Eviction.LRU) {
+			this.prev = new int[tableSize];
+			this.next = new int[tableSize];
+			this.referenced = null;
+		} else {
+			this.prev = null;
+			this.next = null;
+			this.referenced = new byte[tableSize];
+		}
+	}
+
+	/**
+	 * @return 容量
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return 默认存活时长，<code>0</code>表示永久存活
+	 */
+	public long timeout() {
+		return timeout;
+	}
+
+	/**
+	 * @return 淘汰策略
+	 */
+	public Eviction eviction() {
+		return eviction;
+	}
+
+	/**
+	 * 设置时钟，应在加入对象前设置
+	 *
+	 * @param ticker 时钟
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		this.ticker = ticker;
+	}
+
+	/**
+	 * @return 时钟，默认为{@link CoarseTicker#getDefault()}
+	 */
+	public Ticker getTicker() {
+		return ticker;
+	}
+
+	/**
+	 * 获取对象，不存在或已过期时返回<code>null</code>
+	 *
+	 * @param key 键
+	 * @return 值
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		if (eviction == Eviction.LRU) {
+			writeLock.lock();
+			try {
+				final int slot = find(key);
+				if (slot == NIL) {
+					statsCounter.recordMisses(1);
+					return null;
+				}
+				if (isExpired(slot)) {
+					removeSlot(slot);
+					statsCounter.recordExpiration();
+					statsCounter.recordMisses(1);
+					return null;
+				}
+				moveToTail(slot);
+				statsCounter.recordHits(1);
+				return (V) values[slot];
+			} finally {
+				writeLock.unlock();
+			}
+		}
+
+		readLock.lock();
+		try {
+			final int slot = find(key);
+			if (slot == NIL || isExpired(slot)) {
+				// 过期对象在写入时清理
+				statsCounter.recordMisses(1);
+				return null;
+			}
+			referenced[slot] = 1;
+			statsCounter.recordHits(1);
+			return (V) values[slot];
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * 是否包含未过期的对象，不更新访问顺序，不计入统计
+	 *
+	 * @param key 键
+	 * @return 是否包含
+	 */
+	public boolean containsKey(long key) {
+		readLock.lock();
+		try {
+			final int slot = find(key);
+			return slot != NIL && !isExpired(slot);
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * 加入对象，使用默认存活时长
+	 *
+	 * @param key 键
+	 * @param value 值，不能为<code>null</code>
+	 */
+	public void put(long key, V value) {
+		put(key, value, timeout);
+	}
+
+	/**
+	 * 加入对象
+	 *
+	 * @param key 键
+	 * @param value 值，不能为<code>null</code>
+	 * @param timeout 存活时长，单位毫秒，<code>0</code>表示永久存活
+	 */
+	public void put(long key, V value, long timeout) {
+		if (null == value) {
+			throw new IllegalArgumentException("value must not be null");
+		}
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+		}
+		writeLock.lock();
+		try {
+			int slot = find(key);
+			if (slot == NIL) {
+				if (size >= capacity) {
+					evict();
+				}
+				slot = emptySlot(key);
+				keys[slot] = key;
+				size++;
+				if (eviction == Eviction.LRU) {
+					linkLast(slot);
+				}
+			} else if (eviction == Eviction.LRU) {
+				moveToTail(slot);
+			}
+			values[slot] = value;
+			if (eviction == Eviction.CLOCK) {
+				referenced[slot] = 0;
+			}
+			if (timeout > 0 && null == expireTimes) {
+				expireTimes = new long[keys.length];
+			}
+			if (null != expireTimes) {
+				expireTimes[slot] = (timeout > 0) ? ticker.currentTimeMillis() + timeout : 0;
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 移除对象
+	 *
+	 * @param key 键
+	 */
+	public void remove(long key) {
+		writeLock.lock();
+		try {
+			final int slot = find(key);
+			if (slot != NIL) {
+				removeSlot(slot);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 清理过期对象
+	 *
+	 * @return 清理的对象数
+	 */
+	public int prune() {
+		writeLock.lock();
+		try {
+			if (null == expireTimes) {
+				return 0;
+			}
+			final long now = ticker.currentTimeMillis();
+			int count = 0;
+			int slot = 0;
+			while (slot <= mask) {
+				if (null != values[slot] && isExpired(slot, now)) {
+					// 后面的对象可能前移到当前槽位，需要再检查一次
+					removeSlot(slot);
+					statsCounter.recordExpiration();
+					count++;
+				} else {
+					slot++;
+				}
+			}
+			return count;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear() {
+		writeLock.lock();
+		try {
+			Arrays.fill(values, null);
+			head = NIL;
+			tail = NIL;
+			hand = 0;
+			size = 0;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * @return 对象数，包括尚未清理的过期对象
+	 */
+	public int size() {
+		readLock.lock();
+		try {
+			return size;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * @return 是否为空
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * 获取统计信息快照
+	 *
+	 * @return 统计信息
+	 */
+	public CacheStats stats() {
+		return statsCounter.snapshot();
+	}
+
+	// ---------------------------------------------------------------- Private method start
+	static int hash(long key) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * @return 对象所在的槽位，不存在时返回{@link #NIL}
+	 */
+	private int find(long key) {
+		int slot = hash(key) & mask;
+		while (null != values[slot]) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NIL;
+	}
+
+	/**
+	 * @return 键的探测链上第一个空槽位
+	 */
+	private int emptySlot(long key) {
+		int slot = hash(key) & mask;
+		while (null != values[slot]) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * 未设置存活时长时不读取时钟
+	 */
+	private boolean isExpired(int slot) {
+		if (null == expireTimes) {
+			return false;
+		}
+		final long expireTime = expireTimes[slot];
+		return expireTime > 0 && expireTime < ticker.currentTimeMillis();
+	}
+
+	private boolean isExpired(int slot, long now) {
+		if (null == expireTimes) {
+			return false;
+		}
+		final long expireTime = expireTimes[slot];
+		return expireTime > 0 && expireTime < now;
+	}
+
+	/**
+	 * 淘汰一个对象，CLOCK遇到已过期的对象时直接淘汰
+	 */
+	private void evict() {
+		if (eviction == Eviction.LRU) {
+			final boolean expired = isExpired(head);
+			removeSlot(head);
+			recordRemoval(expired);
+			return;
+		}
+		final long now = ticker.currentTimeMillis();
+		while (true) {
+			final int slot = hand;
+			hand = (hand + 1) & mask;
+			if (null == values[slot]) {
+				continue;
+			}
+			final boolean expired = isExpired(slot, now);
+			if (!expired && referenced[slot] != 0) {
+				referenced[slot] = 0;
+				continue;
+			}
+			removeSlot(slot);
+			recordRemoval(expired);
+			return;
+		}
+	}
+
+	private void recordRemoval(boolean expired) {
+		if (expired) {
+			statsCounter.recordExpiration();
+		} else {
+			statsCounter.recordEviction(0);
+		}
+	}
+
+	/**
+	 * 删除槽位中的对象，并把探测链上后续的对象前移填补空位
+	 */
+	private void removeSlot(int slot) {
+		if (eviction == Eviction.LRU) {
+			unlink(slot);
+		}
+		values[slot] = null;
+		size--;
+
+		int empty = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & mask;
+			if (null == values[current]) {
+				return;
+			}
+			final int ideal = hash(keys[current]) & mask;
+			// 理想槽位在 (empty, current] 之间时不能前移
+			final boolean stay = (empty <= current)
+					? (ideal > empty && ideal <= current)
+					: (ideal > empty || ideal <= current);
+			if (!stay) {
+				moveSlot(current, empty);
+				empty = current;
+			}
+		}
+	}
+
+	private void moveSlot(int from, int to) {
+		keys[to] = keys[from];
+		values[to] = values[from];
+		values[from] = null;
+		if (null != expireTimes) {
+			expireTimes[to] = expireTimes[from];
+		}
+		if (eviction == Eviction.LRU) {
+			prev[to] = prev[from];
+			next[to] = next[from];
+			if (prev[to] == NIL) {
+				head = to;
+			} else {
+				next[prev[to]] = to;
+			}
+			if (next[to] == NIL) {
+				tail = to;
+			} else {
+				prev[next[to]] = to;
+			}
+		} else {
+			referenced[to] = referenced[from];
+		}
+	}
+
+	private void linkLast(int slot) {
+		prev[slot] = tail;
+		next[slot] = NIL;
+		if (tail == NIL) {
+			head = slot;
+		} else {
+			next[tail] = slot;
+		}
+		tail = slot;
+	}
+
+	private void unlink(int slot) {
+		final int p = prev[slot];
+		final int n = next[slot];
+		if (p == NIL) {
+			head = n;
+		} else {
+			next[p] = n;
+		}
+		if (n == NIL) {
+			tail = p;
+		} else {
+			prev[n] = p;
+		}
+	}
+
+	private void moveToTail(int slot) {
+		if (slot != tail) {
+			unlink(slot);
+			linkLast(slot);
+		}
+	}
+	// ---------------------------------------------------------------- Private method end
+
+	@Override
+	public String toString() {
+		return "LongKeyCache [capacity=" + capacity + ", size=" + size() + ", eviction=" + eviction + "]";
+	}
+}
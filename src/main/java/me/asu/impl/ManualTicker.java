@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import me.asu.Ticker;
+
+/**
+ * 手动推进的时钟，用于测试过期逻辑<br>
+ * 时间只在调用{@link #advance(long)}或{@link #set(long)}时改变，测试不需要等待真实时间流逝，结果也是确定的。
+ * 缓存的清理只在读写或显式调用<code>prune()</code>时发生，推进时钟后需要访问缓存才能观察到过期。
+ *
+ * @author Suk
+ */
+public final class ManualTicker implements Ticker {
+
+	private final AtomicLong now;
+
+	/**
+	 * 构造，从当前系统时间开始
+	 */
+	public ManualTicker() {
+		this(System.currentTimeMillis());
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param start 初始时间，单位毫秒
+	 */
+	public ManualTicker(long start) {
+		this.now = new AtomicLong(start);
+	}
+
+	@Override
+	public long currentTimeMillis() {
+		return now.get();
+	}
+
+	/**
+	 * 推进时间
+	 *
+	 * @param millis 推进的毫秒数，不能为负
+	 * @return 推进后的时间
+	 */
+	public long advance(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("millis must not be negative: " + millis);
+		}
+		return now.addAndGet(millis);
+	}
+
+	/**
+	 * 设置时间
+	 *
+	 * @param time 时间，单位毫秒
+	 */
+	public void set(long time) {
+		now.set(time);
+	}
+
+	@Override
+	public String toString() {
+		return "ManualTicker [now=" + now.get() + "]";
+	}
+}
@@ -23,8 +23,11 @@
 
 package me.asu.impl;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import me.asu.Cache;
+import me.asu.CacheStats;
 
 /**
  * 无缓存实现，用于快速关闭缓存
@@ -70,6 +73,16 @@ public class NoCache<K, V> implements Cache<K, V> {
 		return null;
 	}
 
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		// 跳过
+	}
+
 	@Override
 	public Iterator<V> iterator() {
 		return null;
@@ -95,6 +108,11 @@ public class NoCache<K, V> implements Cache<K, V> {
 		// 跳过
 	}
 
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		// 跳过
+	}
+
 	@Override
 	public void clear() {
 		// 跳过
@@ -110,4 +128,9 @@ public class NoCache<K, V> implements Cache<K, V> {
 		return false;
 	}
 
+	@Override
+	public CacheStats stats() {
+		return CacheStats.empty();
+	}
+
 }
@@ -0,0 +1,856 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import me.asu.Cache;
+import me.asu.CacheStats;
+import me.asu.Serializer;
+import me.asu.Ticker;
+
+/**
+ * 堆外缓存<br>
+ * 键和值序列化后保存在直接内存（{@link ByteBuffer#allocateDirect(int)}）中，堆上只有少量与大小级别数相关的管理结构，
+ * 因此GC的开销与缓存的数据量无关：
+ * <ul>
+ * 		<li>内存按固定大小的slab分配，每个slab切分为同一大小级别（64字节起的2的幂）的块，一个对象占用一个块</li>
+ * 		<li>哈希索引同样位于直接内存中，按键序列化后的字节定位对象，链表法解决冲突</li>
+ * 		<li>淘汰与{@link LRUCache}相同：超出容量时淘汰最久未使用的对象，存活时长从最后访问时间开始计算</li>
+ * 		<li>内存用尽时淘汰同一大小级别中最久未使用的对象，该级别没有对象时从占用slab最多的级别回收一个slab</li>
+ * </ul>
+ * 所有操作由一个锁保护，序列化和反序列化在锁外执行，需要更高的并发时可以作为{@link SegmentedCache}的分段。<br>
+ * 过期对象在读取时移除，{@link #prune()}遍历全部对象清理过期对象。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class OffHeapCache<K, V> implements Cache<K, V> {
+
+	/** 默认slab大小：1MB */
+	public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+	/** 空地址 */
+	static final long NIL = -1L;
+	/** 最小块大小（2的幂），64字节 */
+	static final int MIN_CHUNK_SHIFT = 6;
+	/** 哈希索引的最大桶数 */
+	static final int MAX_BUCKETS = 1 << 27;
+
+	// 块头部布局
+	/** LRU链表中的前一个对象 */
+	private static final int PREV = 0;
+	/** LRU链表中的后一个对象，空闲块为空闲链表中的下一个块 */
+	private static final int NEXT = 8;
+	/** 哈希桶中的下一个对象 */
+	private static final int CHAIN = 16;
+	/** 访问序号，用于比较不同大小级别的对象的新旧 */
+	private static final int ACCESS = 24;
+	/** 过期时间，0表示永久存活 */
+	private static final int EXPIRE = 32;
+	/** 存活时长，0表示永久存活 */
+	private static final int TTL = 40;
+	private static final int HASH = 48;
+	private static final int KEY_LENGTH = 52;
+	private static final int VALUE_LENGTH = 56;
+	/** 大小级别，空闲块为-1 */
+	private static final int SIZE_CLASS = 60;
+	private static final int HEADER = 64;
+
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final int capacity;
+	private final long timeout;
+	private final int slabSize;
+	private final int initialBuckets;
+
+	/** 以下字段受<code>lock</code>保护 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ByteBuffer[] slabs;
+	/** 每个slab的大小级别 */
+	private final int[] slabClasses;
+	private int slabCount;
+	/** 每个大小级别的空闲块链表 */
+	private final long[] freeChunks;
+	/** 每个大小级别的LRU链表，头部为最久未使用的对象 */
+	private final long[] lruHeads;
+	private final long[] lruTails;
+	/** 每个大小级别占用的slab数 */
+	private final int[] classSlabCounts;
+	private ByteBuffer index;
+	private int indexMask;
+	private int size;
+	private long accessClock;
+
+	/** 每个对象是否有单独的失效时长，用于决定清理过期对象是否有必要。 */
+	protected boolean existCustomTimeout;
+	/** 统计计数器 */
+	private final StatsCounter statsCounter = new StatsCounter();
+	/** 时钟 */
+	private volatile Ticker ticker = CoarseTicker.getDefault();
+
+	/**
+	 * 构造，slab大小为{@link #DEFAULT_SLAB_SIZE}
+	 *
+	 * @param capacity 容量（对象数），<code>0</code>表示只受内存限制
+	 * @param timeout 过期时长，单位毫秒
+	 * @param maxMemory 最多使用的直接内存，单位字节，不包括哈希索引
+	 * @param keySerializer 键的序列化器，相等的键必须序列化为相同的字节
+	 * @param valueSerializer 值的序列化器
+	 */
+	public OffHeapCache(int capacity, long timeout, long maxMemory, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) {
+		this(capacity, timeout, maxMemory, DEFAULT_SLAB_SIZE, keySerializer, valueSerializer);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量（对象数），<code>0</code>表示只受内存限制
+	 * @param timeout 过期时长，单位毫秒
+	 * @param maxMemory 最多使用的直接内存，单位字节，不包括哈希索引
+	 * @param slabSize slab大小，2的幂，1KB到1GB之间，也是单个对象（含64字节头部）的最大大小
+	 * @param keySerializer 键的序列化器，相等的键必须序列化为相同的字节
+	 * @param valueSerializer 值的序列化器
+	 */
+	public OffHeapCache(int capacity, long timeout, long maxMemory, int slabSize, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+		}
+		if (slabSize < (1 << 10) || slabSize > (1 << 30) || Integer.bitCount(slabSize) != 1) {
+			throw new IllegalArgumentException("slabSize must be a power of two between 1KB and 1GB: " + slabSize);
+		}
+		if (maxMemory < slabSize || maxMemory / slabSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("maxMemory must hold between 1 and Integer.MAX_VALUE slabs: " + maxMemory);
+		}
+		if (null == keySerializer || null == valueSerializer) {
+			throw new IllegalArgumentException("serializers must not be null");
+		}
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.slabSize = slabSize;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+
+		final int slabCapacity = (int) (maxMemory / slabSize);
+		this.slabs = new ByteBuffer[slabCapacity];
+		this.slabClasses = new int[slabCapacity];
+		final int classes = Integer.numberOfTrailingZeros(slabSize) - MIN_CHUNK_SHIFT + 1;
+		this.freeChunks = new long[classes];
+		this.lruHeads = new long[classes];
+		this.lruTails = new long[classes];
+		this.classSlabCounts = new int[classes];
+		for (int i = 0; i < classes; i++) {
+			freeChunks[i] = NIL;
+			lruHeads[i] = NIL;
+			lruTails[i] = NIL;
+		}
+
+		final int expected = (capacity > 0) ? Math.min(capacity, MAX_BUCKETS) : 1024;
+		this.initialBuckets = Math.min(MAX_BUCKETS, AbstractConcurrentCache.ceilingPowerOfTwo(Math.max(16, expected)));
+		this.index = newIndex(initialBuckets);
+		this.indexMask = initialBuckets - 1;
+	}
+
+	// ---------------------------------------------------------------- put start
+	@Override
+	public void put(K key, V object) {
+		put(key, object, timeout);
+	}
+
+	/**
+	 * 将对象加入到缓存，使用指定失效时长（从最后访问时间开始计算）
+	 *
+	 * @throws IllegalArgumentException 序列化后的对象超过slab大小
+	 */
+	@Override
+	public void put(K key, V object, long timeout) {
+		final byte[] keyBytes = keySerializer.serialize(key);
+		final byte[] valueBytes = valueSerializer.serialize(object);
+		lock.lock();
+		try {
+			putWithoutLock(keyBytes, valueBytes, timeout);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 批量加入对象，序列化在锁外完成，整批只加锁一次
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		final List<byte[]> serialized = new ArrayList<byte[]>(map.size() * 2);
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			serialized.add(keySerializer.serialize(entry.getKey()));
+			serialized.add(valueSerializer.serialize(entry.getValue()));
+		}
+		lock.lock();
+		try {
+			for (int i = 0; i < serialized.size(); i += 2) {
+				putWithoutLock(serialized.get(i), serialized.get(i + 1), timeout);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void putWithoutLock(byte[] keyBytes, byte[] valueBytes, long timeout) {
+		final int sizeClass = sizeClassOf(HEADER + keyBytes.length + valueBytes.length);
+		if (timeout != 0) {
+			existCustomTimeout = true;
+		}
+		final int hash = hash(keyBytes);
+		final long old = find(keyBytes, hash);
+		if (old != NIL) {
+			removeEntry(old);
+		}
+		if (capacity > 0 && size >= capacity) {
+			evictEldest();
+		}
+
+		final long address = allocate(sizeClass);
+		final ByteBuffer slab = slab(address);
+		final int offset = (int) address;
+		slab.putLong(offset + ACCESS, ++accessClock);
+		slab.putLong(offset + EXPIRE, (timeout > 0) ? ticker.currentTimeMillis() + timeout : 0);
+		slab.putLong(offset + TTL, timeout);
+		slab.putInt(offset + HASH, hash);
+		slab.putInt(offset + KEY_LENGTH, keyBytes.length);
+		slab.putInt(offset + VALUE_LENGTH, valueBytes.length);
+		slab.putInt(offset + SIZE_CLASS, sizeClass);
+		writeBytes(address, HEADER, keyBytes);
+		writeBytes(address, HEADER + keyBytes.length, valueBytes);
+
+		final int bucket = (hash & indexMask) << 3;
+		slab.putLong(offset + CHAIN, index.getLong(bucket));
+		index.putLong(bucket, address);
+		linkLast(sizeClass, address);
+		size++;
+		if (size > ((indexMask + 1) >>> 2) * 3 && indexMask + 1 < MAX_BUCKETS) {
+			resize();
+		}
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- get start
+	/**
+	 * 是否包含未过期的对象，不更新访问顺序，不计入统计，过期的对象留给读取或清理时移除
+	 */
+	@Override
+	public boolean containsKey(K key) {
+		final byte[] keyBytes = keySerializer.serialize(key);
+		lock.lock();
+		try {
+			final long address = find(keyBytes, hash(keyBytes));
+			return address != NIL && !isExpired(address);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return 命中数
+	 */
+	public long getHitCount() {
+		return statsCounter.hitCount();
+	}
+
+	/**
+	 * @return 丢失数
+	 */
+	public long getMissCount() {
+		return statsCounter.missCount();
+	}
+
+	@Override
+	public CacheStats stats() {
+		return statsCounter.snapshot();
+	}
+
+	@Override
+	public V get(K key) {
+		return get(key, true);
+	}
+
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		final byte[] keyBytes = keySerializer.serialize(key);
+		final byte[] valueBytes;
+		lock.lock();
+		try {
+			valueBytes = getWithoutLock(keyBytes, isUpdateLastAccess);
+		} finally {
+			lock.unlock();
+		}
+		return (null == valueBytes) ? null : valueSerializer.deserialize(valueBytes);
+	}
+
+	/**
+	 * 批量获得对象，整批只加锁一次，反序列化在锁外完成
+	 */
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		final List<K> keyList = new ArrayList<K>();
+		final List<byte[]> serialized = new ArrayList<byte[]>();
+		for (K key : keys) {
+			keyList.add(key);
+			serialized.add(keySerializer.serialize(key));
+		}
+		final byte[][] values = new byte[keyList.size()][];
+		lock.lock();
+		try {
+			for (int i = 0; i < values.length; i++) {
+				values[i] = getWithoutLock(serialized.get(i), true);
+			}
+		} finally {
+			lock.unlock();
+		}
+		final Map<K, V> result = new LinkedHashMap<K, V>();
+		for (int i = 0; i < values.length; i++) {
+			if (null != values[i]) {
+				result.put(keyList.get(i), valueSerializer.deserialize(values[i]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 获得对象序列化后的字节，与{@link LRUCache}相同，无论是否更新最后访问时间都会移到最近使用的位置
+	 */
+	private byte[] getWithoutLock(byte[] keyBytes, boolean isUpdateLastAccess) {
+		final long address = find(keyBytes, hash(keyBytes));
+		if (address == NIL) {
+			statsCounter.recordMisses(1);
+			return null;
+		}
+		if (isExpired(address)) {
+			removeEntry(address);
+			statsCounter.recordExpiration();
+			statsCounter.recordMisses(1);
+			return null;
+		}
+		statsCounter.recordHits(1);
+		final ByteBuffer slab = slab(address);
+		final int offset = (int) address;
+		final int sizeClass = slab.getInt(offset + SIZE_CLASS);
+		slab.putLong(offset + ACCESS, ++accessClock);
+		unlink(sizeClass, address);
+		linkLast(sizeClass, address);
+		if (isUpdateLastAccess) {
+			final long ttl = slab.getLong(offset + TTL);
+			if (ttl > 0) {
+				slab.putLong(offset + EXPIRE, ticker.currentTimeMillis() + ttl);
+			}
+		}
+		return readBytes(address, HEADER + slab.getInt(offset + KEY_LENGTH), slab.getInt(offset + VALUE_LENGTH));
+	}
+	// ---------------------------------------------------------------- get end
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<V> iterator() {
+		return new CacheValuesIterator<V>((CacheObjIterator<K, V>) cacheObjIterator());
+	}
+
+	/**
+	 * 复制所有未过期对象的字节后在锁外反序列化
+	 */
+	@Override
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		final List<byte[]> serialized = new ArrayList<byte[]>();
+		final List<long[]> times = new ArrayList<long[]>();
+		lock.lock();
+		try {
+			for (int i = 0; i < slabCount; i++) {
+				final int chunkSize = 1 << (MIN_CHUNK_SHIFT + slabClasses[i]);
+				for (int offset = 0; offset < slabSize; offset += chunkSize) {
+					final long address = ((long) i << 32) | offset;
+					if (slabs[i].getInt(offset + SIZE_CLASS) < 0 || isExpired(address)) {
+						continue;
+					}
+					final int keyLength = slabs[i].getInt(offset + KEY_LENGTH);
+					serialized.add(readBytes(address, HEADER, keyLength));
+					serialized.add(readBytes(address, HEADER + keyLength, slabs[i].getInt(offset + VALUE_LENGTH)));
+					times.add(new long[] { slabs[i].getLong(offset + TTL), slabs[i].getLong(offset + EXPIRE) });
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		final long now = ticker.currentTimeMillis();
+		final List<CacheObj<K, V>> copied = new ArrayList<CacheObj<K, V>>(times.size());
+		for (int i = 0; i < times.size(); i++) {
+			final CacheObj<K, V> co = CacheObj.create(keySerializer.deserialize(serialized.get(2 * i)),
+					valueSerializer.deserialize(serialized.get(2 * i + 1)), times.get(i)[0], now, true, false);
+			co.setExpireTime(times.get(i)[1]);
+			copied.add(co);
+		}
+		return new CacheObjIterator<K, V>(copied.iterator(), now);
+	}
+
+	// ---------------------------------------------------------------- prune start
+	/**
+	 * 遍历全部对象清理过期对象
+	 *
+	 * @return 清理数
+	 */
+	@Override
+	public int prune() {
+		lock.lock();
+		try {
+			if (timeout == 0 && false == existCustomTimeout) {
+				return 0;
+			}
+			int count = 0;
+			for (int i = 0; i < slabCount; i++) {
+				final int chunkSize = 1 << (MIN_CHUNK_SHIFT + slabClasses[i]);
+				for (int offset = 0; offset < slabSize; offset += chunkSize) {
+					final long address = ((long) i << 32) | offset;
+					if (slabs[i].getInt(offset + SIZE_CLASS) >= 0 && isExpired(address)) {
+						removeEntry(address);
+						statsCounter.recordExpiration();
+						count++;
+					}
+				}
+			}
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+	// ---------------------------------------------------------------- prune end
+
+	// ---------------------------------------------------------------- common start
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public long timeout() {
+		return timeout;
+	}
+
+	@Override
+	public boolean isFull() {
+		return (capacity > 0) && (size >= capacity);
+	}
+
+	@Override
+	public void remove(K key) {
+		final byte[] keyBytes = keySerializer.serialize(key);
+		lock.lock();
+		try {
+			final long address = find(keyBytes, hash(keyBytes));
+			if (address != NIL) {
+				removeEntry(address);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 批量移除对象，整批只加锁一次
+	 */
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		final List<byte[]> serialized = new ArrayList<byte[]>();
+		for (K key : keys) {
+			serialized.add(keySerializer.serialize(key));
+		}
+		lock.lock();
+		try {
+			for (byte[] keyBytes : serialized) {
+				final long address = find(keyBytes, hash(keyBytes));
+				if (address != NIL) {
+					removeEntry(address);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 清空缓存，已分配的slab保留下来重新使用
+	 */
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			for (int i = 0; i < freeChunks.length; i++) {
+				freeChunks[i] = NIL;
+				lruHeads[i] = NIL;
+				lruTails[i] = NIL;
+				classSlabCounts[i] = 0;
+			}
+			slabCount = 0;
+			index = newIndex(initialBuckets);
+			indexMask = initialBuckets - 1;
+			size = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return 已分配的直接内存，单位字节，不包括哈希索引
+	 */
+	public long allocatedMemory() {
+		lock.lock();
+		try {
+			return (long) slabCount * slabSize;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 设置时钟，应在加入对象前设置
+	 * @param ticker 时钟
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		this.ticker = ticker;
+	}
+
+	/**
+	 * @return 时钟，默认为{@link CoarseTicker#getDefault()}
+	 */
+	public Ticker getTicker() {
+		return ticker;
+	}
+
+	@Override
+	public String toString() {
+		return "OffHeapCache [size=" + size + ", capacity=" + capacity + ", slabs=" + slabCount + ", slabSize=" + slabSize + "]";
+	}
+	// ---------------------------------------------------------------- common end
+
+	// ---------------------------------------------------------------- memory start
+	/**
+	 * 分配一个块：优先使用空闲块，其次分配新的slab，再次淘汰同一级别最久未使用的对象，最后从其它级别回收slab
+	 *
+	 * @param sizeClass 大小级别
+	 * @return 块地址
+	 */
+	private long allocate(int sizeClass) {
+		long chunk = freeChunks[sizeClass];
+		if (chunk == NIL) {
+			if (slabCount < slabs.length) {
+				assignSlab(slabCount++, sizeClass);
+			} else if (lruHeads[sizeClass] != NIL) {
+				evictEntry(lruHeads[sizeClass]);
+			} else {
+				reassignSlab(sizeClass);
+			}
+			chunk = freeChunks[sizeClass];
+		}
+		freeChunks[sizeClass] = slab(chunk).getLong((int) chunk + NEXT);
+		return chunk;
+	}
+
+	/**
+	 * 将slab切分为指定大小级别的块，全部加入空闲链表
+	 */
+	private void assignSlab(int slab, int sizeClass) {
+		if (null == slabs[slab]) {
+			slabs[slab] = ByteBuffer.allocateDirect(slabSize);
+		}
+		slabClasses[slab] = sizeClass;
+		classSlabCounts[sizeClass]++;
+		final int chunkSize = 1 << (MIN_CHUNK_SHIFT + sizeClass);
+		for (int offset = slabSize - chunkSize; offset >= 0; offset -= chunkSize) {
+			freeChunk(sizeClass, ((long) slab << 32) | offset);
+		}
+	}
+
+	/**
+	 * 从占用slab最多的级别回收一个slab，其中的对象全部移除
+	 *
+	 * @param sizeClass 需要slab的大小级别
+	 */
+	private void reassignSlab(int sizeClass) {
+		int victimClass = -1;
+		for (int i = 0; i < classSlabCounts.length; i++) {
+			if (i != sizeClass && (victimClass < 0 || classSlabCounts[i] > classSlabCounts[victimClass])) {
+				victimClass = i;
+			}
+		}
+		int slab = slabCount - 1;
+		while (slabClasses[slab] != victimClass) {
+			slab--;
+		}
+
+		final int chunkSize = 1 << (MIN_CHUNK_SHIFT + victimClass);
+		for (int offset = 0; offset < slabSize; offset += chunkSize) {
+			if (slabs[slab].getInt(offset + SIZE_CLASS) >= 0) {
+				evictEntry(((long) slab << 32) | offset);
+			}
+		}
+		// 将该slab的块从原级别的空闲链表中去掉
+		long previous = NIL;
+		long chunk = freeChunks[victimClass];
+		while (chunk != NIL) {
+			final long next = slab(chunk).getLong((int) chunk + NEXT);
+			if ((int) (chunk >>> 32) == slab) {
+				if (previous == NIL) {
+					freeChunks[victimClass] = next;
+				} else {
+					slab(previous).putLong((int) previous + NEXT, next);
+				}
+			} else {
+				previous = chunk;
+			}
+			chunk = next;
+		}
+		classSlabCounts[victimClass]--;
+		assignSlab(slab, sizeClass);
+	}
+
+	private void freeChunk(int sizeClass, long address) {
+		final ByteBuffer slab = slab(address);
+		slab.putInt((int) address + SIZE_CLASS, -1);
+		slab.putLong((int) address + NEXT, freeChunks[sizeClass]);
+		freeChunks[sizeClass] = address;
+	}
+
+	/**
+	 * @param length 对象占用的字节数（含头部）
+	 * @return 能容纳的最小大小级别
+	 */
+	private int sizeClassOf(int length) {
+		if (length > slabSize) {
+			throw new IllegalArgumentException("Serialized entry of " + length + " bytes exceeds slab size " + slabSize);
+		}
+		final int chunkSize = AbstractConcurrentCache.ceilingPowerOfTwo(Math.max(length, 1 << MIN_CHUNK_SHIFT));
+		return Integer.numberOfTrailingZeros(chunkSize) - MIN_CHUNK_SHIFT;
+	}
+
+	private ByteBuffer slab(long address) {
+		return slabs[(int) (address >>> 32)];
+	}
+
+	private byte[] readBytes(long address, int offset, int length) {
+		final byte[] bytes = new byte[length];
+		final ByteBuffer buffer = slab(address).duplicate();
+		buffer.position((int) address + offset);
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private void writeBytes(long address, int offset, byte[] bytes) {
+		final ByteBuffer buffer = slab(address).duplicate();
+		buffer.position((int) address + offset);
+		buffer.put(bytes);
+	}
+	// ---------------------------------------------------------------- memory end
+
+	// ---------------------------------------------------------------- index start
+	private long find(byte[] keyBytes, int hash) {
+		long address = index.getLong((hash & indexMask) << 3);
+		while (address != NIL) {
+			final ByteBuffer slab = slab(address);
+			final int offset = (int) address;
+			if (slab.getInt(offset + HASH) == hash && keyEquals(slab, offset, keyBytes)) {
+				return address;
+			}
+			address = slab.getLong(offset + CHAIN);
+		}
+		return NIL;
+	}
+
+	private static boolean keyEquals(ByteBuffer slab, int offset, byte[] keyBytes) {
+		if (slab.getInt(offset + KEY_LENGTH) != keyBytes.length) {
+			return false;
+		}
+		final int start = offset + HEADER;
+		for (int i = 0; i < keyBytes.length; i++) {
+			if (slab.get(start + i) != keyBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 从哈希索引、LRU链表中移除对象并释放块
+	 */
+	private void removeEntry(long address) {
+		final ByteBuffer slab = slab(address);
+		final int offset = (int) address;
+		final int sizeClass = slab.getInt(offset + SIZE_CLASS);
+		final int bucket = (slab.getInt(offset + HASH) & indexMask) << 3;
+		final long next = slab.getLong(offset + CHAIN);
+		long current = index.getLong(bucket);
+		if (current == address) {
+			index.putLong(bucket, next);
+		} else {
+			long following;
+			while ((following = slab(current).getLong((int) current + CHAIN)) != address) {
+				current = following;
+			}
+			slab(current).putLong((int) current + CHAIN, next);
+		}
+		unlink(sizeClass, address);
+		freeChunk(sizeClass, address);
+		size--;
+	}
+
+	/**
+	 * 淘汰所有大小级别中最久未使用的对象，即各级别LRU链表头部中访问序号最小者
+	 */
+	private void evictEldest() {
+		int eldestClass = -1;
+		long eldestAccess = Long.MAX_VALUE;
+		for (int i = 0; i < lruHeads.length; i++) {
+			final long head = lruHeads[i];
+			if (head != NIL) {
+				final long access = slab(head).getLong((int) head + ACCESS);
+				if (access < eldestAccess) {
+					eldestAccess = access;
+					eldestClass = i;
+				}
+			}
+		}
+		if (eldestClass >= 0) {
+			evictEntry(lruHeads[eldestClass]);
+		}
+	}
+
+	/**
+	 * 因容量或内存不足淘汰对象并记录统计，已过期的对象记为过期
+	 */
+	private void evictEntry(long address) {
+		if (isExpired(address)) {
+			statsCounter.recordExpiration();
+		} else {
+			statsCounter.recordEviction(0);
+		}
+		removeEntry(address);
+	}
+
+	private boolean isExpired(long address) {
+		final long expireTime = slab(address).getLong((int) address + EXPIRE);
+		return (expireTime > 0) && (expireTime < ticker.currentTimeMillis());
+	}
+
+	private void linkLast(int sizeClass, long address) {
+		final long tail = lruTails[sizeClass];
+		final ByteBuffer slab = slab(address);
+		slab.putLong((int) address + PREV, tail);
+		slab.putLong((int) address + NEXT, NIL);
+		if (tail == NIL) {
+			lruHeads[sizeClass] = address;
+		} else {
+			slab(tail).putLong((int) tail + NEXT, address);
+		}
+		lruTails[sizeClass] = address;
+	}
+
+	private void unlink(int sizeClass, long address) {
+		final ByteBuffer slab = slab(address);
+		final long prev = slab.getLong((int) address + PREV);
+		final long next = slab.getLong((int) address + NEXT);
+		if (prev == NIL) {
+			lruHeads[sizeClass] = next;
+		} else {
+			slab(prev).putLong((int) prev + NEXT, next);
+		}
+		if (next == NIL) {
+			lruTails[sizeClass] = prev;
+		} else {
+			slab(next).putLong((int) next + PREV, prev);
+		}
+	}
+
+	/**
+	 * 哈希索引扩容一倍
+	 */
+	private void resize() {
+		final ByteBuffer oldIndex = index;
+		final int oldBuckets = indexMask + 1;
+		index = newIndex(oldBuckets << 1);
+		indexMask = (oldBuckets << 1) - 1;
+		for (int i = 0; i < oldBuckets; i++) {
+			long address = oldIndex.getLong(i << 3);
+			while (address != NIL) {
+				final ByteBuffer slab = slab(address);
+				final int offset = (int) address;
+				final long next = slab.getLong(offset + CHAIN);
+				final int bucket = (slab.getInt(offset + HASH) & indexMask) << 3;
+				slab.putLong(offset + CHAIN, index.getLong(bucket));
+				index.putLong(bucket, address);
+				address = next;
+			}
+		}
+	}
+
+	private static ByteBuffer newIndex(int buckets) {
+		final ByteBuffer index = ByteBuffer.allocateDirect(buckets << 3);
+		for (int i = 0; i < buckets; i++) {
+			index.putLong(i << 3, NIL);
+		}
+		return index;
+	}
+
+	/**
+	 * FNV-1a哈希后再打散
+	 */
+	static int hash(byte[] bytes) {
+		int h = 0x811C9DC5;
+		for (byte b : bytes) {
+			h ^= b;
+			h *= 0x01000193;
+		}
+		h ^= (h >>> 16);
+		h *= 0x85EBCA6B;
+		h ^= (h >>> 13);
+		return h;
+	}
+	// ---------------------------------------------------------------- index end
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import me.asu.CacheStats;
+
+/**
+ * 以Prometheus文本格式输出{@link CacheRegistry}中全部缓存的指标<br>
+ * 使用JDK自带的{@link HttpServer}，只监听本机回环地址，路径为<code>/metrics</code>，不依赖其它库。
+ * 指标来自无锁累计的计数器和延迟直方图，抓取时不获取缓存的锁。
+ *
+ * @author Suk
+ */
+public class PrometheusExporter implements Closeable {
+
+	/** 文本格式的Content-Type */
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	/** 输出的清理耗时百分位 */
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final HttpServer server;
+
+	/**
+	 * 构造并启动，监听本机回环地址
+	 *
+	 * @param port 端口，<code>0</code>表示由系统分配
+	 * @throws IOException 端口无法绑定
+	 */
+	public PrometheusExporter(int port) throws IOException {
+		this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+
+	/**
+	 * 构造并启动
+	 *
+	 * @param address 监听地址
+	 * @throws IOException 地址无法绑定
+	 */
+	public PrometheusExporter(InetSocketAddress address) throws IOException {
+		this.server = HttpServer.create(address, 0);
+		server.createContext("/metrics", new MetricsHandler());
+		server.start();
+	}
+
+	/**
+	 * @return 实际监听的地址
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * 停止服务
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	/**
+	 * 以Prometheus文本格式输出指标
+	 *
+	 * @param metrics 缓存的指标
+	 * @return 文本
+	 */
+	public static String scrape(Collection<CacheMetrics> metrics) {
+		final StringBuilder out = new StringBuilder(1024);
+		header(out, "asu_cache_size", "gauge", "Number of entries in the cache");
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_size", m, null, m.getSize());
+		}
+		header(out, "asu_cache_capacity", "gauge", "Maximum number of entries, 0 means unbounded");
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_capacity", m, null, m.getCapacity());
+		}
+
+		final CacheStats[] stats = new CacheStats[metrics.size()];
+		int i = 0;
+		for (CacheMetrics m : metrics) {
+			stats[i++] = m.stats();
+		}
+		header(out, "asu_cache_requests_total", "counter", "Cache lookups by result");
+		i = 0;
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_requests_total", m, "result=\"hit\"", stats[i].hitCount());
+			sample(out, "asu_cache_requests_total", m, "result=\"miss\"", stats[i++].missCount());
+		}
+		header(out, "asu_cache_hit_ratio", "gauge", "Ratio of lookups that were hits");
+		i = 0;
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_hit_ratio", m, null, stats[i++].hitRate());
+		}
+		header(out, "asu_cache_evictions_total", "counter", "Entries removed from the cache by cause");
+		i = 0;
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_evictions_total", m, "cause=\"size\"", stats[i].evictionCount());
+			sample(out, "asu_cache_evictions_total", m, "cause=\"expired\"", stats[i++].expirationCount());
+		}
+		header(out, "asu_cache_eviction_weight_total", "counter", "Total weight of entries evicted for size");
+		i = 0;
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_eviction_weight_total", m, null, stats[i++].evictionWeight());
+		}
+		header(out, "asu_cache_loads_total", "counter", "Loads by result");
+		i = 0;
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_loads_total", m, "result=\"success\"", stats[i].loadSuccessCount());
+			sample(out, "asu_cache_loads_total", m, "result=\"failure\"", stats[i++].loadFailureCount());
+		}
+		header(out, "asu_cache_load_duration_seconds_total", "counter", "Total time spent loading");
+		i = 0;
+		for (CacheMetrics m : metrics) {
+			sample(out, "asu_cache_load_duration_seconds_total", m, null, stats[i++].totalLoadTime() / NANOS_PER_SECOND);
+		}
+
+		header(out, "asu_cache_prune_duration_seconds", "summary", "Time spent running the prune policy");
+		for (CacheMetrics m : metrics) {
+			final LatencyHistogram.Snapshot pruneTimes = m.pruneTimes();
+			if (null == pruneTimes) {
+				continue;
+			}
+			for (double quantile : QUANTILES) {
+				sample(out, "asu_cache_prune_duration_seconds", m, "quantile=\"" + quantile + "\"",
+						pruneTimes.percentile(quantile * 100) / NANOS_PER_SECOND);
+			}
+			sample(out, "asu_cache_prune_duration_seconds_sum", m, null, pruneTimes.totalTime() / NANOS_PER_SECOND);
+			sample(out, "asu_cache_prune_duration_seconds_count", m, null, pruneTimes.count());
+		}
+		return out.toString();
+	}
+
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, CacheMetrics metrics, String labels, double value) {
+		out.append(name).append("{cache=\"");
+		escape(out, metrics.getName());
+		out.append('"');
+		if (null != labels) {
+			out.append(',').append(labels);
+		}
+		out.append("} ");
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			out.append((long) value);
+		} else {
+			out.append(value);
+		}
+		out.append('\n');
+	}
+
+	/**
+	 * 转义标签值中的反斜杠、双引号和换行
+	 */
+	private static void escape(StringBuilder out, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			default:
+				out.append(c);
+			}
+		}
+	}
+
+	/**
+	 * 处理<code>/metrics</code>请求
+	 */
+	private static class MetricsHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				if (false == "GET".equals(exchange.getRequestMethod())) {
+					exchange.sendResponseHeaders(405, -1);
+					return;
+				}
+				final byte[] body = scrape(CacheRegistry.all()).getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, body.length);
+				final OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.flush();
+			} finally {
+				exchange.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import me.asu.Cache;
+import me.asu.CacheStats;
+import me.asu.Ticker;
+
+/**
+ * 分段缓存<br>
+ * 按键的哈希值将对象分散到N个相互独立的缓存中，每个分段有自己的锁和淘汰策略，
+ * 因此不同分段的写入、清理和淘汰不再互相阻塞。<br>
+ * 容量平均分配到每个分段，淘汰只在分段内部进行，因此整体上是近似的LRU/LFU/FIFO。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class SegmentedCache<K, V> implements Cache<K, V> {
+
+	/** 默认分段数 */
+	public static final int DEFAULT_SEGMENTS = 16;
+
+	private final Cache<K, V>[] segments;
+	private final int segmentMask;
+	private final int capacity;
+	private final long timeout;
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 总容量，<code>0</code>表示无大小限制
+	 * @param timeout 过期时长，单位毫秒
+	 * @param segmentCount 分段数，会被调整为不小于此值的2的幂
+	 * @param factory 分段缓存创建器
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public SegmentedCache(int capacity, long timeout, int segmentCount, SegmentFactory<K, V> factory) {
+		if (segmentCount <= 0) {
+			throw new IllegalArgumentException("segmentCount must be positive: " + segmentCount);
+		}
+		int size = 1;
+		while (size < segmentCount) {
+			size <<= 1;
+		}
+		if (capacity > 0 && size > capacity) {
+			// 保证每个分段至少能容纳一个对象
+			size = Integer.highestOneBit(capacity);
+		}
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.segmentMask = size - 1;
+		this.segments = new Cache[size];
+		// 余数分给前面的分段，保证分段容量之和等于总容量
+		final int segmentCapacity = capacity / size;
+		final int remainder = capacity % size;
+		for (int i = 0; i < size; i++) {
+			segments[i] = factory.create((i < remainder) ? segmentCapacity + 1 : segmentCapacity, timeout);
+		}
+	}
+
+	/**
+	 * 根据键找到对应的分段
+	 *
+	 * @param key 键
+	 * @return 分段缓存
+	 */
+	protected Cache<K, V> segmentFor(K key) {
+		return segments[segmentIndex(key)];
+	}
+
+	private int segmentIndex(K key) {
+		int h = (key == null) ? 0 : key.hashCode();
+		// 打散低位，避免哈希值低位相同的键集中到同一分段
+		h ^= (h >>> 16);
+		h *= 0x85EBCA6B;
+		h ^= (h >>> 13);
+		return h & segmentMask;
+	}
+
+	/**
+	 * 按分段对键分组，没有键的分段为<code>null</code>
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<K>[] groupBySegment(Iterable<? extends K> keys) {
+		final List<K>[] groups = new List[segments.length];
+		for (K key : keys) {
+			final int index = segmentIndex(key);
+			if (null == groups[index]) {
+				groups[index] = new ArrayList<K>();
+			}
+			groups[index].add(key);
+		}
+		return groups;
+	}
+
+	/**
+	 * @return 分段数
+	 */
+	public int segmentCount() {
+		return segments.length;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public long timeout() {
+		return timeout;
+	}
+
+	@Override
+	public void put(K key, V object) {
+		segmentFor(key).put(key, object);
+	}
+
+	@Override
+	public void put(K key, V object, long timeout) {
+		segmentFor(key).put(key, object, timeout);
+	}
+
+	/**
+	 * 按分段分组后每个分段批量加入一次
+	 */
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void putAll(Map<? extends K, ? extends V> map) {
+		final Map<K, V>[] groups = new Map[segments.length];
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			final int index = segmentIndex(entry.getKey());
+			if (null == groups[index]) {
+				groups[index] = new LinkedHashMap<K, V>();
+			}
+			groups[index].put(entry.getKey(), entry.getValue());
+		}
+		for (int i = 0; i < groups.length; i++) {
+			if (null != groups[i]) {
+				segments[i].putAll(groups[i]);
+			}
+		}
+	}
+
+	@Override
+	public V get(K key) {
+		return segmentFor(key).get(key);
+	}
+
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		return segmentFor(key).get(key, isUpdateLastAccess);
+	}
+
+	/**
+	 * 按分段分组后每个分段批量获取一次
+	 */
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		// 键可能只能遍历一次
+		final List<K> keyList = new ArrayList<K>();
+		for (K key : keys) {
+			keyList.add(key);
+		}
+		final List<K>[] groups = groupBySegment(keyList);
+		final Map<K, V> found = new LinkedHashMap<K, V>();
+		for (int i = 0; i < groups.length; i++) {
+			if (null != groups[i]) {
+				found.putAll(segments[i].getAll(groups[i]));
+			}
+		}
+		// 恢复键的顺序
+		final Map<K, V> result = new LinkedHashMap<K, V>(found.size() * 2);
+		for (K key : keyList) {
+			final V value = found.get(key);
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 查看缓存对象，不更新访问信息，不计入命中数
+	 *
+	 * @param key 键
+	 * @return 缓存对象，不存在、已过期或分段不支持时返回<code>null</code>
+	 */
+	CacheObj<K, V> getCacheObj(K key) {
+		return CacheObj.peek(segmentFor(key), key);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<V> iterator() {
+		CacheObjIterator<K, V> iterator = (CacheObjIterator<K, V>) this.cacheObjIterator();
+		return new CacheValuesIterator<V>(iterator);
+	}
+
+	/**
+	 * 依次返回每个分段的对象，每个分段单独复制，不会同时锁住所有分段
+	 */
+	@Override
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		return new CacheObjIterator<K, V>(new SegmentsIterator(), getTicker().currentTimeMillis());
+	}
+
+	/**
+	 * 依次清理每个分段
+	 *
+	 * @return 所有分段的清理数之和
+	 */
+	@Override
+	public int prune() {
+		int count = 0;
+		for (Cache<K, V> segment : segments) {
+			count += segment.prune();
+		}
+		return count;
+	}
+
+	@Override
+	public boolean isFull() {
+		return (capacity > 0) && (size() >= capacity);
+	}
+
+	@Override
+	public void remove(K key) {
+		segmentFor(key).remove(key);
+	}
+
+	/**
+	 * 按分段分组后每个分段批量移除一次
+	 */
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		final List<K>[] groups = groupBySegment(keys);
+		for (int i = 0; i < groups.length; i++) {
+			if (null != groups[i]) {
+				segments[i].removeAll(groups[i]);
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Cache<K, V> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Cache<K, V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (Cache<K, V> segment : segments) {
+			if (false == segment.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		return segmentFor(key).containsKey(key);
+	}
+
+	/**
+	 * @return 所有分段的统计之和
+	 */
+	@Override
+	public CacheStats stats() {
+		CacheStats stats = CacheStats.empty();
+		for (Cache<K, V> segment : segments) {
+			stats = stats.plus(segment.stats());
+		}
+		return stats;
+	}
+
+	/**
+	 * 设置所有分段的时钟，应在加入对象前设置
+	 *
+	 * @param ticker 时钟
+	 * @throws IllegalArgumentException 分段不是本包中支持时钟的缓存实现
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		for (Cache<K, V> segment : segments) {
+			if (false == CacheObj.setTicker(segment, ticker)) {
+				throw new IllegalArgumentException("Segment does not support ticker: " + segment.getClass().getName());
+			}
+		}
+	}
+
+	/**
+	 * @return 分段使用的时钟
+	 */
+	public Ticker getTicker() {
+		return CacheObj.tickerOf(segments[0]);
+	}
+
+	/**
+	 * 分段缓存创建器
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 */
+	public interface SegmentFactory<K, V> {
+
+		/**
+		 * 创建一个分段
+		 *
+		 * @param capacity 分段容量，<code>0</code>表示无大小限制
+		 * @param timeout 过期时长，单位毫秒
+		 * @return 分段缓存
+		 */
+		Cache<K, V> create(int capacity, long timeout);
+	}
+
+	/**
+	 * 串联所有分段的迭代器
+	 */
+	private class SegmentsIterator implements Iterator<CacheObj<K, V>> {
+
+		private int index;
+		private Iterator<CacheObj<K, V>> current;
+
+		@Override
+		public boolean hasNext() {
+			while (current == null || false == current.hasNext()) {
+				if (index >= segments.length) {
+					return false;
+				}
+				current = segments[index++].cacheObjIterator();
+			}
+			return true;
+		}
+
+		@Override
+		public CacheObj<K, V> next() {
+			if (false == hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("This is a read-only iterator.");
+		}
+	}
+}
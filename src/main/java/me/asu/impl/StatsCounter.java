@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+import me.asu.CacheStats;
+
+/**
+ * 缓存统计计数器<br>
+ * 每个计数使用{@link LongAdder}，并发递增时分散到不同的单元而不是竞争同一个变量，
+ * 无需持有缓存的锁，开销足够小，可以在生产环境中始终开启。线程安全。
+ *
+ * @author Suk
+ */
+final class StatsCounter {
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadTime = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder evictionWeight = new LongAdder();
+	private final LongAdder expirationCount = new LongAdder();
+
+	void recordHits(int count) {
+		hitCount.add(count);
+	}
+
+	void recordMisses(int count) {
+		missCount.add(count);
+	}
+
+	/**
+	 * @param loadTime 加载耗时，单位纳秒
+	 */
+	void recordLoadSuccess(long loadTime) {
+		loadSuccessCount.increment();
+		totalLoadTime.add(loadTime);
+	}
+
+	/**
+	 * @param loadTime 加载耗时，单位纳秒
+	 */
+	void recordLoadFailure(long loadTime) {
+		loadFailureCount.increment();
+		totalLoadTime.add(loadTime);
+	}
+
+	/**
+	 * @param weight 被淘汰对象的权重
+	 */
+	void recordEviction(int weight) {
+		evictionCount.increment();
+		evictionWeight.add(weight);
+	}
+
+	void recordExpiration() {
+		expirationCount.increment();
+	}
+
+	long hitCount() {
+		return hitCount.sum();
+	}
+
+	long missCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * @return 当前计数的快照，各计数分别读取，并发更新时彼此之间不保证一致
+	 */
+	CacheStats snapshot() {
+		return new CacheStats(
+				negativeToMax(hitCount.sum()),
+				negativeToMax(missCount.sum()),
+				negativeToMax(loadSuccessCount.sum()),
+				negativeToMax(loadFailureCount.sum()),
+				negativeToMax(totalLoadTime.sum()),
+				negativeToMax(evictionCount.sum()),
+				negativeToMax(evictionWeight.sum()),
+				negativeToMax(expirationCount.sum()));
+	}
+
+	/**
+	 * 溢出后保持为{@link Long#MAX_VALUE}
+	 */
+	private static long negativeToMax(long value) {
+		return (value < 0) ? Long.MAX_VALUE : value;
+	}
+}
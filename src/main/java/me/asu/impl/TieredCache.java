@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import me.asu.Cache;
+import me.asu.CacheStats;
+import me.asu.EvictionListener;
+import me.asu.Ticker;
+
+/**
+ * 两级缓存：内存缓存加磁盘存储<br>
+ * 内存缓存因容量不足淘汰的对象（连同存活时长和过期时间）转存到{@link DiskStore}，
+ * 淘汰时只记录对象，在内存缓存的锁外由执行该操作的线程写入磁盘，
+ * 内存缓存未命中时从磁盘存储中取回对象，内存缓存中仍没有该键时放回，恢复原存活时长和过期时间。
+ * 作为{@link DefaultLoadingCache}的被包装缓存时，两级都未命中才调用加载器。<br>
+ * 迭代器只包含内存缓存中的对象。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TieredCache<K, V> implements Cache<K, V> {
+
+	/** 内存缓存 */
+	protected final Cache<K, V> cache;
+	/** 磁盘存储 */
+	protected final DiskStore<K, V> diskStore;
+	/** 已淘汰、尚未写入磁盘的对象 */
+	private final ConcurrentMap<K, Spill<V>> spills = new ConcurrentHashMap<K, Spill<V>>();
+
+	/**
+	 * 构造，注册内存缓存的淘汰监听器
+	 *
+	 * @param cache 内存缓存
+	 * @param diskStore 磁盘存储
+	 */
+	public TieredCache(AbstractCache<K, V> cache, DiskStore<K, V> diskStore) {
+		this((Cache<K, V>) cache, diskStore);
+		cache.setEvictionListener(new SpillListener());
+	}
+
+	/**
+	 * 构造，注册内存缓存的淘汰监听器
+	 *
+	 * @param cache 内存缓存
+	 * @param diskStore 磁盘存储
+	 */
+	public TieredCache(AbstractConcurrentCache<K, V> cache, DiskStore<K, V> diskStore) {
+		this((Cache<K, V>) cache, diskStore);
+		cache.setEvictionListener(new SpillListener());
+	}
+
+	private TieredCache(Cache<K, V> cache, DiskStore<K, V> diskStore) {
+		if (null == cache || null == diskStore) {
+			throw new IllegalArgumentException("cache and diskStore must not be null");
+		}
+		this.cache = cache;
+		this.diskStore = diskStore;
+		diskStore.setTicker(CacheObj.tickerOf(cache));
+	}
+
+	/**
+	 * @return 磁盘存储
+	 */
+	public DiskStore<K, V> getDiskStore() {
+		return diskStore;
+	}
+
+	/**
+	 * 设置内存缓存和磁盘存储的时钟，应在加入对象前设置
+	 *
+	 * @param ticker 时钟
+	 */
+	public void setTicker(Ticker ticker) {
+		if (null == ticker) {
+			throw new IllegalArgumentException("ticker must not be null");
+		}
+		CacheObj.setTicker(cache, ticker);
+		diskStore.setTicker(ticker);
+	}
+
+	/**
+	 * @return 内存缓存的时钟
+	 */
+	public Ticker getTicker() {
+		return CacheObj.tickerOf(cache);
+	}
+
+	// ---------------------------------------------------------------- put start
+	@Override
+	public void put(K key, V object) {
+		// 先移除磁盘中的旧值，放入时可能立即被淘汰并转存
+		diskStore.remove(key);
+		spills.remove(key);
+		cache.put(key, object);
+		spill();
+	}
+
+	@Override
+	public void put(K key, V object, long timeout) {
+		diskStore.remove(key);
+		spills.remove(key);
+		cache.put(key, object, timeout);
+		spill();
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		diskStore.removeAll(map.keySet());
+		spills.keySet().removeAll(map.keySet());
+		cache.putAll(map);
+		spill();
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- get start
+	@Override
+	public V get(K key) {
+		return get(key, true);
+	}
+
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		final V value = cache.get(key, isUpdateLastAccess);
+		spill();
+		if (null != value) {
+			return value;
+		}
+		final CacheObj<K, V> co = diskStore.take(key);
+		if (null == co) {
+			return null;
+		}
+		promote(co);
+		spill();
+		return co.obj;
+	}
+
+	@Override
+	public Map<K, V> getAll(Iterable<? extends K> keys) {
+		// 键可能只能遍历一次
+		final List<K> keyList = new ArrayList<K>();
+		for (K key : keys) {
+			keyList.add(key);
+		}
+		final Map<K, V> found = cache.getAll(keyList);
+		spill();
+		final Map<K, V> result = new LinkedHashMap<K, V>();
+		for (K key : keyList) {
+			V value = found.get(key);
+			if (null == value && false == result.containsKey(key)) {
+				final CacheObj<K, V> co = diskStore.take(key);
+				if (null != co) {
+					promote(co);
+					value = co.obj;
+				}
+			}
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		spill();
+		return result;
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		return cache.containsKey(key) || spills.containsKey(key) || diskStore.containsKey(key);
+	}
+
+	/**
+	 * 将从磁盘中取回的对象放回内存缓存，恢复原存活时长和过期时间<br>
+	 * 取回期间已有新对象放入内存缓存时不放回，磁盘中的旧值不会覆盖新值
+	 */
+	private void promote(CacheObj<K, V> co) {
+		CacheObj.restoreIfAbsent(cache, co.key, co.obj, co.getTtl(), co.getExpireTime(), co.getAccessCount());
+	}
+	// ---------------------------------------------------------------- get end
+
+	/**
+	 * 在内存缓存的锁外把淘汰的对象写入磁盘<br>
+	 * 多个线程同时写入时每个对象只写入一次；从记录中取出到写入完成之间读取该键会未命中
+	 */
+	private void spill() {
+		if (spills.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<K, Spill<V>> entry : spills.entrySet()) {
+			final Spill<V> spill = entry.getValue();
+			if (spills.remove(entry.getKey(), spill)) {
+				try {
+					diskStore.put(entry.getKey(), spill.value, spill.expireTime, spill.ttl);
+				} catch (RuntimeException e) {
+					// 转存失败时丢弃对象，与没有二级存储时相同
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return 内存缓存的迭代器，不包含磁盘中的对象
+	 */
+	@Override
+	public Iterator<V> iterator() {
+		return cache.iterator();
+	}
+
+	/**
+	 * @return 内存缓存的迭代器，不包含磁盘中的对象
+	 */
+	@Override
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		return cache.cacheObjIterator();
+	}
+
+	/**
+	 * 清理两级中的过期对象
+	 */
+	@Override
+	public int prune() {
+		final int pruned = cache.prune();
+		spill();
+		return pruned + diskStore.prune();
+	}
+
+	@Override
+	public int capacity() {
+		return cache.capacity();
+	}
+
+	@Override
+	public long timeout() {
+		return cache.timeout();
+	}
+
+	/**
+	 * @return 内存缓存是否已满
+	 */
+	@Override
+	public boolean isFull() {
+		return cache.isFull();
+	}
+
+	@Override
+	public void remove(K key) {
+		cache.remove(key);
+		spills.remove(key);
+		diskStore.remove(key);
+	}
+
+	@Override
+	public void removeAll(Iterable<? extends K> keys) {
+		// 键可能只能遍历一次
+		final List<K> keyList = new ArrayList<K>();
+		for (K key : keys) {
+			keyList.add(key);
+		}
+		cache.removeAll(keyList);
+		spills.keySet().removeAll(keyList);
+		diskStore.removeAll(keyList);
+	}
+
+	@Override
+	public void clear() {
+		cache.clear();
+		spills.clear();
+		diskStore.clear();
+	}
+
+	/**
+	 * @return 两级的对象数之和
+	 */
+	@Override
+	public int size() {
+		return cache.size() + spills.size() + diskStore.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return cache.isEmpty() && spills.isEmpty() && diskStore.size() == 0;
+	}
+
+	/**
+	 * @return 内存缓存的统计，从磁盘中取回的对象计为内存缓存的丢失，转存到磁盘的对象计为淘汰
+	 */
+	@Override
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	@Override
+	public String toString() {
+		return "TieredCache [cache=" + cache + ", diskStore=" + diskStore + "]";
+	}
+
+	/**
+	 * 记录淘汰的对象，在内存缓存的锁内调用，不写入磁盘
+	 */
+	private class SpillListener implements EvictionListener<K, V> {
+		@Override
+		public void onEvict(K key, V value, long expireTime) {
+			onEvict(key, value, expireTime, 0);
+		}
+
+		@Override
+		public void onEvict(K key, V value, long expireTime, long ttl) {
+			spills.put(key, new Spill<V>(value, expireTime, ttl));
+		}
+	}
+
+	/**
+	 * 等待写入磁盘的对象
+	 */
+	private static final class Spill<V> {
+		final V value;
+		final long expireTime;
+		final long ttl;
+
+		Spill(V value, long expireTime, long ttl) {
+			this.value = value;
+			this.expireTime = expireTime;
+			this.ttl = ttl;
+		}
+	}
+}
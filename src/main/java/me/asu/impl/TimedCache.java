@@ -24,10 +24,10 @@
 package me.asu.impl;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import me.asu.GlobalPruneTimer;
+import me.asu.Expiry;
 
 /**
  * 定时缓存<br>
@@ -52,6 +52,16 @@ public class TimedCache<K, V> extends AbstractCache<K, V> {
 		this(timeout, new HashMap<K, CacheObj<K, V>>());
 	}
 
+	/**
+	 * 构造，过期时间由过期策略计算
+	 * 
+	 * @param expiry 过期策略
+	 */
+	public TimedCache(Expiry<K, V> expiry) {
+		this(0);
+		this.expiry = expiry;
+	}
+
 	/**
 	 * 构造
 	 * 
@@ -66,23 +76,13 @@ public class TimedCache<K, V> extends AbstractCache<K, V> {
 
 	// ---------------------------------------------------------------- prune
 	/**
-	 * 清理过期对象
+	 * 清理过期对象，只处理时间轮中到期的桶
 	 * 
 	 * @return 清理数
 	 */
 	@Override
 	protected int pruneCache() {
-		int count = 0;
-		Iterator<CacheObj<K, V>> values = cacheMap.values().iterator();
-		CacheObj<K, V> co;
-		while (values.hasNext()) {
-			co = values.next();
-			if (co.isExpired()) {
-				values.remove();
-				count++;
-			}
-		}
-		return count;
+		return pruneExpired();
 	}
 
 	// ---------------------------------------------------------------- auto prune
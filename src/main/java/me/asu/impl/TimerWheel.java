@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮<br>
+ * 按到期时间将对象放入不同层级的桶中，层级越高桶的跨度越大：
+ * <ul>
+ * 		<li>第0层：64个桶，每桶16毫秒，覆盖约1秒</li>
+ * 		<li>第1层：64个桶，每桶约1秒，覆盖约1分钟</li>
+ * 		<li>第2层：64个桶，每桶约1分钟，覆盖约1小时</li>
+ * 		<li>第3层：64个桶，每桶约1小时，覆盖约3天</li>
+ * 		<li>第4层：64个桶，每桶约3天，覆盖约200天</li>
+ * 		<li>第5层：1个桶，保存更远的对象</li>
+ * </ul>
+ * 时间推进时只处理到期的桶：桶中已到期的对象被返回，未到期的对象降级到更低层级的桶。
+ * 因此每次推进的开销与到期（及降级）的对象数有关，而与时间轮中的对象总数无关。<br>
+ * 增加、删除、重新调度均为O(1)。不是线程安全的。
+ *
+ * @author Suk
+ *
+ * @param <E> 对象类型
+ */
+public final class TimerWheel<E> {
+
+	/** 每层桶的数量 */
+	static final int[] BUCKETS = { 64, 64, 64, 64, 64, 1 };
+	/** 每层桶的跨度（2的幂，毫秒） */
+	static final int[] SHIFT = { 4, 10, 16, 22, 28, 34 };
+
+	private final Timer<E>[][] wheel;
+	/** 时间轮当前时间 */
+	private long time;
+	private int size;
+
+	/**
+	 * 构造
+	 *
+	 * @param time 当前时间，单位毫秒
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TimerWheel(long time) {
+		this.time = time;
+		this.wheel = new Timer[BUCKETS.length][];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Timer[BUCKETS[i]];
+			for (int j = 0; j < wheel[i].length; j++) {
+				wheel[i][j] = Timer.sentinel();
+			}
+		}
+	}
+
+	/**
+	 * 加入对象
+	 *
+	 * @param element 对象
+	 * @param time 到期时间，单位毫秒
+	 * @return 定时器，用于取消或重新调度
+	 */
+	public Timer<E> schedule(E element, long time) {
+		final Timer<E> timer = new Timer<E>(element, time);
+		link(timer);
+		return timer;
+	}
+
+	/**
+	 * 修改到期时间，定时器已被取消或已到期时重新加入
+	 *
+	 * @param timer 定时器
+	 * @param time 新的到期时间，单位毫秒
+	 */
+	public void reschedule(Timer<E> timer, long time) {
+		if (timer.isScheduled()) {
+			unlink(timer);
+		}
+		timer.time = time;
+		link(timer);
+	}
+
+	/**
+	 * 取消定时器，已取消或已到期的定时器忽略
+	 *
+	 * @param timer 定时器
+	 */
+	public void deschedule(Timer<E> timer) {
+		if (null != timer && timer.isScheduled()) {
+			unlink(timer);
+		}
+	}
+
+	/**
+	 * 推进时间，返回到期的对象，到期的定时器移出时间轮<br>
+	 * 当前的第0层桶总会被检查，到期时间不晚于<code>now</code>的对象都会被返回，不会等到跨过桶的边界
+	 *
+	 * @param now 当前时间，单位毫秒
+	 * @return 到期对象列表
+	 */
+	public List<E> advance(long now) {
+		final List<E> expired = new ArrayList<E>();
+		final long previous = this.time;
+		if (now < previous) {
+			return expired;
+		}
+		this.time = now;
+		if ((now >>> SHIFT[0]) == (previous >>> SHIFT[0])) {
+			// 仍在同一个桶内，其中的对象可能已到期
+			expire(0, now >>> SHIFT[0], 0, expired);
+			return expired;
+		}
+		for (int i = 0; i < SHIFT.length; i++) {
+			final long previousTicks = previous >>> SHIFT[i];
+			final long currentTicks = now >>> SHIFT[i];
+			if (currentTicks - previousTicks <= 0L) {
+				break;
+			}
+			expire(i, previousTicks, currentTicks - previousTicks, expired);
+		}
+		return expired;
+	}
+
+	/**
+	 * @return 时间轮中的定时器数
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 移除全部定时器
+	 */
+	public void clear() {
+		for (Timer<E>[] buckets : wheel) {
+			for (Timer<E> sentinel : buckets) {
+				Timer<E> timer = sentinel.next;
+				while (timer != sentinel) {
+					final Timer<E> next = timer.next;
+					timer.prev = null;
+					timer.next = null;
+					timer = next;
+				}
+				sentinel.prev = sentinel;
+				sentinel.next = sentinel;
+			}
+		}
+		size = 0;
+	}
+
+	/**
+	 * 处理一层中从上次推进到本次推进之间的桶
+	 */
+	private void expire(int level, long previousTicks, long delta, List<E> expired) {
+		final Timer<E>[] buckets = wheel[level];
+		final int mask = buckets.length - 1;
+		final int steps = (int) Math.min(1 + delta, buckets.length);
+		final int start = (int) (previousTicks & mask);
+		final int end = start + steps;
+		for (int i = start; i < end; i++) {
+			final Timer<E> sentinel = buckets[i & mask];
+			Timer<E> timer = sentinel.next;
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			while (timer != sentinel) {
+				final Timer<E> next = timer.next;
+				timer.prev = null;
+				timer.next = null;
+				size--;
+				if (timer.time <= this.time) {
+					expired.add(timer.element);
+				} else {
+					// 降级到更低层级的桶
+					link(timer);
+				}
+				timer = next;
+			}
+		}
+	}
+
+	private void link(Timer<E> timer) {
+		final Timer<E> sentinel = findBucket(timer.time);
+		final Timer<E> last = sentinel.prev;
+		timer.prev = last;
+		timer.next = sentinel;
+		last.next = timer;
+		sentinel.prev = timer;
+		size++;
+	}
+
+	private void unlink(Timer<E> timer) {
+		timer.prev.next = timer.next;
+		timer.next.prev = timer.prev;
+		timer.prev = null;
+		timer.next = null;
+		size--;
+	}
+
+	/**
+	 * 根据到期时间与当前时间的差值确定层级，已过期的对象放入当前桶，在下次推进时返回
+	 */
+	private Timer<E> findBucket(long time) {
+		final long t = Math.max(time, this.time);
+		final long duration = t - this.time;
+		final int last = wheel.length - 1;
+		for (int i = 0; i < last; i++) {
+			if (duration < (1L << SHIFT[i + 1])) {
+				final long ticks = t >>> SHIFT[i];
+				return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+			}
+		}
+		return wheel[last][0];
+	}
+
+	/**
+	 * 定时器，时间轮桶中链表的节点
+	 *
+	 * @param <E> 对象类型
+	 */
+	public static final class Timer<E> {
+		final E element;
+		long time;
+		Timer<E> prev;
+		Timer<E> next;
+
+		Timer(E element, long time) {
+			this.element = element;
+			this.time = time;
+		}
+
+		/**
+		 * @return 桶的哨兵节点，自成环
+		 */
+		static <E> Timer<E> sentinel() {
+			final Timer<E> sentinel = new Timer<E>(null, 0);
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			return sentinel;
+		}
+
+		/**
+		 * @return 定时的对象
+		 */
+		public E getElement() {
+			return element;
+		}
+
+		/**
+		 * @return 到期时间，单位毫秒
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * @return 是否在时间轮中
+		 */
+		public boolean isScheduled() {
+			return prev != null;
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package me.asu.impl;
+
+import me.asu.Expiry;
+
+/**
+ * W-TinyLFU 缓存<br>
+ * 缓存分为两个区域：
+ * <ul>
+ * 		<li>准入窗口：占容量的1%，使用LRU，新对象总是先进入窗口，使突发的新热点可以被缓存</li>
+ * 		<li>主区域：分段LRU，分为试用区（20%）和保护区（80%），试用区中被再次访问的对象晋升到保护区</li>
+ * </ul>
+ * 对象被挤出窗口时成为候选者，与主区域中将被淘汰的对象比较访问频率（由{@link FrequencySketch}估算），
+ * 频率更高者留下。因此只访问一次的对象无法挤掉热点对象，命中率通常明显高于{@link LFUCache}和{@link LRUCache}。<br>
+ * 频率估算使用4位Count-Min Sketch，每个缓存对象约占8字节，并会周期性老化。<br>
+ * 读操作不加锁，策略维护在{@link AbstractConcurrentCache}中批量执行。
+ *
+ * @author Suk
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TinyLFUCache<K, V> extends AbstractConcurrentCache<K, V> {
+
+	static final byte WINDOW = 0;
+	static final byte PROBATION = 1;
+	static final byte PROTECTED = 2;
+
+	/** 准入窗口占容量的比例 */
+	static final double WINDOW_PERCENTAGE = 0.01d;
+	/** 保护区占主区域的比例 */
+	static final double PROTECTED_PERCENTAGE = 0.80d;
+
+	/** 以下字段受<code>evictionLock</code>保护 */
+	private final NodeDeque<K, V> window = new NodeDeque<K, V>();
+	private final NodeDeque<K, V> probation = new NodeDeque<K, V>();
+	private final NodeDeque<K, V> protectedQueue = new NodeDeque<K, V>();
+	private final FrequencySketch<K> sketch;
+	private final int maxWindow;
+	private final int maxMain;
+	private final int maxProtected;
+
+	/**
+	 * 构造<br>
+	 * 默认无超时
+	 * @param capacity 容量
+	 */
+	public TinyLFUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 * @param capacity 容量，<code>0</code>表示无大小限制（此时退化为LRU）
+	 * @param timeout 默认超时时间，单位：毫秒
+	 */
+	public TinyLFUCache(int capacity, long timeout) {
+		this(capacity, timeout, null);
+	}
+
+	/**
+	 * 构造，过期时间由过期策略计算
+	 * @param capacity 容量，<code>0</code>表示无大小限制（此时退化为LRU）
+	 * @param expiry 过期策略
+	 */
+	public TinyLFUCache(int capacity, Expiry<K, V> expiry) {
+		this(capacity, 0, expiry);
+	}
+
+	private TinyLFUCache(int capacity, long timeout, Expiry<K, V> expiry) {
+		super(capacity, timeout, expiry);
+		if (capacity == 0) {
+			this.maxWindow = Integer.MAX_VALUE;
+			this.maxMain = 0;
+			this.maxProtected = 0;
+			this.sketch = null;
+		} else {
+			this.maxWindow = Math.max(1, (int) (capacity * WINDOW_PERCENTAGE));
+			this.maxMain = capacity - maxWindow;
+			this.maxProtected = (int) (maxMain * PROTECTED_PERCENTAGE);
+			this.sketch = new FrequencySketch<K>(capacity);
+		}
+	}
+
+	@Override
+	void onAdd(Node<K, V> node) {
+		if (null != sketch) {
+			sketch.increment(node.key);
+		}
+		node.queue = WINDOW;
+		window.linkLast(node);
+	}
+
+	@Override
+	void onAccess(Node<K, V> node) {
+		if (null != sketch) {
+			sketch.increment(node.key);
+		}
+		switch (node.queue) {
+		case WINDOW:
+			window.moveToBack(node);
+			break;
+		case PROBATION:
+			// 试用区中被再次访问的对象晋升到保护区，保护区溢出的对象降级到试用区
+			probation.unlink(node);
+			node.queue = PROTECTED;
+			protectedQueue.linkLast(node);
+			demoteFromProtected();
+			break;
+		default:
+			protectedQueue.moveToBack(node);
+			break;
+		}
+	}
+
+	@Override
+	void onRemoval(Node<K, V> node) {
+		queueOf(node).unlink(node);
+	}
+
+	/**
+	 * 将窗口溢出的对象作为候选者与试用区首部的对象比较频率，淘汰频率较低者
+	 */
+	@Override
+	void evictOverflow() {
+		while (window.size() > maxWindow) {
+			final Node<K, V> candidate = window.peekFirst();
+			window.unlink(candidate);
+			candidate.queue = PROBATION;
+			probation.linkLast(candidate);
+			if (probation.size() + protectedQueue.size() > maxMain) {
+				evictFromMain(candidate);
+			}
+		}
+		// 主区域可能因超时清理、移除等原因与窗口大小不匹配，兜底按LRU淘汰
+		Node<K, V> victim;
+		while (residentSize > capacity && (victim = firstInMain()) != null) {
+			evictEntry(victim);
+		}
+	}
+
+	/**
+	 * 候选者与主区域中最先被淘汰的对象竞争
+	 * @param candidate 候选者，已加入试用区尾部
+	 */
+	private void evictFromMain(Node<K, V> candidate) {
+		Node<K, V> victim = probation.peekFirst();
+		if (victim == candidate) {
+			// 试用区只有候选者，对手取保护区首部
+			victim = protectedQueue.peekFirst();
+		}
+		if (victim == null) {
+			evictEntry(candidate);
+			return;
+		}
+		if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+			evictEntry(victim);
+		} else {
+			evictEntry(candidate);
+		}
+	}
+
+	/**
+	 * 保护区超出大小时，将首部对象降级到试用区
+	 */
+	private void demoteFromProtected() {
+		while (protectedQueue.size() > maxProtected) {
+			final Node<K, V> demoted = protectedQueue.peekFirst();
+			protectedQueue.unlink(demoted);
+			demoted.queue = PROBATION;
+			probation.linkLast(demoted);
+		}
+	}
+
+	private Node<K, V> firstInMain() {
+		Node<K, V> node = probation.peekFirst();
+		if (node == null) {
+			node = protectedQueue.peekFirst();
+		}
+		if (node == null) {
+			node = window.peekFirst();
+		}
+		return node;
+	}
+
+	private NodeDeque<K, V> queueOf(Node<K, V> node) {
+		switch (node.queue) {
+		case WINDOW:
+			return window;
+		case PROBATION:
+			return probation;
+		default:
+			return protectedQueue;
+		}
+	}
+}
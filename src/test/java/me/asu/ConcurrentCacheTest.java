@@ -0,0 +1,114 @@
+package me.asu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * {@link ConcurrentCache}测试，晋升与并发读写交错时不丢失也不复活对象
+ *
+ * @author Suk
+ */
+public class ConcurrentCacheTest {
+
+    @Test
+    public void promotedEntriesAreStillReadable() {
+        final ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(8);
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final String key = "k" + i;
+            keys.add(key);
+            cache.put(key, i);
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(Integer.valueOf(i), cache.get(keys.get(i)));
+        }
+        assertEquals(100, cache.getAll().size());
+    }
+
+    @Test
+    public void removeClearsBothGenerations() {
+        final ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(4);
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String key = "k" + i;
+            keys.add(key);
+            cache.put(key, i);
+        }
+        for (String key : keys) {
+            cache.remove(key);
+            assertNull(cache.get(key));
+        }
+        final Map<String, Integer> all = cache.removeAll();
+        assertEquals(0, all.size());
+    }
+
+    @Test
+    public void concurrentWritesAreNeverLostOrResurrected() throws InterruptedException {
+        final ConcurrentCache<String, Long> cache = new ConcurrentCache<>(16);
+        final int writers = 4;
+        final int readers = 4;
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            keys.add("k" + i);
+        }
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            final int owner = w;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    // 每个键只有一个写入者，读到的值必须是它最后写入的值
+                    final Random random = new Random(owner);
+                    for (long i = 0; i < 200_000 && failure.get() == null; i++) {
+                        final String key = keys.get(owner + writers * random.nextInt(keys.size() / writers));
+                        cache.put(key, i);
+                        final Long value = cache.get(key);
+                        if (null == value || value != i) {
+                            failure.set(key + " expected " + i + " but was " + value);
+                        }
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            final int seed = r;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    final Random random = new Random(100 + seed);
+                    for (int i = 0; i < 400_000 && failure.get() == null; i++) {
+                        cache.get(keys.get(random.nextInt(keys.size())));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get(), failure.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package me.asu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import me.asu.impl.CleanupScheduler;
+import me.asu.impl.ManualTicker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link TimeToLiveCache}测试，共享线程池已满时不阻塞清理也不丢弃过期通知
+ *
+ * @author Suk
+ */
+public class TimeToLiveCacheTest {
+
+    /** 足够长的清理间隔，测试中直接调用清理 */
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private ManualTicker ticker;
+    private CleanupScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        ticker = new ManualTicker(1_000_000L);
+        scheduler = new CleanupScheduler(1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void massExpiryNotifiesEveryEntryInBoundedBatches() throws InterruptedException {
+        final TimeToLiveCache<Integer, Integer> cache = new TimeToLiveCache<>(100, NEVER, ticker, scheduler);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final Set<Integer> notified = new HashSet<>();
+        final int[] maxBatch = new int[1];
+        cache.addTimeoutHandler(new TimeToLiveCache.TimeoutHandler<Integer, Integer>() {
+            @Override
+            public void fireTimeout(Integer k, Integer v) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void fireTimeouts(List<Map.Entry<Integer, Integer>> timeouts) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                synchronized (notified) {
+                    maxBatch[0] = Math.max(maxBatch[0], timeouts.size());
+                    for (Map.Entry<Integer, Integer> e : timeouts) {
+                        notified.add(e.getKey());
+                    }
+                }
+            }
+        });
+        final int count = 10 * TimeToLiveCache.TIMEOUT_BATCH_SIZE + 17;
+        for (int i = 0; i < count; i++) {
+            cache.put(i, i);
+        }
+        ticker.advance(1000);
+
+        // 处理器被阻塞，执行和排队的两批及等待提交的一批之外的对象仍留在缓存中
+        cache.cleanup();
+        cache.cleanup();
+        assertEquals(count - 3 * TimeToLiveCache.TIMEOUT_BATCH_SIZE, cache.size());
+
+        gate.countDown();
+        final long deadline = System.currentTimeMillis() + 10_000L;
+        while (System.currentTimeMillis() < deadline) {
+            cache.cleanup();
+            synchronized (notified) {
+                if (notified.size() == count) {
+                    break;
+                }
+            }
+            Thread.sleep(1);
+        }
+        synchronized (notified) {
+            assertEquals(count, notified.size());
+            assertTrue(maxBatch[0] <= TimeToLiveCache.TIMEOUT_BATCH_SIZE);
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void accessedEntriesAreNotExpired() {
+        final TimeToLiveCache<String, String> cache = new TimeToLiveCache<>(100, NEVER, ticker, scheduler);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        ticker.advance(60);
+        cache.get("a");
+        ticker.advance(60);
+        cache.cleanup();
+        assertEquals("1", cache.get("a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void replacedAndRemovedEntriesAreNotNotified() throws InterruptedException {
+        final TimeToLiveCache<String, String> cache = new TimeToLiveCache<>(100, NEVER, ticker, scheduler);
+        final CountDownLatch fired = new CountDownLatch(1);
+        final Map<String, String> notified = new ConcurrentHashMap<>();
+        cache.addTimeoutHandler(new TimeToLiveCache.TimeoutHandler<String, String>() {
+            @Override
+            public void fireTimeout(String k, String v) {
+                notified.put(k, v);
+            }
+
+            @Override
+            public void fireTimeouts(List<Map.Entry<String, String>> timeouts) {
+                TimeToLiveCache.TimeoutHandler.super.fireTimeouts(timeouts);
+                fired.countDown();
+            }
+        });
+        cache.put("a", "old");
+        cache.put("b", "1");
+        cache.put("a", "new");
+        cache.remove("b");
+        ticker.advance(1000);
+        cache.cleanup();
+        assertTrue(fired.await(10, TimeUnit.SECONDS));
+        assertEquals(1, notified.size());
+        assertEquals("new", notified.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cleanupIsCancelledWhenCacheIsUnreachable() throws InterruptedException {
+        TimeToLiveCache<String, String> cache = new TimeToLiveCache<>(100, 5, ticker, scheduler);
+        cache.put("a", "1");
+        assertEquals(1, scheduler.size());
+        cache = null;
+        final long deadline = System.currentTimeMillis() + 10_000L;
+        while (scheduler.size() > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, scheduler.size());
+    }
+}
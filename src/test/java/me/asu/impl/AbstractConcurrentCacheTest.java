@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link AbstractConcurrentCache}测试，通过{@link ConcurrentLRUCache}验证缓冲区的批量处理和淘汰
+ *
+ * @author Suk
+ */
+public class AbstractConcurrentCacheTest {
+
+	private ManualTicker ticker;
+
+	@Before
+	public void setUp() {
+		ticker = new ManualTicker(1_000_000L);
+	}
+
+	private <K, V> ConcurrentLRUCache<K, V> newCache(int capacity) {
+		final ConcurrentLRUCache<K, V> cache = new ConcurrentLRUCache<K, V>(capacity);
+		cache.setTicker(ticker);
+		return cache;
+	}
+
+	/**
+	 * @return 所有读缓冲区中尚未处理的访问记录数
+	 */
+	private static long pendingReads(AbstractConcurrentCache<?, ?> cache) {
+		long pending = 0;
+		for (AbstractConcurrentCache.ReadBuffer<?, ?> buffer : cache.readBuffers) {
+			pending += buffer.writeCount.get() - buffer.readCount.get();
+		}
+		return pending;
+	}
+
+	/**
+	 * 处理完所有缓冲区，每次批量处理的写任务数有上限
+	 */
+	private static void drainAll(AbstractConcurrentCache<?, ?> cache) {
+		do {
+			cache.prune();
+		} while (false == cache.writeBuffer.isEmpty());
+	}
+
+	@Test
+	public void readBufferIsDrainedAtThreshold() {
+		final ConcurrentLRUCache<String, String> cache = newCache(10);
+		cache.put("a", "1");
+		for (int i = 1; i < AbstractConcurrentCache.READ_BUFFER_DRAIN_THRESHOLD; i++) {
+			assertEquals("1", cache.get("a"));
+		}
+		assertEquals(AbstractConcurrentCache.READ_BUFFER_DRAIN_THRESHOLD - 1, pendingReads(cache));
+
+		cache.get("a");
+		assertEquals(0, pendingReads(cache));
+	}
+
+	@Test
+	public void readsAreDroppedWhileBufferIsFull() throws InterruptedException {
+		final ConcurrentLRUCache<String, String> cache = newCache(10);
+		cache.put("a", "1");
+		// 其它线程持有锁时读取不能处理缓冲区
+		final CountDownLatch locked = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final Thread holder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				cache.evictionLock.lock();
+				try {
+					locked.countDown();
+					done.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					cache.evictionLock.unlock();
+				}
+			}
+		});
+		holder.start();
+		locked.await();
+		try {
+			for (int i = 0; i < AbstractConcurrentCache.READ_BUFFER_SIZE * 4; i++) {
+				assertEquals("1", cache.get("a"));
+			}
+			assertEquals(AbstractConcurrentCache.READ_BUFFER_SIZE, pendingReads(cache));
+		} finally {
+			done.countDown();
+			holder.join();
+		}
+		cache.prune();
+		assertEquals(0, pendingReads(cache));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		final ConcurrentLRUCache<String, String> cache = newCache(3);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		cache.get("a");
+		cache.put("d", "4");
+
+		assertEquals(3, cache.size());
+		assertNull(cache.get("b"));
+		assertTrue(cache.containsKey("a"));
+		assertEquals(1, cache.stats().evictionCount());
+	}
+
+	@Test
+	public void replacedEntriesLeaveThePolicy() {
+		final ConcurrentLRUCache<String, Integer> cache = newCache(0);
+		for (int i = 0; i < 1000; i++) {
+			cache.put("k" + (i % 10), i);
+		}
+		drainAll(cache);
+		assertEquals(10, cache.size());
+		assertEquals(10, cache.residentSize);
+	}
+
+	@Test
+	public void expiredEntriesArePrunedWithoutReads() {
+		final ConcurrentLRUCache<Integer, String> cache = newCache(0);
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, "v", (i < 50) ? 100 : 10_000);
+		}
+		ticker.advance(101);
+		assertEquals(50, cache.prune());
+		assertEquals(50, cache.size());
+		assertEquals(50, cache.stats().expirationCount());
+
+		ticker.advance(10_000);
+		assertNull(cache.get(99));
+		assertEquals(49, cache.prune());
+		assertTrue(cache.isEmpty());
+	}
+
+	@Test
+	public void concurrentUpdatesKeepThePolicyConsistent() throws InterruptedException {
+		final ConcurrentLRUCache<Integer, Integer> cache = newCache(100);
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			final int seed = t;
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					final Random random = new Random(seed);
+					for (int i = 0; i < 50_000; i++) {
+						final int key = random.nextInt(500);
+						switch (random.nextInt(4)) {
+						case 0:
+							cache.remove(key);
+							break;
+						case 1:
+							cache.put(key, i);
+							break;
+						default:
+							cache.get(key);
+						}
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		drainAll(cache);
+		assertFalse(cache.size() > 100);
+		assertEquals(cache.data.size(), cache.residentSize);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * {@link CacheMetrics}测试，注册只开启清理耗时的记录，读写不计时
+ *
+ * @author Suk
+ */
+public class CacheMetricsTest {
+
+	@Test
+	public void registrationOnlyTimesPrune() {
+		final LRUCache<String, String> cache = new LRUCache<String, String>(10);
+		final CacheMetrics metrics = new CacheMetrics("lru", cache);
+		assertNull(cache.getLatencyRecorder());
+
+		cache.put("a", "1");
+		cache.get("a");
+		cache.prune();
+		assertEquals(1, metrics.getPruneCount());
+		final LatencyRecorder recorder = cache.pruneRecorder();
+		assertEquals(0, recorder.histogram(LatencyRecorder.Operation.GET_HIT).snapshot().count());
+		assertEquals(0, recorder.histogram(LatencyRecorder.Operation.PUT).snapshot().count());
+	}
+
+	@Test
+	public void usesTheRecorderSetOnTheCache() {
+		final LRUCache<String, String> cache = new LRUCache<String, String>(10);
+		final LatencyRecorder recorder = new LatencyRecorder();
+		cache.setLatencyRecorder(recorder);
+		final CacheMetrics metrics = new CacheMetrics("lru", new DefaultLoadingCache<String, String>(cache));
+		assertSame(recorder, cache.getLatencyRecorder());
+
+		cache.prune();
+		cache.prune();
+		assertEquals(2, metrics.getPruneCount());
+	}
+}
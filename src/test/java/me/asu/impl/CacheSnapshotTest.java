@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link CacheSnapshot}测试，加载时在缓存的锁内恢复剩余存活时长和访问次数
+ *
+ * @author Suk
+ */
+public class CacheSnapshotTest {
+
+	private File file;
+	private ManualTicker ticker;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("snapshot-test", ".snap");
+		ticker = new ManualTicker(1_000_000L);
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	private <C extends AbstractCache<String, String>> C withTicker(C cache) {
+		cache.setTicker(ticker);
+		return cache;
+	}
+
+	@Test
+	public void restoredEntriesExpireAtTheirRemainingTime() throws IOException {
+		final LRUCache<String, String> saved = withTicker(new LRUCache<String, String>(10, 1000));
+		saved.put("a", "1");
+		ticker.advance(600);
+		assertEquals(1, CacheSnapshot.save(saved, file));
+
+		final LRUCache<String, String> loaded = withTicker(new LRUCache<String, String>(10, 1000));
+		assertEquals(1, CacheSnapshot.load(loaded, file));
+		ticker.advance(500);
+		// 过期时间在放入时生效，时间轮按恢复的过期时间清理
+		assertEquals(1, loaded.prune());
+		assertEquals(0, loaded.size());
+	}
+
+	@Test
+	public void restoresAccessCount() throws IOException {
+		final LFUCache<String, String> saved = withTicker(new LFUCache<String, String>(10, 0));
+		saved.put("a", "1");
+		for (int i = 0; i < 5; i++) {
+			saved.get("a");
+		}
+		final long accessCount = CacheObj.peek(saved, "a").getAccessCount();
+		CacheSnapshot.save(saved, file);
+
+		final LFUCache<String, String> loaded = withTicker(new LFUCache<String, String>(10, 0));
+		CacheSnapshot.load(loaded, file);
+		assertEquals(accessCount, CacheObj.peek(loaded, "a").getAccessCount());
+	}
+
+	@Test
+	public void liveEntriesAreNotOverwritten() throws IOException {
+		final LRUCache<String, String> saved = withTicker(new LRUCache<String, String>(10, 0));
+		saved.put("a", "old");
+		saved.put("b", "2");
+		CacheSnapshot.save(saved, file);
+
+		final LRUCache<String, String> loaded = withTicker(new LRUCache<String, String>(10, 0));
+		loaded.put("a", "new");
+		assertEquals(1, CacheSnapshot.load(loaded, file));
+		assertEquals("new", loaded.get("a"));
+		assertEquals("2", loaded.get("b"));
+	}
+}
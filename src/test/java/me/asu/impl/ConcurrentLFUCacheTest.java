@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * {@link ConcurrentLFUCache}测试，衰减合并桶后对象仍能找到所在的桶
+ *
+ * @author Suk
+ */
+public class ConcurrentLFUCacheTest {
+
+	/**
+	 * 处理完所有缓冲区，每次批量处理的写任务数有上限
+	 */
+	private static void drainAll(AbstractConcurrentCache<?, ?> cache) {
+		do {
+			cache.prune();
+		} while (false == cache.writeBuffer.isEmpty());
+	}
+
+	@Test
+	public void decayMergesBucketsInFrequencyOrder() {
+		final ConcurrentLFUCache<String, String> cache = new ConcurrentLFUCache<String, String>(3, 0, 3);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		drainAll(cache);
+		// a的频率为3，b为2，c为1，第3次访问时衰减，三个桶合并为频率1的一个桶：c、b、a
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+		drainAll(cache);
+
+		cache.put("d", "4");
+		drainAll(cache);
+		assertFalse(cache.containsKey("c"));
+		assertTrue(cache.containsKey("a"));
+		assertTrue(cache.containsKey("b"));
+		assertTrue(cache.containsKey("d"));
+
+		// 通过合并后的桶引用访问和移除
+		cache.get("b");
+		cache.remove("a");
+		cache.put("e", "5");
+		cache.put("f", "6");
+		drainAll(cache);
+		assertEquals(3, cache.size());
+		assertFalse(cache.containsKey("d"));
+		assertTrue(cache.containsKey("b"));
+		assertTrue(cache.containsKey("e"));
+		assertTrue(cache.containsKey("f"));
+	}
+
+	@Test
+	public void frequentDecayKeepsBucketsConsistent() {
+		final int capacity = 64;
+		final ConcurrentLFUCache<Integer, Integer> cache = new ConcurrentLFUCache<Integer, Integer>(capacity, 0, 7);
+		final Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			final int key = random.nextInt(256);
+			switch (random.nextInt(4)) {
+			case 0:
+				cache.put(key, key);
+				break;
+			case 1:
+				cache.remove(key);
+				break;
+			default:
+				final Integer value = cache.get(key);
+				if (null != value) {
+					assertEquals(key, value.intValue());
+				}
+			}
+		}
+		drainAll(cache);
+		assertTrue(cache.size() <= capacity);
+		assertEquals(cache.size(), cache.residentSize);
+	}
+}
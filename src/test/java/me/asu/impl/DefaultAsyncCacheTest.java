@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+import me.asu.Cache;
+import org.junit.Test;
+
+/**
+ * {@link DefaultAsyncCache}测试，失败的结果只在仍被缓存时移除
+ *
+ * @author Suk
+ */
+public class DefaultAsyncCacheTest {
+
+	private static void failedResultIsRemoved(Cache<String, CompletableFuture<String>> backing) {
+		final DefaultAsyncCache<String, String> cache = new DefaultAsyncCache<String, String>(backing);
+		final CompletableFuture<String> future = new CompletableFuture<String>();
+		cache.put("a", future);
+		future.completeExceptionally(new IllegalStateException("backend down"));
+		assertNull(cache.getIfPresent("a"));
+		assertEquals(0, cache.size());
+	}
+
+	private static void failedResultDoesNotRemoveNewerOne(Cache<String, CompletableFuture<String>> backing) {
+		final DefaultAsyncCache<String, String> cache = new DefaultAsyncCache<String, String>(backing);
+		final CompletableFuture<String> stale = new CompletableFuture<String>();
+		cache.put("a", stale);
+		final CompletableFuture<String> current = CompletableFuture.completedFuture("v");
+		cache.put("a", current);
+		stale.completeExceptionally(new IllegalStateException("backend down"));
+		assertSame(current, cache.getIfPresent("a"));
+	}
+
+	@Test
+	public void failedResultIsRemoved() {
+		failedResultIsRemoved(new LRUCache<String, CompletableFuture<String>>(10));
+		failedResultIsRemoved(new ConcurrentLRUCache<String, CompletableFuture<String>>(10));
+	}
+
+	@Test
+	public void failedResultDoesNotRemoveNewerOne() {
+		failedResultDoesNotRemoveNewerOne(new LRUCache<String, CompletableFuture<String>>(10));
+		failedResultDoesNotRemoveNewerOne(new ConcurrentLRUCache<String, CompletableFuture<String>>(10));
+	}
+}
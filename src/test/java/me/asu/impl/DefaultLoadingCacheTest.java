@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import me.asu.CacheLoader;
+import me.asu.LoadingCache;
+import org.junit.Test;
+
+/**
+ * {@link DefaultLoadingCache}测试，同一个键的并发加载只执行一次
+ *
+ * @author Suk
+ */
+public class DefaultLoadingCacheTest {
+
+	/**
+	 * 阻塞直到放行的加载器，记录每个键的加载次数
+	 */
+	private static final class BlockingLoader implements CacheLoader<String, String> {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ConcurrentHashMap<String, AtomicInteger> loads = new ConcurrentHashMap<String, AtomicInteger>();
+		final List<Set<? extends String>> batches = Collections.synchronizedList(new ArrayList<Set<? extends String>>());
+
+		@Override
+		public String load(String key) throws Exception {
+			count(key);
+			entered.countDown();
+			release.await();
+			return key + "!";
+		}
+
+		@Override
+		public Map<String, String> loadAll(Set<? extends String> keys) throws Exception {
+			batches.add(keys);
+			final Map<String, String> result = new HashMap<String, String>();
+			for (String key : keys) {
+				count(key);
+				result.put(key, key + "!");
+			}
+			return result;
+		}
+
+		private void count(String key) {
+			final AtomicInteger count = new AtomicInteger();
+			final AtomicInteger current = loads.putIfAbsent(key, count);
+			((null == current) ? count : current).incrementAndGet();
+		}
+
+		int loads(String key) {
+			final AtomicInteger count = loads.get(key);
+			return (null == count) ? 0 : count.get();
+		}
+	}
+
+	@Test
+	public void concurrentMissesLoadOnce() throws InterruptedException {
+		final BlockingLoader loader = new BlockingLoader();
+		final LoadingCache<String, String> cache = new DefaultLoadingCache<String, String>(
+				new ConcurrentLRUCache<String, String>(100), loader);
+		final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					results.add(cache.getOrLoad("k"));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		loader.entered.await();
+		// 给其它线程时间进入等待
+		Thread.sleep(50);
+		loader.release.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, loader.loads("k"));
+		assertEquals(Collections.nCopies(8, "k!"), results);
+		assertEquals(1, cache.stats().loadCount());
+	}
+
+	@Test
+	public void refreshDoesNotOverwriteNewerValue() {
+		final ManualTicker ticker = new ManualTicker(1_000_000L);
+		final LRUCache<String, String> lru = new LRUCache<String, String>(100);
+		lru.setTicker(ticker);
+		final List<Runnable> refreshes = new ArrayList<Runnable>();
+		final LoadingCache<String, String> cache = new DefaultLoadingCache<String, String>(lru,
+				new CacheLoader<String, String>() {
+					@Override
+					public String load(String key) {
+						return key + "!";
+					}
+				}, 100, new Executor() {
+					@Override
+					public void execute(Runnable command) {
+						refreshes.add(command);
+					}
+				});
+		cache.put("a", "v1");
+		cache.put("b", "v1");
+		ticker.advance(200);
+		assertEquals("v1", cache.getOrLoad("a"));
+		assertEquals("v1", cache.getOrLoad("b"));
+		assertEquals(2, refreshes.size());
+
+		// 刷新期间放入的新值不被刷新结果覆盖
+		cache.put("a", "v2");
+		for (Runnable refresh : refreshes) {
+			refresh.run();
+		}
+		assertEquals("v2", cache.getOrLoad("a"));
+		assertEquals("b!", cache.getOrLoad("b"));
+	}
+
+	@Test
+	public void failedLoadIsNotCached() {
+		final AtomicInteger calls = new AtomicInteger();
+		final LoadingCache<String, String> cache = new DefaultLoadingCache<String, String>(
+				new LRUCache<String, String>(100), new CacheLoader<String, String>() {
+					@Override
+					public String load(String key) {
+						if (calls.incrementAndGet() == 1) {
+							throw new IllegalStateException("backend down");
+						}
+						return key + "!";
+					}
+				});
+		try {
+			cache.getOrLoad("k");
+			fail("load failure not propagated");
+		} catch (IllegalStateException e) {
+			assertEquals("backend down", e.getMessage());
+		}
+		assertEquals("k!", cache.getOrLoad("k"));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void recursiveLoadFailsInsteadOfHanging() {
+		final AtomicReference<LoadingCache<String, String>> self = new AtomicReference<LoadingCache<String, String>>();
+		final LoadingCache<String, String> cache = new DefaultLoadingCache<String, String>(
+				new LRUCache<String, String>(100), new CacheLoader<String, String>() {
+					@Override
+					public String load(String key) {
+						return "self".equals(key) ? self.get().getOrLoad(key) : key + "!";
+					}
+				});
+		self.set(cache);
+		try {
+			cache.getOrLoad("self");
+			fail("recursive load not detected");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("Recursive load"));
+		}
+		// 失败的加载已撤销登记
+		assertEquals(Collections.singletonMap("a", "a!"), cache.getAllOrLoad(Arrays.asList("a")));
+		try {
+			cache.getAllOrLoad(Arrays.asList("b", "self"));
+			fail("recursive load not detected");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("Recursive load"));
+		}
+	}
+
+	@Test
+	public void getAllIteratesKeysOnce() {
+		final BlockingLoader loader = new BlockingLoader();
+		final LoadingCache<String, String> cache = new DefaultLoadingCache<String, String>(
+				new LRUCache<String, String>(100), loader);
+		cache.put("a", "cached");
+		final Iterable<String> oneShot = new Iterable<String>() {
+			private boolean used;
+
+			@Override
+			public Iterator<String> iterator() {
+				if (used) {
+					return Collections.<String>emptyIterator();
+				}
+				used = true;
+				return Arrays.asList("a", "b", "c").iterator();
+			}
+		};
+		final Map<String, String> result = cache.getAllOrLoad(oneShot);
+		assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<String>(result.keySet()));
+		assertEquals("cached", result.get("a"));
+		assertEquals(1, loader.batches.size());
+		assertEquals(2, loader.batches.get(0).size());
+	}
+
+	@Test
+	public void getAllWaitsForKeysLoadingInOtherThreads() throws InterruptedException {
+		final BlockingLoader loader = new BlockingLoader();
+		final LoadingCache<String, String> cache = new DefaultLoadingCache<String, String>(
+				new ConcurrentLRUCache<String, String>(100), loader);
+		final Thread single = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				cache.getOrLoad("a");
+			}
+		});
+		single.start();
+		loader.entered.await();
+
+		final Map<String, String> result = new ConcurrentHashMap<String, String>();
+		final Thread batch = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				result.putAll(cache.getAllOrLoad(Arrays.asList("a", "b")));
+			}
+		});
+		batch.start();
+		while (loader.batches.isEmpty()) {
+			Thread.sleep(1);
+		}
+		loader.release.countDown();
+		batch.join();
+		single.join();
+
+		assertEquals(Collections.singleton("b"), loader.batches.get(0));
+		assertEquals(1, loader.loads("a"));
+		assertEquals("a!", result.get("a"));
+		assertEquals("b!", result.get("b"));
+	}
+}
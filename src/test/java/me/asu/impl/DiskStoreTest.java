@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import me.asu.Serializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link DiskStore}测试，覆盖和过期使段中的记录失效后的压缩
+ *
+ * @author Suk
+ */
+public class DiskStoreTest {
+
+	private static final Serializer<String> UTF8 = new Serializer<String>() {
+		@Override
+		public byte[] serialize(String object) {
+			return object.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String deserialize(byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	/** 记录67字节：头部24字节、键3字节、值40字节，每段15条 */
+	private static final int SEGMENT_SIZE = 1024;
+	private static final int RECORDS_PER_SEGMENT = 15;
+
+	private File directory;
+	private ManualTicker ticker;
+	/** 压缩任务，由测试手动执行 */
+	private final List<Runnable> compactions = new ArrayList<Runnable>();
+	private final Executor manual = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			compactions.add(command);
+		}
+	};
+	private DiskStore<String, String> store;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("diskstore-test").toFile();
+		ticker = new ManualTicker(1_000_000L);
+		store = new DiskStore<String, String>(directory, 10 * SEGMENT_SIZE, SEGMENT_SIZE, UTF8, UTF8, manual);
+		store.setTicker(ticker);
+	}
+
+	@After
+	public void tearDown() {
+		store.close();
+		directory.delete();
+	}
+
+	private static String key(int i) {
+		return (i < 10) ? "k0" + i : "k" + i;
+	}
+
+	private static String value(String prefix, int i) {
+		final StringBuilder builder = new StringBuilder(prefix).append(i);
+		while (builder.length() < 40) {
+			builder.append('.');
+		}
+		return builder.toString();
+	}
+
+	private void runCompactions() {
+		final List<Runnable> pending = new ArrayList<Runnable>(compactions);
+		compactions.clear();
+		for (Runnable compaction : pending) {
+			compaction.run();
+		}
+	}
+
+	/**
+	 * 写满第一个段后覆盖其中的大部分记录
+	 *
+	 * @return 第一个段的文件
+	 */
+	private File fillAndOverwriteFirstSegment() {
+		for (int i = 0; i <= RECORDS_PER_SEGMENT; i++) {
+			store.put(key(i), value("a", i), 0);
+		}
+		assertEquals(2, store.segmentCount());
+		final File first = new File(store.getDirectory(), DiskStore.SEGMENT_PREFIX + "00000000" + DiskStore.SEGMENT_SUFFIX);
+		assertTrue(first.exists());
+		// 有效记录降到一半以下时安排一次压缩
+		for (int i = 0; i < 10; i++) {
+			store.put(key(i), value("b", i), 0);
+		}
+		assertEquals(1, compactions.size());
+		return first;
+	}
+
+	@Test
+	public void compactionMovesLiveRecordsAndDeletesSegment() {
+		final File first = fillAndOverwriteFirstSegment();
+		runCompactions();
+
+		assertFalse(first.exists());
+		assertEquals(RECORDS_PER_SEGMENT + 1, store.size());
+		for (int i = 0; i <= RECORDS_PER_SEGMENT; i++) {
+			assertEquals(value((i < 10) ? "b" : "a", i), store.get(key(i)));
+		}
+	}
+
+	@Test
+	public void recordsOverwrittenBeforeCompactionAreNotCopied() {
+		fillAndOverwriteFirstSegment();
+		store.put(key(12), value("c", 12), 0);
+		store.remove(key(13));
+		runCompactions();
+
+		assertEquals(value("c", 12), store.get(key(12)));
+		assertNull(store.get(key(13)));
+		assertEquals(value("a", 14), store.get(key(14)));
+		assertEquals(RECORDS_PER_SEGMENT, store.size());
+	}
+
+	@Test
+	public void compactionDropsExpiredRecords() {
+		final long expireTime = ticker.currentTimeMillis() + 100;
+		for (int i = 0; i < RECORDS_PER_SEGMENT; i++) {
+			store.put(key(i), value("a", i), (i < 10) ? 0 : expireTime);
+		}
+		store.put(key(RECORDS_PER_SEGMENT), value("a", RECORDS_PER_SEGMENT), 0);
+		for (int i = 0; i < 10; i++) {
+			store.put(key(i), value("b", i), 0);
+		}
+		ticker.advance(101);
+		runCompactions();
+
+		assertEquals(11, store.size());
+		for (int i = 10; i < RECORDS_PER_SEGMENT; i++) {
+			assertNull(store.get(key(i)));
+		}
+	}
+
+	@Test
+	public void oldestSegmentIsDroppedWhenFull() {
+		store.close();
+		store = new DiskStore<String, String>(directory, 2 * SEGMENT_SIZE, SEGMENT_SIZE, UTF8, UTF8, manual);
+		for (int i = 0; i < 2 * RECORDS_PER_SEGMENT + 1; i++) {
+			store.put(key(i), value("a", i), 0);
+		}
+		assertEquals(2, store.segmentCount());
+		assertEquals(RECORDS_PER_SEGMENT + 1, store.size());
+		assertNull(store.get(key(0)));
+		assertEquals(value("a", 2 * RECORDS_PER_SEGMENT), store.get(key(2 * RECORDS_PER_SEGMENT)));
+	}
+}
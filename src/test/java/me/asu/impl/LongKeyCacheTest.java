@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * {@link LongKeyCache}测试，删除时探测链上的对象前移（backward shift）
+ *
+ * @author Suk
+ */
+public class LongKeyCacheTest {
+
+	/** 容量12时表大小为16 */
+	private static final int CAPACITY = 12;
+	private static final int TABLE_MASK = 15;
+
+	/**
+	 * @return 理想槽位为<code>slot</code>的前<code>count</code>个非负整数键
+	 */
+	private static List<Long> keysForSlot(int slot, int count) {
+		final List<Long> keys = new ArrayList<Long>();
+		for (long key = 0; keys.size() < count; key++) {
+			if ((LongKeyCache.hash(key) & TABLE_MASK) == slot) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+	@Test
+	public void removalShiftsTheRestOfTheProbeChain() {
+		final LongKeyCache<String> cache = new LongKeyCache<String>(CAPACITY);
+		final List<Long> chain = keysForSlot(3, 4);
+		// 理想槽位在链中间的对象不能移到它之前
+		final List<Long> neighbours = keysForSlot(5, 2);
+		for (Long key : chain) {
+			cache.put(key, "c" + key);
+		}
+		for (Long key : neighbours) {
+			cache.put(key, "n" + key);
+		}
+
+		cache.remove(chain.get(1));
+		cache.remove(chain.get(0));
+		assertFalse(cache.containsKey(chain.get(0)));
+		assertFalse(cache.containsKey(chain.get(1)));
+		for (Long key : chain.subList(2, 4)) {
+			assertEquals("c" + key, cache.get(key));
+		}
+		for (Long key : neighbours) {
+			assertEquals("n" + key, cache.get(key));
+		}
+		assertEquals(4, cache.size());
+	}
+
+	@Test
+	public void removalShiftsAcrossTheEndOfTheTable() {
+		final LongKeyCache<String> cache = new LongKeyCache<String>(CAPACITY);
+		// 从最后一个槽位开始的探测链绕回表头
+		final List<Long> chain = keysForSlot(TABLE_MASK, 4);
+		final List<Long> head = keysForSlot(0, 1);
+		for (Long key : chain) {
+			cache.put(key, "c" + key);
+		}
+		cache.put(head.get(0), "h");
+
+		cache.remove(chain.get(0));
+		for (Long key : chain.subList(1, 4)) {
+			assertEquals("c" + key, cache.get(key));
+		}
+		assertEquals("h", cache.get(head.get(0)));
+		cache.remove(head.get(0));
+		for (Long key : chain.subList(1, 4)) {
+			assertEquals("c" + key, cache.get(key));
+		}
+	}
+
+	@Test
+	public void shiftedEntriesKeepTheirLruPosition() {
+		final LongKeyCache<String> cache = new LongKeyCache<String>(4);
+		final List<Long> chain = keysForSlot(LongKeyCache.hash(0) & 7, 5);
+		for (Long key : chain.subList(0, 4)) {
+			cache.put(key, "c" + key);
+		}
+		cache.remove(chain.get(0));
+		cache.get(chain.get(1));
+		cache.put(chain.get(4), "c" + chain.get(4));
+		cache.put(-1L, "x");
+
+		// 加入x之前访问顺序为2、3、1、4，淘汰最久未使用的2
+		assertNull(cache.get(chain.get(2)));
+		assertTrue(cache.containsKey(chain.get(1)));
+		assertTrue(cache.containsKey(chain.get(3)));
+		assertTrue(cache.containsKey(chain.get(4)));
+		assertTrue(cache.containsKey(-1L));
+	}
+
+	@Test
+	public void matchesHashMapUnderRandomOperations() {
+		for (LongKeyCache.Eviction eviction : LongKeyCache.Eviction.values()) {
+			final Random random = new Random(17);
+			// 键少于容量，不会淘汰
+			final LongKeyCache<Long> cache = new LongKeyCache<Long>(64, 0, eviction);
+			final Map<Long, Long> expected = new HashMap<Long, Long>();
+			for (int i = 0; i < 200_000; i++) {
+				final long key = random.nextInt(48);
+				switch (random.nextInt(3)) {
+				case 0:
+					cache.put(key, (long) i);
+					expected.put(key, (long) i);
+					break;
+				case 1:
+					cache.remove(key);
+					expected.remove(key);
+					break;
+				default:
+					assertEquals(eviction + " key " + key, expected.get(key), cache.get(key));
+				}
+			}
+			assertEquals(expected.size(), cache.size());
+			for (long key = 0; key < 48; key++) {
+				assertEquals(expected.get(key), cache.get(key));
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import me.asu.Serializer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link OffHeapCache}测试，内存用尽时在大小级别之间重新分配slab
+ *
+ * @author Suk
+ */
+public class OffHeapCacheTest {
+
+	private static final Serializer<String> UTF8 = new Serializer<String>() {
+		@Override
+		public byte[] serialize(String object) {
+			return object.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String deserialize(byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	/** 占用512字节的块 */
+	private static final String LARGE;
+
+	static {
+		final char[] chars = new char[400];
+		Arrays.fill(chars, 'x');
+		LARGE = new String(chars);
+	}
+
+	private OffHeapCache<String, String> cache;
+
+	@Before
+	public void setUp() {
+		// 两个1KB的slab，小对象占用128字节的块，每个slab 8个
+		cache = new OffHeapCache<String, String>(0, 0, 2048, 1024, UTF8, UTF8);
+		for (int i = 0; i < 16; i++) {
+			cache.put(key(i), "v" + i);
+		}
+	}
+
+	private static String key(int i) {
+		return (i < 10) ? "s0" + i : "s" + i;
+	}
+
+	@Test
+	public void fillsBothSlabsWithSmallEntries() {
+		assertEquals(16, cache.size());
+		assertEquals(2048, cache.allocatedMemory());
+		assertEquals(0, cache.stats().evictionCount());
+	}
+
+	@Test
+	public void reassignsSlabFromTheLargestClass() {
+		cache.put("large0", LARGE);
+
+		// 第二个slab中的小对象全部移除，其余对象不受影响
+		assertEquals(LARGE, cache.get("large0"));
+		assertEquals(8 + 1, cache.size());
+		assertEquals(8, cache.stats().evictionCount());
+		for (int i = 0; i < 8; i++) {
+			assertEquals("v" + i, cache.get(key(i)));
+		}
+		for (int i = 8; i < 16; i++) {
+			assertFalse(cache.containsKey(key(i)));
+		}
+		assertEquals(2048, cache.allocatedMemory());
+	}
+
+	@Test
+	public void reusesReassignedSlabBeforeEvicting() {
+		cache.put("large0", LARGE);
+		cache.put("large1", LARGE);
+		assertEquals(8, cache.stats().evictionCount());
+
+		// 新slab已满，淘汰同一级别中最久未使用的对象，不再回收小对象的slab
+		cache.put("large2", LARGE);
+		assertNull(cache.get("large0"));
+		assertEquals(LARGE, cache.get("large1"));
+		assertEquals(LARGE, cache.get("large2"));
+		assertEquals(9, cache.stats().evictionCount());
+		assertEquals(8 + 2, cache.size());
+	}
+
+	@Test
+	public void freedSmallChunksAreNotReused() {
+		cache.put("large0", LARGE);
+		// 小对象的空闲链表中不能残留已回收slab的块
+		for (int i = 16; i < 32; i++) {
+			cache.put(key(i), "v" + i);
+		}
+		assertEquals(LARGE, cache.get("large0"));
+		int small = 0;
+		for (int i = 0; i < 32; i++) {
+			final String value = cache.get(key(i));
+			if (null != value) {
+				assertEquals("v" + i, value);
+				small++;
+			}
+		}
+		assertEquals(8, small);
+		assertTrue(cache.containsKey(key(31)));
+	}
+}
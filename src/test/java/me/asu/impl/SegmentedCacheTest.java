@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import me.asu.CacheUtil;
+import org.junit.Test;
+
+/**
+ * {@link SegmentedCache}测试，批量操作按分段分组后保持键的顺序
+ *
+ * @author Suk
+ */
+public class SegmentedCacheTest {
+
+	/**
+	 * @return 只能遍历一次的键
+	 */
+	private static <T> Iterable<T> oneShot(final List<T> keys) {
+		return new Iterable<T>() {
+			private boolean used;
+
+			@Override
+			public Iterator<T> iterator() {
+				if (used) {
+					return Collections.<T>emptyIterator();
+				}
+				used = true;
+				return keys.iterator();
+			}
+		};
+	}
+
+	@Test
+	public void getAllKeepsKeyOrderAcrossSegments() {
+		final SegmentedCache<Integer, String> cache = CacheUtil.newSegmentedLRUCache(64, 0, 4);
+		final List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 20; i > 0; i--) {
+			cache.put(i, "v" + i);
+			keys.add(i);
+		}
+		keys.add(100);
+		final Map<Integer, String> result = cache.getAll(keys);
+		assertEquals(keys.subList(0, 20), new ArrayList<Integer>(result.keySet()));
+		assertNull(result.get(100));
+	}
+
+	@Test
+	public void getAllReadsOneShotIterableOnce() {
+		final SegmentedCache<String, String> cache = CacheUtil.newSegmentedLRUCache(64, 0, 4);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		final Map<String, String> result = cache.getAll(oneShot(Arrays.asList("c", "a", "b")));
+		assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<String>(result.keySet()));
+	}
+
+	@Test
+	public void removeAllReadsOneShotIterableOnce() {
+		final SegmentedCache<String, String> cache = CacheUtil.newSegmentedLRUCache(64, 0, 4);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.removeAll(oneShot(Arrays.asList("a", "b")));
+		assertEquals(0, cache.size());
+	}
+}
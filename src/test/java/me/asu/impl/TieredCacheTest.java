@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.asu.Serializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link TieredCache}测试，淘汰的对象在内存缓存的锁外写入磁盘
+ *
+ * @author Suk
+ */
+public class TieredCacheTest {
+
+	private static final Serializer<String> UTF8 = new Serializer<String>() {
+		@Override
+		public byte[] serialize(String object) {
+			return object.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String deserialize(byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	private File directory;
+	private ConcurrentLRUCache<String, String> memory;
+	private DiskStore<String, String> store;
+	/** 写入磁盘时仍持有内存缓存锁的次数 */
+	private final AtomicInteger spilledUnderLock = new AtomicInteger();
+	private final AtomicInteger spilled = new AtomicInteger();
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("tiered-test").toFile();
+		memory = new ConcurrentLRUCache<String, String>(4);
+		store = new DiskStore<String, String>(directory, 1 << 20, UTF8, UTF8) {
+			@Override
+			public boolean put(String key, String value, long expireTime, long ttl) {
+				spilled.incrementAndGet();
+				if (memory.evictionLock.isHeldByCurrentThread()) {
+					spilledUnderLock.incrementAndGet();
+				}
+				return super.put(key, value, expireTime, ttl);
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		store.close();
+		directory.delete();
+	}
+
+	@Test
+	public void evictedEntriesAreSpilledOutsideTheLock() {
+		final TieredCache<String, String> cache = new TieredCache<String, String>(memory, store);
+		for (int i = 0; i < 100; i++) {
+			cache.put("k" + i, "v" + i);
+		}
+		assertEquals(100, cache.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals("v" + i, cache.get("k" + i));
+		}
+		assertFalse(0 == spilled.get());
+		assertEquals(0, spilledUnderLock.get());
+	}
+
+	@Test
+	public void removedEntriesAreNotSpilledBack() {
+		final TieredCache<String, String> cache = new TieredCache<String, String>(memory, store);
+		for (int i = 0; i < 10; i++) {
+			cache.put("k" + i, "v" + i);
+		}
+		cache.remove("k0");
+		cache.put("k1", "new");
+		assertFalse(cache.containsKey("k0"));
+		assertEquals("new", cache.get("k1"));
+		assertEquals(9, cache.size());
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2017 Bruce Asu<bruceasu@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following conditions:
+ *  　　
+ * 　　The above copyright notice and this permission notice shall
+ * be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+ * OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package me.asu.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * {@link TimerWheel}测试
+ *
+ * @author Suk
+ */
+public class TimerWheelTest {
+
+	private static final long START = 1_000_000L;
+
+	@Test
+	public void expiresAtDeadlineWithinCurrentBucket() {
+		final TimerWheel<String> wheel = new TimerWheel<String>(START);
+		wheel.schedule("a", START + 5);
+
+		assertTrue(wheel.advance(START + 4).isEmpty());
+		// 与上次推进在同一个16毫秒的桶内
+		assertEquals(Collections.singletonList("a"), wheel.advance(START + 5));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void cascadesFromHigherLevels() {
+		final TimerWheel<Long> wheel = new TimerWheel<Long>(START);
+		// 分别落在第1、2、3层
+		final List<Long> deadlines = Arrays.asList(START + 5_000, START + 600_000, START + 20_000_000);
+		for (Long deadline : deadlines) {
+			wheel.schedule(deadline, deadline);
+		}
+
+		final List<Long> expired = new ArrayList<Long>();
+		final long step = 997;
+		for (long now = START + step; expired.size() < deadlines.size(); now += step) {
+			for (Long deadline : wheel.advance(now)) {
+				// 在跨过到期时间的那次推进中返回
+				assertTrue(deadline <= now && deadline > now - step);
+				expired.add(deadline);
+			}
+		}
+		assertEquals(deadlines, expired);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void wrapsAroundAfterLongJumps() {
+		final TimerWheel<Long> wheel = new TimerWheel<Long>(START);
+		// 到期时间与当前时间相差整数圈，落在与当前桶相同的位置
+		wheel.schedule(START + 1024, START + 1024);
+		wheel.schedule(START + 65_536, START + 65_536);
+
+		assertTrue(wheel.advance(START + 1023).isEmpty());
+		assertEquals(Collections.singletonList(START + 1024), wheel.advance(START + 1024));
+		// 一次跨过多圈
+		assertEquals(Collections.singletonList(START + 65_536), wheel.advance(START + 1_000_000));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void rescheduleAndDeschedule() {
+		final TimerWheel<String> wheel = new TimerWheel<String>(START);
+		final TimerWheel.Timer<String> later = wheel.schedule("later", START + 100);
+		final TimerWheel.Timer<String> cancelled = wheel.schedule("cancelled", START + 100);
+
+		wheel.reschedule(later, START + 3_000);
+		wheel.deschedule(cancelled);
+		assertFalse(cancelled.isScheduled());
+		assertEquals(1, wheel.size());
+		assertTrue(wheel.advance(START + 2_999).isEmpty());
+		assertEquals(Collections.singletonList("later"), wheel.advance(START + 3_000));
+		assertFalse(later.isScheduled());
+
+		// 已到期的定时器重新加入
+		wheel.reschedule(later, START + 3_500);
+		assertEquals(Collections.singletonList("later"), wheel.advance(START + 3_500));
+	}
+
+	@Test
+	public void neverReturnsEarlyOrLate() {
+		final Random random = new Random(42);
+		final TimerWheel<Long> wheel = new TimerWheel<Long>(START);
+		final List<TimerWheel.Timer<Long>> pending = new ArrayList<TimerWheel.Timer<Long>>();
+		long now = START;
+		for (int round = 0; round < 2_000; round++) {
+			for (int i = 0; i < 5; i++) {
+				final long time = now + 1 + random.nextInt(random.nextBoolean() ? 5_000 : 200_000);
+				pending.add(wheel.schedule(time, time));
+			}
+			now += random.nextInt(40);
+			for (Long time : wheel.advance(now)) {
+				assertTrue("returned early: " + time + " at " + now, time <= now);
+			}
+			for (Iterator<TimerWheel.Timer<Long>> it = pending.iterator(); it.hasNext();) {
+				final TimerWheel.Timer<Long> timer = it.next();
+				if (timer.isScheduled()) {
+					assertTrue("not returned: " + timer.getTime() + " at " + now, timer.getTime() > now);
+				} else {
+					it.remove();
+				}
+			}
+		}
+		assertEquals(pending.size(), wheel.size());
+	}
+}